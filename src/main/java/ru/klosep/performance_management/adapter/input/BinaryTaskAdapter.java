@@ -0,0 +1,135 @@
+package ru.klosep.performance_management.adapter.input;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.parsing.BinaryTaskIndex;
+import ru.klosep.performance_management.parsing.BinaryTaskReader;
+import ru.klosep.performance_management.port.TaskDataSource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Component("binaryTaskAdapter")
+public class BinaryTaskAdapter implements TaskDataSource {
+
+    private final Path filePath;
+    private final Path indexPath;
+    private final boolean indexEnabled;
+
+    // Открываются лениво при первом поиске по id
+    private FileChannel lookupChannel;
+    private BinaryTaskIndex index;
+    private long indexedSize = -1;
+    private long indexedModified = -1;
+
+    public BinaryTaskAdapter(@Value("${task.binary.file:test-data-100k.bin}") String filePath,
+                             @Value("${task.binary.index-enabled:true}") boolean indexEnabled) {
+        this.filePath = Path.of(filePath);
+        this.indexPath = BinaryTaskIndex.defaultIndexPath(this.filePath);
+        this.indexEnabled = indexEnabled;
+    }
+
+    @Override
+    public List<Task> fetchTasks() {
+        System.out.println("📦 Reading tasks from binary file: " + filePath);
+
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            List<Task> tasks = new ArrayList<>(BinaryTaskReader.readCount(channel));
+            BinaryTaskReader reader = new BinaryTaskReader(channel);
+
+            Task task;
+            while ((task = reader.nextTask()) != null) {
+                tasks.add(task);
+            }
+            return tasks;
+        } catch (IOException e) {
+            System.err.println("❌ Error reading binary file: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    // Поиск по id через индекс (O(1)); без индекса - последовательный проход
+    public Optional<Task> findById(long id) {
+        try {
+            if (!indexEnabled) {
+                return scanForId(id);
+            }
+
+            synchronized (this) {
+                ensureIndex();
+                long offset = index.offsetOf(id);
+                return offset < 0
+                        ? Optional.empty()
+                        : Optional.of(BinaryTaskReader.readAt(lookupChannel, offset));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lookup in " + filePath + " failed", e);
+        }
+    }
+
+    // Принудительная перестройка индекса (например, после замены файла)
+    public synchronized long rebuildIndex() throws IOException {
+        closeLookup();
+        indexedSize = Files.size(filePath);
+        indexedModified = Files.getLastModifiedTime(filePath).toMillis();
+        lookupChannel = FileChannel.open(filePath, StandardOpenOption.READ);
+        index = BinaryTaskIndex.build(filePath, indexPath);
+        return index.size();
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        closeLookup();
+    }
+
+    private void ensureIndex() throws IOException {
+        long size = Files.size(filePath);
+        long modified = Files.getLastModifiedTime(filePath).toMillis();
+        if (index != null && size == indexedSize && modified == indexedModified) {
+            return;
+        }
+
+        closeLookup();
+        indexedSize = size;
+        indexedModified = modified;
+        lookupChannel = FileChannel.open(filePath, StandardOpenOption.READ);
+        index = BinaryTaskIndex.open(filePath, indexPath);
+        if (index == null) {
+            System.out.println("🗂️ Building index for " + filePath);
+            index = BinaryTaskIndex.build(filePath, indexPath);
+        }
+    }
+
+    private Optional<Task> scanForId(long id) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            BinaryTaskReader reader = new BinaryTaskReader(channel);
+            Task task;
+            while ((task = reader.nextTask()) != null) {
+                if (task.getId() == id) {
+                    return Optional.of(task);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private void closeLookup() throws IOException {
+        if (index != null) {
+            index.close();
+            index = null;
+        }
+        if (lookupChannel != null) {
+            lookupChannel.close();
+            lookupChannel = null;
+        }
+    }
+}
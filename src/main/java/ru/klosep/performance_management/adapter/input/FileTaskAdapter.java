@@ -2,17 +2,33 @@ package ru.klosep.performance_management.adapter.input;
 
 import org.springframework.stereotype.Component;
 import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.parsing.CsvTaskTokenizer;
+import ru.klosep.performance_management.parsing.ParallelCsvTaskParser;
 import ru.klosep.performance_management.port.TaskDataSource;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Component("fileTaskAdapter")
 public class FileTaskAdapter implements TaskDataSource {
 
+    // Наибольший размер диапазона при разбиении файла для анализа
+    private static final long PARTITION_BYTES = 16L * 1024 * 1024;
+
     private final String filePath;
 
     public FileTaskAdapter() {
@@ -21,30 +37,136 @@ public class FileTaskAdapter implements TaskDataSource {
 
     @Override
     public List<Task> fetchTasks() {
+        try (Stream<Task> tasks = streamTasks()) {
+            return tasks.toList();
+        }
+    }
+
+    // Задачи читаются токенизатором по мере потребления; файл закрывается вместе со Stream
+    @Override
+    public Stream<Task> streamTasks() {
         System.out.println("📁 Reading tasks from file: " + filePath);
-        List<Task> tasks = new ArrayList<>();
 
+        FileChannel channel;
+        CsvTaskTokenizer tokenizer;
         try {
-            List<String> lines = Files.readAllLines(Path.of(filePath));
-            for (int i = 1; i < lines.size(); i++) { // Пропускаем заголовок
-                String[] parts = lines.get(i).split(",");
-                if (parts.length >= 4) {
-                    Task task = new Task(
-                            Long.parseLong(parts[0].trim()),
-                            parts[1].trim(),
-                            parts[2].trim(),
-                            Boolean.parseBoolean(parts[3].trim())
-                    );
-                    tasks.add(task);
-                }
-            }
+            channel = FileChannel.open(Path.of(filePath), StandardOpenOption.READ);
         } catch (IOException e) {
             System.err.println("❌ Error reading file: " + e.getMessage());
             // Возвращаем тестовые данные если файл не найден
-            return createMockTasks();
+            return createMockTasks().stream();
+        }
+
+        try {
+            tokenizer = new CsvTaskTokenizer(channel);
+            tokenizer.nextRecord(); // Пропускаем заголовок
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException(e);
+        }
+
+        return stream(channel, tokenizer);
+    }
+
+    // Размер и время изменения файла - файл перечитывается, только если он изменился
+    @Override
+    public Optional<String> dataVersion() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Path.of(filePath), BasicFileAttributes.class);
+            return Optional.of(attributes.size() + "-" + attributes.lastModifiedTime().toMillis());
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Файл, разбитый на диапазоны по границам записей: каждый диапазон -
+     * отдельный источник для параллельного анализа. Если файла нет -
+     * единственный источник с тестовыми данными.
+     */
+    public List<TaskDataSource> partitions(int parallelism) {
+        Path path = Path.of(filePath);
+        List<ParallelCsvTaskParser.FileRange> ranges;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ranges = new ParallelCsvTaskParser(parallelism, PARTITION_BYTES).split(channel);
+        } catch (IOException e) {
+            System.err.println("❌ Error reading file: " + e.getMessage());
+            return List.of(this);
+        }
+
+        List<TaskDataSource> partitions = new ArrayList<>(ranges.size());
+        for (ParallelCsvTaskParser.FileRange range : ranges) {
+            partitions.add(new RangeSource(path, range));
+        }
+        return partitions;
+    }
+
+    // Диапазон [start, end) файла; у каждого свой FileChannel
+    private static class RangeSource implements TaskDataSource {
+        private final Path path;
+        private final ParallelCsvTaskParser.FileRange range;
+
+        RangeSource(Path path, ParallelCsvTaskParser.FileRange range) {
+            this.path = path;
+            this.range = range;
+        }
+
+        @Override
+        public List<Task> fetchTasks() {
+            try (Stream<Task> tasks = streamTasks()) {
+                return tasks.toList();
+            }
+        }
+
+        @Override
+        public Stream<Task> streamTasks() {
+            try {
+                FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+                return stream(channel, new CsvTaskTokenizer(channel, range.start, range.end));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
         }
+    }
 
-        return tasks;
+    private static Stream<Task> stream(FileChannel channel, CsvTaskTokenizer tokenizer) {
+        Iterator<Task> iterator = new Iterator<>() {
+            private Task next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = tokenizer.nextTask();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task task = next;
+                next = null;
+                return task;
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> closeQuietly(channel));
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("❌ Error closing file: " + e.getMessage());
+        }
     }
 
     private List<Task> createMockTasks() {
@@ -0,0 +1,48 @@
+package ru.klosep.performance_management.adapter.input;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.model.TaskStatistics;
+import ru.klosep.performance_management.mongo.repository.TaskMongoRepository;
+import ru.klosep.performance_management.port.TaskDataSource;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Задачи из коллекции {@code tasks}.
+ * <p>
+ * Для анализа агрегаты считаются aggregation pipeline на стороне MongoDB
+ * ({@link TaskMongoRepository#aggregateByTitleLength()}): по сети идут не
+ * больше 16 документов вместо всех задач. {@link #fetchTasks()} загружает
+ * коллекцию целиком - только для небольших коллекций.
+ */
+@Component("mongoTaskAdapter")
+public class MongoTaskAdapter implements TaskDataSource {
+
+    @Autowired
+    private TaskMongoRepository taskRepository;
+
+    @Override
+    public List<Task> fetchTasks() {
+        // id документа - ObjectId; числовой id есть только у загруженных из файла через UPSERT
+        return taskRepository.findAll().stream()
+                .map(document -> new Task(document.getSourceId(), document.getTitle(),
+                        document.getDescription(), Boolean.TRUE.equals(document.getCompleted())))
+                .toList();
+    }
+
+    @Override
+    public Optional<TaskStatistics> fetchStatistics() {
+        TaskStatistics statistics = new TaskStatistics();
+        for (Document bucket : taskRepository.aggregateByTitleLength()) {
+            statistics.acceptBucket(bucket.get("_id", Number.class).intValue(),
+                    bucket.get("total", Number.class).longValue(),
+                    bucket.get("completed", Number.class).longValue(),
+                    bucket.get("titleLengthSum", Number.class).longValue());
+        }
+        return Optional.of(statistics);
+    }
+}
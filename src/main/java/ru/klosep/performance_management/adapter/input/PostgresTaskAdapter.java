@@ -0,0 +1,46 @@
+package ru.klosep.performance_management.adapter.input;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.model.TaskStatistics;
+import ru.klosep.performance_management.port.TaskDataSource;
+import ru.klosep.performance_management.postgres.repository.TaskJpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Задачи из таблицы {@code tasks}.
+ * <p>
+ * Для анализа агрегаты считаются одним запросом в PostgreSQL
+ * ({@link TaskJpaRepository#aggregateByTitleLength()}): по сети идут не
+ * больше 16 строк вместо всех задач. {@link #fetchTasks()} загружает
+ * таблицу целиком - только для небольших таблиц.
+ */
+@Component("postgresTaskAdapter")
+public class PostgresTaskAdapter implements TaskDataSource {
+
+    @Autowired
+    private TaskJpaRepository taskRepository;
+
+    @Override
+    public List<Task> fetchTasks() {
+        return taskRepository.findAll().stream()
+                .map(entity -> new Task(entity.getId(), entity.getTitle(),
+                        entity.getDescription(), Boolean.TRUE.equals(entity.getCompleted())))
+                .toList();
+    }
+
+    @Override
+    public Optional<TaskStatistics> fetchStatistics() {
+        TaskStatistics statistics = new TaskStatistics();
+        for (Object[] row : taskRepository.aggregateByTitleLength()) {
+            statistics.acceptBucket(((Number) row[0]).intValue(),
+                    ((Number) row[1]).longValue(),
+                    ((Number) row[2]).longValue(),
+                    ((Number) row[3]).longValue());
+        }
+        return Optional.of(statistics);
+    }
+}
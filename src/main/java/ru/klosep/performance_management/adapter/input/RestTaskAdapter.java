@@ -1,33 +1,281 @@
 package ru.klosep.performance_management.adapter.input;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.model.TaskStatistics;
 import ru.klosep.performance_management.port.TaskDataSource;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.DeserializationFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
 
-import java.util.Arrays;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * Задачи из REST API через {@link HttpClient}.
+ * <p>
+ * Один клиент на адаптер: соединения переиспользуются (keep-alive, HTTP/2
+ * где сервер его поддерживает). Ответ разбирается потоковым парсером Jackson
+ * по одному объекту - задача уходит потребителю, как только пришли её байты.
+ * Если сервер отдаёт {@code /page}, адаптер идёт по страницам через заголовок
+ * {@code Link: rel="next"}, держа открытой одну страницу; иначе читает
+ * весь массив из {@code apiUrl} тем же потоковым способом.
+ * <p>
+ * Версия данных и агрегаты запрашиваются условно ({@code If-None-Match}):
+ * при неизменных задачах сервер отвечает 304 без тела.
+ * <p>
+ * {@code read-timeout-ms} ограничивает ожидание ответа на каждый запрос
+ * (до заголовков); тело страницы ограничено её размером.
+ */
 @Component("restTaskAdapter")
 public class RestTaskAdapter implements TaskDataSource {
 
-    private final RestTemplate restTemplate;
+    private static final Pattern NEXT_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"?next\"?");
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
     private final String apiUrl;
+    private final Duration readTimeout;
+    private final int pageSize;
+
+    // Последние ответы с ETag для условных запросов
+    private volatile String versionEtag;
+    private volatile Versioned<TaskStatistics> lastStatistics;
 
-    public RestTaskAdapter() {
-        this.restTemplate = new RestTemplate();
-        this.apiUrl = "http://localhost:8080/api/tasks";
+    public RestTaskAdapter(@Value("${task.rest.url:http://localhost:8080/api/tasks}") String apiUrl,
+                           @Value("${task.rest.connect-timeout-ms:2000}") long connectTimeoutMs,
+                           @Value("${task.rest.read-timeout-ms:10000}") long readTimeoutMs,
+                           @Value("${task.rest.page-size:1000}") int pageSize) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        // Задачи читаются из массива по одной - остаток массива не "лишние" токены
+        this.objectMapper = JsonMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+                .build();
+        this.apiUrl = apiUrl;
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.pageSize = pageSize;
     }
 
     @Override
     public List<Task> fetchTasks() {
-        System.out.println("📡 Fetching tasks from REST API: " + apiUrl);
+        try (Stream<Task> tasks = streamTasks()) {
+            return tasks.toList();
+        }
+    }
+
+    // Агрегаты, которые TaskController поддерживает при каждом изменении, - один маленький запрос.
+    // 304 - агрегаты не изменились, тело не передаётся
+    @Override
+    public Optional<TaskStatistics> fetchStatistics() {
+        Versioned<TaskStatistics> cached = lastStatistics;
+        try {
+            HttpResponse<InputStream> response = send(URI.create(apiUrl + "/statistics"),
+                    cached != null ? cached.etag : null);
+            try (InputStream body = response.body()) {
+                if (response.statusCode() == 304 && cached != null) {
+                    return Optional.of(cached.value.copy());
+                }
+                if (response.statusCode() != 200) {
+                    return Optional.empty();
+                }
+                TaskStatistics statistics = objectMapper.readValue(body, TaskStatistics.class);
+                response.headers().firstValue("ETag")
+                        .ifPresent(etag -> lastStatistics = new Versioned<>(etag, statistics.copy()));
+                return Optional.of(statistics);
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("❌ Statistics unavailable, falling back to full scan: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // ETag версии данных сервера; при 304 - прежний ETag
+    @Override
+    public Optional<String> dataVersion() {
+        String known = versionEtag;
         try {
-            Task[] tasks = restTemplate.getForObject(apiUrl, Task[].class);
-            return tasks != null ? Arrays.asList(tasks) : List.of();
-        } catch (Exception e) {
-            System.err.println("❌ Error fetching from API: " + e.getMessage());
-            return List.of();
+            HttpResponse<InputStream> response = send(URI.create(apiUrl + "/version"), known);
+            // Нужны только статус и ETag - тело закрываем сразу, соединение возвращается в пул
+            response.body().close();
+            if (response.statusCode() == 304 && known != null) {
+                return Optional.of(known);
+            }
+            if (response.statusCode() != 200) {
+                return Optional.empty();
+            }
+            Optional<String> etag = response.headers().firstValue("ETag");
+            etag.ifPresent(value -> versionEtag = value);
+            return etag;
+        } catch (IOException | RuntimeException e) {
+            // Без версии анализ просто не кэшируется - как и без статистики, не роняем его
+            System.err.println("❌ Data version unavailable: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // Ошибки сети и HTTP пробрасываются как UncheckedIOException - пустой результат
+    // неотличим от реально пустого источника
+    @Override
+    public Stream<Task> streamTasks() {
+        System.out.println("📡 Streaming tasks from REST API: " + apiUrl);
+
+        PageIterator pages = new PageIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(pages::close);
+    }
+
+    private HttpResponse<InputStream> send(URI uri) throws IOException {
+        return send(uri, null);
+    }
+
+    private HttpResponse<InputStream> send(URI uri, String ifNoneMatch) throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header("Accept", "application/json")
+                .GET();
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        try {
+            return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching " + uri, e);
+        }
+    }
+
+    // Задачи по всем страницам; в каждый момент открыт не больше чем один ответ
+    private class PageIterator implements Iterator<Task>, AutoCloseable {
+        private URI nextPage = URI.create(apiUrl + "/page?limit=" + pageSize);
+        private boolean paginated = true;
+
+        private HttpResponse<InputStream> response;
+        private JsonParser parser;
+        private Task next;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    if (parser == null) {
+                        if (nextPage == null) {
+                            return false;
+                        }
+                        openPage();
+                        continue;
+                    }
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        next = objectMapper.readValue(parser, Task.class);
+                    } else {
+                        close(); // END_ARRAY - страница прочитана
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            } catch (JacksonException e) {
+                // Jackson 3 бросает непроверяемые исключения - битая страница тоже закрывает ответ
+                close();
+                throw new UncheckedIOException(new IOException("Malformed tasks page: " + e.getOriginalMessage(), e));
+            }
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Task task = next;
+            next = null;
+            return task;
+        }
+
+        private void openPage() throws IOException {
+            URI uri = nextPage;
+            response = send(uri);
+
+            if (paginated && response.statusCode() == 404) {
+                // Сервер без постраничной выдачи - читаем весь массив потоково
+                response.body().close();
+                paginated = false;
+                nextPage = URI.create(apiUrl);
+                response = null;
+                return;
+            }
+            if (response.statusCode() != 200) {
+                int status = response.statusCode();
+                close();
+                throw new IOException("HTTP " + status + " from " + uri);
+            }
+
+            nextPage = paginated ? nextLink(uri, response) : null;
+            parser = objectMapper.createParser(response.body());
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                close();
+                throw new IOException("Expected JSON array of tasks from " + uri);
+            }
+        }
+
+        private URI nextLink(URI current, HttpResponse<?> response) {
+            for (String link : response.headers().allValues("Link")) {
+                Matcher matcher = NEXT_LINK.matcher(link);
+                if (matcher.find()) {
+                    return current.resolve(matcher.group(1));
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() {
+            if (parser != null) {
+                parser.close();
+                parser = null;
+            }
+            if (response != null) {
+                try {
+                    response.body().close();
+                } catch (IOException e) {
+                    System.err.println("❌ Error closing response: " + e.getMessage());
+                }
+                response = null;
+            }
+        }
+    }
+
+    private static class Versioned<T> {
+        final String etag;
+        final T value;
+
+        Versioned(String etag, T value) {
+            this.etag = etag;
+            this.value = value;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,214 @@
+package ru.klosep.performance_management.adapter.input;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.ImportMode;
+import ru.klosep.performance_management.model.SinkType;
+import ru.klosep.performance_management.service.TaskParsingService;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Непрерывная загрузка дописываемых CSV-файлов из каталога.
+ * <p>
+ * {@link WatchService} сообщает об изменениях, и для каждого изменённого файла
+ * загружается только хвост после сохранённого смещения
+ * ({@link TaskParsingService#ingestAppended}). Пачка событий от частых
+ * дописываний схлопывается в одну загрузку на файл. Раз в
+ * {@code rescan-interval-ms} каталог перепроверяется целиком - события
+ * теряются при переполнении очереди и ненадёжны на сетевых ФС.
+ */
+@Component
+@ConditionalOnProperty(name = "task.parsing.watch.enabled", havingValue = "true")
+public class TaskDirectoryWatcher {
+
+    @Autowired
+    private TaskParsingService parsingService;
+
+    private final Path directory;
+    private final PathMatcher matcher;
+    private final SinkType sink;
+    private final ImportMode importMode;
+    private final long rescanIntervalMs;
+
+    // Размер и время изменения на момент последней успешной загрузки
+    private final Map<Path, String> lastSeen = new HashMap<>();
+
+    private final Counter eventsCounter;
+    private final Counter recordsCounter;
+    private final Counter errorsCounter;
+    private final Timer ingestTimer;
+
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    public TaskDirectoryWatcher(@Value("${task.parsing.watch.directory:incoming}") String directory,
+                                @Value("${task.parsing.watch.pattern:*.csv}") String pattern,
+                                @Value("${task.parsing.watch.sink:JPA}") SinkType sink,
+                                @Value("${task.parsing.watch.import-mode:INSERT}") ImportMode importMode,
+                                @Value("${task.parsing.watch.rescan-interval-ms:30000}") long rescanIntervalMs,
+                                MeterRegistry registry) {
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.matcher = this.directory.getFileSystem().getPathMatcher("glob:" + pattern);
+        this.sink = sink;
+        this.importMode = importMode;
+        this.rescanIntervalMs = Math.max(100, rescanIntervalMs);
+
+        this.eventsCounter = Counter.builder("task.parsing.watch.events")
+                .description("File system events received from the watched directory")
+                .register(registry);
+
+        this.recordsCounter = Counter.builder("task.parsing.watch.records")
+                .description("Records ingested from appended file tails")
+                .register(registry);
+
+        this.errorsCounter = Counter.builder("task.parsing.watch.errors")
+                .description("Failed tail ingestions")
+                .register(registry);
+
+        this.ingestTimer = Timer.builder("task.parsing.watch.ingest")
+                .description("Time to ingest the appended tail of one file")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        watchService = directory.getFileSystem().newWatchService();
+        directory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+
+        running = true;
+        thread = Thread.ofVirtual().name("task-directory-watcher").start(this::watchLoop);
+        System.out.println("👀 Watching " + directory + " for appended tasks");
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        watchService.close();
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private void watchLoop() {
+        // Догоняем всё, что дописали, пока приложение было остановлено
+        Set<Path> pending = new LinkedHashSet<>(listFiles());
+
+        while (running) {
+            for (Path file : pending) {
+                ingest(file);
+            }
+            pending.clear();
+
+            try {
+                WatchKey key = watchService.poll(rescanIntervalMs, TimeUnit.MILLISECONDS);
+                if (key == null) {
+                    pending.addAll(listFiles());
+                    continue;
+                }
+                // Забираем все накопившиеся события, чтобы загрузить каждый файл один раз
+                do {
+                    collect(key, pending);
+                } while ((key = watchService.poll()) != null);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ClosedWatchServiceException e) {
+                return;
+            }
+        }
+    }
+
+    private void collect(WatchKey key, Set<Path> pending) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            eventsCounter.increment();
+
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                pending.addAll(listFiles());
+                continue;
+            }
+
+            Path file = directory.resolve((Path) event.context());
+            if (!matcher.matches(file.getFileName())) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                lastSeen.remove(file);
+                pending.remove(file);
+            } else {
+                pending.add(file);
+            }
+        }
+        key.reset();
+    }
+
+    private void ingest(Path file) {
+        String state;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return;
+            }
+            state = attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return; // файл уже удалён или переименован
+        }
+        if (state.equals(lastSeen.get(file))) {
+            return;
+        }
+
+        TaskParsingService.ParseResult result = ingestTimer.record(() ->
+                parsingService.ingestAppended(file.toString(), sink, importMode));
+
+        if (result.success) {
+            lastSeen.put(file, state);
+            recordsCounter.increment(result.recordsSaved);
+            if (result.recordsSaved > 0) {
+                System.out.printf("📥 %s: +%,d tasks%n", file.getFileName(), result.recordsSaved);
+            }
+        } else {
+            // Состояние не запоминаем - файл повторится при следующей перепроверке
+            errorsCounter.increment();
+            System.err.println("❌ Tail ingestion failed for " + file + ": " + result.errorMessage);
+        }
+    }
+
+    private Set<Path> listFiles() {
+        Set<Path> files = new LinkedHashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (matcher.matches(file.getFileName()) && Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Cannot list " + directory + ": " + e.getMessage());
+        }
+        return files;
+    }
+}
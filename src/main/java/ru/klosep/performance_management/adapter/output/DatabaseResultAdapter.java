@@ -1,35 +1,207 @@
 package ru.klosep.performance_management.adapter.output;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.klosep.performance_management.model.TaskAnalysis;
 import ru.klosep.performance_management.port.AnalysisResultPublisher;
+import ru.klosep.performance_management.postgres.entity.AnalysisResultEntity;
+import ru.klosep.performance_management.postgres.repository.AnalysisResultRepository;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Отложенная запись результатов анализа в PostgreSQL (write-behind).
+ * <p>
+ * {@link #publish} только кладёт запись в ограниченную неблокирующую очередь и
+ * никогда не ждёт БД. Фоновый поток забирает записи пачками до
+ * {@code batch-size} и сохраняет каждую пачку одной транзакцией - один коммит
+ * на пачку вместо коммита на результат. Пачка уходит, как только набралась,
+ * или через {@code flush-interval-ms} после предыдущей.
+ * <p>
+ * Если очередь заполнена ({@code capacity}), действует {@link DropPolicy}:
+ * память не растёт, а потерянные записи видны в метрике
+ * {@code analysis.results.records{result=dropped}}. Пачка, которую не удалось
+ * записать, не повторяется - она учитывается как {@code failed}.
+ */
 @Component("databaseResultAdapter")
 public class DatabaseResultAdapter implements AnalysisResultPublisher {
 
-    // Симуляция БД - в реальности тут был бы JpaRepository
-    private final List<String> database = new ArrayList<>();
+    public enum DropPolicy {
+        DROP_OLDEST, // вытесняется самая старая запись в очереди - свежие результаты важнее
+        DROP_NEWEST  // отбрасывается публикуемая запись
+    }
+
+    @Autowired
+    private AnalysisResultRepository resultRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final DropPolicy dropPolicy;
+
+    // Размер очереди ведётся отдельно: ConcurrentLinkedQueue.size() обходит всю очередь
+    private final Queue<AnalysisResultEntity> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final Counter writtenCounter;
+    private final Counter droppedCounter;
+    private final Counter failedCounter;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    public DatabaseResultAdapter(@Value("${analysis.results.capacity:10000}") int capacity,
+                                 @Value("${analysis.results.batch-size:100}") int batchSize,
+                                 @Value("${analysis.results.flush-interval-ms:500}") long flushIntervalMs,
+                                 @Value("${analysis.results.drop-policy:DROP_OLDEST}") DropPolicy dropPolicy,
+                                 MeterRegistry registry) {
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMs));
+        this.dropPolicy = dropPolicy;
+
+        this.writtenCounter = Counter.builder("analysis.results.records")
+                .description("Analysis results handled by the write-behind publisher")
+                .tag("result", "written")
+                .register(registry);
+
+        this.droppedCounter = Counter.builder("analysis.results.records")
+                .description("Analysis results handled by the write-behind publisher")
+                .tag("result", "dropped")
+                .register(registry);
+
+        this.failedCounter = Counter.builder("analysis.results.records")
+                .description("Analysis results handled by the write-behind publisher")
+                .tag("result", "failed")
+                .register(registry);
+
+        this.flushTimer = Timer.builder("analysis.results.flush")
+                .description("Time to write one batch of analysis results")
+                .register(registry);
+
+        this.batchSizeSummary = DistributionSummary.builder("analysis.results.batch.size")
+                .description("Analysis results per flushed batch")
+                .register(registry);
+
+        Gauge.builder("analysis.results.queue.depth", depth, AtomicInteger::get)
+                .description("Analysis results waiting to be written")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = Thread.ofVirtual().name("analysis-result-writer").start(this::writeLoop);
+    }
+
+    // Останавливает поток записи; очередь дописывается до конца
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
 
     @Override
     public void publish(TaskAnalysis analysis) {
-        String record = String.format(
-                "[%s] Analysis: total=%d, completed=%d, rate=%.2f",
-                LocalDateTime.now(),
+        AnalysisResultEntity record = new AnalysisResultEntity(
                 analysis.getTotalTasks(),
                 analysis.getCompletedTasks(),
-                analysis.getCompletionRate()
+                analysis.getCompletionRate(),
+                analysis.getAverageTitleLength(),
+                String.join("\n", analysis.getRecommendations()),
+                LocalDateTime.now()
         );
 
-        database.add(record);
-        System.out.println("💾 Saved to database: " + record);
-        System.out.println("   Total records in DB: " + database.size());
+        if (!reserveSlot()) {
+            droppedCounter.increment();
+            return;
+        }
+        queue.offer(record);
+
+        if (depth.get() >= batchSize) {
+            LockSupport.unpark(writer);
+        }
     }
 
-    public List<String> getAllRecords() {
-        return new ArrayList<>(database);
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    // Место в очереди без блокировок; при переполнении - по политике
+    private boolean reserveSlot() {
+        while (true) {
+            int current = depth.get();
+            if (current < capacity) {
+                if (depth.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+                continue;
+            }
+            if (dropPolicy == DropPolicy.DROP_NEWEST) {
+                return false;
+            }
+            if (queue.poll() != null) {
+                depth.decrementAndGet();
+                droppedCounter.increment();
+            } else {
+                // Место занято, но запись ещё не положена в очередь другим потоком
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (running || depth.get() > 0) {
+            if (running && depth.get() < batchSize) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            flush();
+        }
+    }
+
+    private void flush() {
+        List<AnalysisResultEntity> batch = new ArrayList<>(Math.min(batchSize, depth.get()));
+        AnalysisResultEntity record;
+        while (batch.size() < batchSize && (record = queue.poll()) != null) {
+            depth.decrementAndGet();
+            batch.add(record);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Timer.Sample sample = Timer.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> resultRepository.saveAll(batch));
+            writtenCounter.increment(batch.size());
+        } catch (RuntimeException e) {
+            failedCounter.increment(batch.size());
+            System.err.println("❌ Failed to save " + batch.size() + " analysis results: " + e.getMessage());
+        } finally {
+            sample.stop(flushTimer);
+            batchSizeSummary.record(batch.size());
+        }
     }
 }
@@ -0,0 +1,76 @@
+package ru.klosep.performance_management.adapter.output;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.parsing.TaskFingerprint;
+import ru.klosep.performance_management.port.TaskSink;
+import ru.klosep.performance_management.postgres.entity.TaskEntity;
+import ru.klosep.performance_management.postgres.repository.TaskJpaRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component("jpaTaskSink")
+public class JpaTaskSink implements TaskSink {
+
+    @Autowired
+    private TaskJpaRepository taskRepository;
+
+    @Override
+    public int write(List<Task> tasks) {
+        List<TaskEntity> entities = new ArrayList<>(tasks.size());
+
+        for (Task task : tasks) {
+            TaskEntity entity = new TaskEntity(
+                    task.getTitle(),
+                    task.getDescription(),
+                    task.isCompleted()
+            );
+            entities.add(entity);
+        }
+
+        // GenerationType.IDENTITY отключает JDBC batching в Hibernate:
+        // saveAll отправляет по одному INSERT на строку. Для больших файлов - SinkType.COPY
+        taskRepository.saveAll(entities);
+
+        return entities.size();
+    }
+
+    // Существующие строки обновляются через dirty checking, новые вставляются
+    @Override
+    public UpsertResult upsert(List<Task> tasks) {
+        List<Long> sourceIds = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            sourceIds.add(task.getId());
+        }
+
+        Map<Long, TaskEntity> existing = new HashMap<>();
+        for (TaskEntity entity : taskRepository.findBySourceIdIn(sourceIds)) {
+            existing.put(entity.getSourceId(), entity);
+        }
+
+        List<TaskEntity> entities = new ArrayList<>(tasks.size());
+        List<Task> inserted = new ArrayList<>();
+        for (Task task : tasks) {
+            TaskEntity entity = existing.get(task.getId());
+            if (entity == null) {
+                entity = new TaskEntity(task.getTitle(), task.getDescription(), task.isCompleted());
+                entity.setSourceId(task.getId());
+                inserted.add(task);
+            } else {
+                entity.setTitle(task.getTitle());
+                entity.setDescription(task.getDescription());
+                entity.setCompleted(task.isCompleted());
+            }
+            entity.setContentHash(TaskFingerprint.hash(task));
+            entities.add(entity);
+        }
+
+        taskRepository.saveAll(entities);
+
+        return new UpsertResult(inserted, entities.size() - inserted.size());
+    }
+}
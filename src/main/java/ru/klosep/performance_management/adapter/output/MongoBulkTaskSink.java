@@ -0,0 +1,116 @@
+package ru.klosep.performance_management.adapter.output;
+
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.mongo.document.TaskDocument;
+import ru.klosep.performance_management.parsing.TaskFingerprint;
+import ru.klosep.performance_management.port.TaskSink;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Загрузка задач в коллекцию tasks через неупорядоченные {@link BulkOperations}.
+ * <p>
+ * UNORDERED позволяет серверу применять вставки параллельно и не останавливаться
+ * на первой ошибке. Размер пачки и write concern настраиваются отдельно от
+ * основного MongoTemplate: для загрузки используется собственный экземпляр.
+ */
+@Component("mongoBulkTaskSink")
+public class MongoBulkTaskSink implements TaskSink {
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    public MongoBulkTaskSink(MongoDatabaseFactory databaseFactory,
+                             MongoConverter converter,
+                             @Value("${task.parsing.mongo.batch-size:1000}") int batchSize,
+                             @Value("${task.parsing.mongo.write-concern:ACKNOWLEDGED}") String writeConcern) {
+        WriteConcern concern = WriteConcern.valueOf(writeConcern);
+        if (concern == null) {
+            throw new IllegalArgumentException("Unknown write concern: " + writeConcern);
+        }
+
+        this.mongoTemplate = new MongoTemplate(databaseFactory, converter);
+        this.mongoTemplate.setWriteConcern(concern);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public int write(List<Task> tasks) {
+        int saved = 0;
+
+        for (int from = 0; from < tasks.size(); from += batchSize) {
+            List<Task> batch = tasks.subList(from, Math.min(from + batchSize, tasks.size()));
+            List<TaskDocument> documents = new ArrayList<>(batch.size());
+            for (Task task : batch) {
+                documents.add(new TaskDocument(
+                        task.getTitle(),
+                        task.getDescription(),
+                        task.isCompleted()
+                ));
+            }
+
+            BulkWriteResult result = mongoTemplate
+                    .bulkOps(BulkOperations.BulkMode.UNORDERED, TaskDocument.class)
+                    .insert(documents)
+                    .execute();
+
+            // При w:0 сервер не сообщает количество вставленных документов
+            saved += result.wasAcknowledged() ? result.getInsertedCount() : documents.size();
+        }
+
+        return saved;
+    }
+
+    @Override
+    public UpsertResult upsert(List<Task> tasks) {
+        List<Task> inserted = new ArrayList<>();
+        int updated = 0;
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int from = 0; from < tasks.size(); from += batchSize) {
+            List<Task> batch = tasks.subList(from, Math.min(from + batchSize, tasks.size()));
+            BulkOperations operations = mongoTemplate
+                    .bulkOps(BulkOperations.BulkMode.UNORDERED, TaskDocument.class);
+
+            for (Task task : batch) {
+                operations.upsert(
+                        Query.query(Criteria.where("sourceId").is(task.getId())),
+                        new Update()
+                                .set("title", task.getTitle())
+                                .set("description", task.getDescription())
+                                .set("completed", task.isCompleted())
+                                .set("contentHash", TaskFingerprint.hash(task))
+                                .set("updatedAt", now)
+                                .setOnInsert("createdAt", now));
+            }
+
+            BulkWriteResult result = operations.execute();
+            if (result.wasAcknowledged()) {
+                // Индекс вставки - позиция операции в пачке
+                for (BulkWriteUpsert upsert : result.getUpserts()) {
+                    inserted.add(batch.get(upsert.getIndex()));
+                }
+                updated += result.getModifiedCount();
+            } else {
+                // При w:0 сервер не сообщает, какие документы вставлены
+                updated += batch.size();
+            }
+        }
+
+        return new UpsertResult(inserted, updated);
+    }
+}
@@ -0,0 +1,270 @@
+package ru.klosep.performance_management.adapter.output;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.parsing.TaskFingerprint;
+import ru.klosep.performance_management.port.TaskSink;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Загрузка задач в таблицу tasks через {@code COPY ... FROM STDIN} (текстовый формат).
+ * <p>
+ * Все строки уходят одним потоком без round-trip на каждую запись, id
+ * назначает identity-колонка. Соединение берётся через {@link DataSourceUtils},
+ * поэтому внутри транзакции Spring COPY коммитится вместе с ней, а вне
+ * транзакции выполняется атомарно сам по себе.
+ * <p>
+ * Upsert: COPY во временную таблицу tasks_stage, затем один
+ * {@code INSERT ... ON CONFLICT (source_id) DO UPDATE}, который не трогает
+ * строки с тем же content_hash и возвращает затронутые строки с признаком вставки.
+ */
+@Component("postgresCopyTaskSink")
+public class PostgresCopyTaskSink implements TaskSink {
+
+    private static final String COPY_SQL =
+            "COPY tasks (title, description, completed, created_at, updated_at) FROM STDIN";
+
+    // Временная таблица живёт в сессии соединения из пула, поэтому IF NOT EXISTS + TRUNCATE
+    private static final String STAGE_DDL =
+            "CREATE TEMP TABLE IF NOT EXISTS tasks_stage "
+                    + "(source_id bigint, content_hash bigint, title text, description text, completed boolean)";
+
+    private static final String STAGE_COPY_SQL =
+            "COPY tasks_stage (source_id, content_hash, title, description, completed) FROM STDIN";
+
+    private static final String MERGE_SQL =
+            "INSERT INTO tasks (source_id, content_hash, title, description, completed, created_at, updated_at) "
+                    + "SELECT source_id, content_hash, title, description, completed, ?, ? "
+                    + "FROM tasks_stage "
+                    + "ON CONFLICT (source_id) DO UPDATE SET "
+                    + "content_hash = EXCLUDED.content_hash, title = EXCLUDED.title, "
+                    + "description = EXCLUDED.description, completed = EXCLUDED.completed, "
+                    + "updated_at = EXCLUDED.updated_at "
+                    + "WHERE tasks.content_hash IS DISTINCT FROM EXCLUDED.content_hash "
+                    // xmax = 0 только у вставленной версии строки, у обновлённой - id обновившей транзакции
+                    + "RETURNING source_id, (xmax = 0) AS inserted";
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public int write(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return 0;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                byte[] now = LocalDateTime.now().format(TIMESTAMP_FORMAT).getBytes(StandardCharsets.US_ASCII);
+                RowWriter writer = new RowWriter(copyIn);
+
+                for (Task task : tasks) {
+                    writer.text(task.getTitle());
+                    writer.tab();
+                    writer.text(task.getDescription());
+                    writer.tab();
+                    writer.raw(task.isCompleted() ? 't' : 'f');
+                    writer.tab();
+                    writer.raw(now);
+                    writer.tab();
+                    writer.raw(now);
+                    writer.raw('\n');
+                }
+
+                writer.flush();
+                return (int) copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into tasks failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // Вставленные задачи и количество реально изменённых строк
+    @Override
+    public UpsertResult upsert(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return new UpsertResult(List.of(), 0);
+        }
+
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(STAGE_DDL);
+            statement.execute("TRUNCATE tasks_stage");
+
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(STAGE_COPY_SQL);
+            try {
+                RowWriter writer = new RowWriter(copyIn);
+
+                for (Task task : tasks) {
+                    writer.number(task.getId());
+                    writer.tab();
+                    writer.number(TaskFingerprint.hash(task));
+                    writer.tab();
+                    writer.text(task.getTitle());
+                    writer.tab();
+                    writer.text(task.getDescription());
+                    writer.tab();
+                    writer.raw(task.isCompleted() ? 't' : 'f');
+                    writer.raw('\n');
+                }
+
+                writer.flush();
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+
+            Set<Long> insertedIds = new HashSet<>();
+            int updated = 0;
+            // Время создания - часы JVM, как у write() и JPA: по нему дневные роллапы
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            try (PreparedStatement merge = connection.prepareStatement(MERGE_SQL)) {
+                merge.setTimestamp(1, now);
+                merge.setTimestamp(2, now);
+                try (ResultSet rows = merge.executeQuery()) {
+                    while (rows.next()) {
+                        if (rows.getBoolean(2)) {
+                            insertedIds.add(rows.getLong(1));
+                        } else {
+                            updated++;
+                        }
+                    }
+                }
+            }
+
+            List<Task> inserted = new ArrayList<>(insertedIds.size());
+            for (Task task : tasks) {
+                if (insertedIds.contains(task.getId())) {
+                    inserted.add(task);
+                }
+            }
+            return new UpsertResult(inserted, updated);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Upsert into tasks failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    // Буферизованная запись строк COPY в текстовом формате с экранированием и UTF-8
+    static class RowWriter {
+        private final CopyIn copyIn;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+
+        RowWriter(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        void tab() throws SQLException {
+            raw('\t');
+        }
+
+        void raw(char c) throws SQLException {
+            ensure(1);
+            buffer[position++] = (byte) c;
+        }
+
+        void raw(byte[] bytes) throws SQLException {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void number(long value) throws SQLException {
+            raw(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        void text(String value) throws SQLException {
+            if (value == null) {
+                ensure(2);
+                buffer[position++] = '\\';
+                buffer[position++] = 'N';
+                return;
+            }
+
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                ensure(4);
+                switch (c) {
+                    case '\\' -> escape('\\');
+                    case '\t' -> escape('t');
+                    case '\n' -> escape('n');
+                    case '\r' -> escape('r');
+                    default -> {
+                        if (c < 0x80) {
+                            buffer[position++] = (byte) c;
+                        } else if (c < 0x800) {
+                            buffer[position++] = (byte) (0xC0 | (c >> 6));
+                            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                        } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                                && Character.isLowSurrogate(value.charAt(i + 1))) {
+                            int cp = Character.toCodePoint(c, value.charAt(++i));
+                            buffer[position++] = (byte) (0xF0 | (cp >> 18));
+                            buffer[position++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                            buffer[position++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                            buffer[position++] = (byte) (0x80 | (cp & 0x3F));
+                        } else if (Character.isSurrogate(c)) {
+                            buffer[position++] = '?'; // одиночный суррогат, как String.getBytes
+                        } else {
+                            buffer[position++] = (byte) (0xE0 | (c >> 12));
+                            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                        }
+                    }
+                }
+            }
+        }
+
+        private void escape(char c) {
+            buffer[position++] = '\\';
+            buffer[position++] = (byte) c;
+        }
+
+        private void ensure(int bytes) throws SQLException {
+            if (position + bytes > buffer.length) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            if (position > 0) {
+                copyIn.writeToCopy(buffer, 0, position);
+                position = 0;
+            }
+        }
+    }
+}
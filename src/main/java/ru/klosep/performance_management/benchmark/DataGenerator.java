@@ -31,6 +31,7 @@ public class DataGenerator {
         generateDataset(10_000, "test-data-10k.txt");
         generateDataset(50_000, "test-data-50k.txt");
         generateDataset(100_000, "test-data-100k.txt");
+        generateBinaryDataset(100_000, "test-data-100k.bin");
 
         System.out.println("\n✅ All datasets generated successfully!");
     }
@@ -2,9 +2,15 @@ package ru.klosep.performance_management.benchmark;
 
 import org.openjdk.jmh.annotations.*;
 import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.parsing.CsvTaskTokenizer;
+import ru.klosep.performance_management.parsing.ParallelCsvTaskParser;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -77,6 +83,47 @@ public class ParsingBenchmark {
         }
     }
 
+    @Benchmark
+    public List<Task> parseWithByteTokenizer() throws Exception {
+        List<Task> tasks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Path.of(TEST_FILE), StandardOpenOption.READ)) {
+            CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel);
+            tokenizer.nextRecord(); // Skip header
+
+            Task task;
+            while ((task = tokenizer.nextTask()) != null) {
+                tasks.add(task);
+            }
+        }
+
+        return tasks;
+    }
+
+    @Benchmark
+    public List<Task> parseWithMappedTokenizer() throws Exception {
+        List<Task> tasks = new ArrayList<>();
+
+        try (FileChannel channel = FileChannel.open(Path.of(TEST_FILE), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(buffer);
+            tokenizer.nextRecord(); // Skip header
+
+            Task task;
+            while ((task = tokenizer.nextTask()) != null) {
+                tasks.add(task);
+            }
+        }
+
+        return tasks;
+    }
+
+    @Benchmark
+    public List<Task> parseWithPartitionedTokenizer() throws Exception {
+        // Диапазоны по 256 KB, чтобы даже 10k-файл резался на несколько частей
+        return new ParallelCsvTaskParser(0, 256 * 1024).parse(Path.of(TEST_FILE));
+    }
+
     public static void main(String[] args) throws Exception {
         org.openjdk.jmh.Main.main(args);
     }
@@ -0,0 +1,72 @@
+package ru.klosep.performance_management.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import ru.klosep.performance_management.config.TaskRedisSerializer;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.store.TaskSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Значения кэша задач в Redis: JDK-сериализация против {@link TaskRedisSerializer}.
+ * {@code tasks = 1} - одна задача (кэш "task"), больше - снимок всех задач
+ * (кэш "tasks", сжимается). Размер в байтах на задачу печатается при подготовке.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskCodecBenchmark {
+
+    @Param({"1", "1000", "10000"})
+    private int tasks;
+
+    private final RedisSerializer<Object> jdk = RedisSerializer.java();
+    private final TaskRedisSerializer compact = new TaskRedisSerializer();
+
+    private Object value;
+    private byte[] jdkBytes;
+    private byte[] compactBytes;
+
+    @Setup
+    public void setup() {
+        List<Task> all = new ArrayList<>(tasks);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 1; i <= tasks; i++) {
+            all.add(new Task((long) i, "Task " + i, "Description " + i + " " + random.nextInt(1000),
+                    random.nextBoolean()));
+        }
+        value = tasks == 1 ? all.get(0) : TaskSnapshot.of(all, tasks);
+
+        jdkBytes = jdk.serialize(value);
+        compactBytes = compact.serialize(value);
+        System.out.printf("%n📦 %,d tasks: JDK %.1f B/task, compact %.1f B/task%n", tasks,
+                (double) jdkBytes.length / tasks, (double) compactBytes.length / tasks);
+    }
+
+    @Benchmark
+    public byte[] encodeJdk() {
+        return jdk.serialize(value);
+    }
+
+    @Benchmark
+    public byte[] encodeCompact() {
+        return compact.serialize(value);
+    }
+
+    @Benchmark
+    public Object decodeJdk() {
+        return jdk.deserialize(jdkBytes);
+    }
+
+    @Benchmark
+    public Object decodeCompact() {
+        return compact.deserialize(compactBytes);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.klosep.performance_management.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.store.HeapTaskStore;
+import ru.klosep.performance_management.store.OffHeapTaskStore;
+import ru.klosep.performance_management.store.TaskStore;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Память и паузы GC: HeapTaskStore (прежняя карта TaskController) против OffHeapTaskStore.
+ * <p>
+ * Для каждого хранилища: заполнение, занятая куча после полного GC, нативная
+ * память, время явного полного GC и паузы во время нагрузки с короткоживущими
+ * объектами и обращениями к хранилищу. Каждое хранилище лучше мерить в
+ * отдельном запуске JVM с одинаковым -Xmx:
+ * <pre>
+ * java -Xmx8g -cp ... TaskStoreFootprintBenchmark 10000000 heap
+ * java -Xmx8g -cp ... TaskStoreFootprintBenchmark 10000000 off-heap
+ * </pre>
+ */
+public class TaskStoreFootprintBenchmark {
+
+    private static final long CHURN_BYTES = 4L << 30;
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        String type = args.length > 1 ? args[1] : "both";
+
+        System.out.println("=".repeat(120));
+        System.out.printf("TASK STORE FOOTPRINT: %,d tasks%n", count);
+        System.out.println("=".repeat(120));
+
+        if (!type.equals("off-heap")) {
+            run("HeapTaskStore", HeapTaskStore::new, count);
+        }
+        if (!type.equals("heap")) {
+            run("OffHeapTaskStore", () -> new OffHeapTaskStore(64, count), count);
+        }
+    }
+
+    private static void run(String name, Supplier<TaskStore> factory, int count) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        fullGc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        TaskStore store = factory.get();
+        long start = System.nanoTime();
+        for (long id = 1; id <= count; id++) {
+            store.put(new Task(id, "Task " + id, "Description of task " + id, id % 3 == 0));
+        }
+        long fillMs = (System.nanoTime() - start) / 1_000_000;
+
+        long gcStart = System.nanoTime();
+        fullGc();
+        long fullGcMs = (System.nanoTime() - gcStart) / 1_000_000;
+        long heapBytes = Math.max(0, memory.getHeapMemoryUsage().getUsed() - heapBefore);
+        long offHeapBytes = store instanceof OffHeapTaskStore offHeap ? offHeap.offHeapBytes() : 0;
+
+        PauseRecorder pauses = new PauseRecorder();
+        long churnStart = System.nanoTime();
+        long checksum = churn(store, count);
+        long churnMs = (System.nanoTime() - churnStart) / 1_000_000;
+        pauses.close();
+
+        System.out.printf("%n%s%n", name);
+        System.out.printf("  fill:            %,10d ms%n", fillMs);
+        System.out.printf("  heap (live):     %,10.1f MB  (%,.1f bytes/task)%n",
+                heapBytes / (1024.0 * 1024.0), (double) heapBytes / count);
+        System.out.printf("  off-heap:        %,10.1f MB  (%,.1f bytes/task)%n",
+                offHeapBytes / (1024.0 * 1024.0), (double) offHeapBytes / count);
+        System.out.printf("  full GC:         %,10d ms%n", fullGcMs);
+        System.out.printf("  churn:           %,10d ms, %,d GCs, total pause %,d ms, max pause %,d ms (checksum %d)%n",
+                churnMs, pauses.count.get(), pauses.totalMs.get(), pauses.maxMs.get(), checksum);
+
+        // Хранилище должно дожить до конца замеров
+        System.out.printf("  size:            %,10d%n", store.size());
+    }
+
+    // Короткоживущий мусор и случайные чтения, часть объектов доживает до старого поколения
+    private static long churn(TaskStore store, int count) {
+        Random random = new Random(42);
+        List<byte[]> survivors = new ArrayList<>();
+        long checksum = 0;
+        for (long allocated = 0; allocated < CHURN_BYTES; allocated += 1024) {
+            byte[] garbage = new byte[1024];
+            if (random.nextInt(100) == 0) {
+                survivors.add(garbage);
+                if (survivors.size() > 50_000) {
+                    survivors.clear();
+                }
+            }
+            Task task = store.get(1 + random.nextInt(count));
+            checksum += task != null ? task.getTitle().length() : 0;
+        }
+        return checksum + survivors.size();
+    }
+
+    private static void fullGc() throws InterruptedException {
+        System.gc();
+        Thread.sleep(200);
+    }
+
+    // Длительности сборок из уведомлений GC
+    private static class PauseRecorder implements NotificationListener, AutoCloseable {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong totalMs = new AtomicLong();
+        final AtomicLong maxMs = new AtomicLong();
+
+        PauseRecorder() {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) gc).addNotificationListener(this, null, null);
+            }
+        }
+
+        @Override
+        public void handleNotification(javax.management.Notification notification, Object handback) {
+            if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                return;
+            }
+            GarbageCollectionNotificationInfo info =
+                    GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+            // Циклы конкурентной разметки идут параллельно с приложением - это не паузы
+            if (info.getGcCause().contains("Concurrent") || info.getGcName().contains("Cycles")) {
+                return;
+            }
+            long duration = info.getGcInfo().getDuration();
+            count.incrementAndGet();
+            totalMs.addAndGet(duration);
+            maxMs.accumulateAndGet(duration, Math::max);
+        }
+
+        @Override
+        public void close() throws Exception {
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) gc).removeNotificationListener(this);
+            }
+        }
+    }
+}
@@ -1,4 +1,9 @@
 package ru.klosep.performance_management.config;
 
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
 public class ApplicationConfig {
 }
@@ -1,6 +1,8 @@
 package ru.klosep.performance_management.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -9,35 +11,145 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
+    private static final RedisSerializer<Object> INVALIDATION_SERIALIZER = RedisSerializer.java();
+
     @Bean
-    @Profile("caffeine")
-    public CacheManager caffeineCacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager("tasks", "task");
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                .maximumSize(500)
-                .expireAfterWrite(10, TimeUnit.MINUTES)
-                .recordStats());
-        return cacheManager;
+    @Profile("!redis & !tiered")
+    public CacheManager caffeineCacheManager(
+            CacheLoaderRegistry loaders,
+            @Value("${cache.caffeine.maximum-size:500}") long maximumSize,
+            @Value("${cache.caffeine.expire-after-write-ms:600000}") long expireAfterWriteMs,
+            @Value("${cache.caffeine.refresh-after-write-ms:60000}") long refreshAfterWriteMs,
+            @Value("${cache.caffeine.expiry-jitter:0.1}") double expiryJitter) {
+        return caffeine(loaders, maximumSize, expireAfterWriteMs, refreshAfterWriteMs, expiryJitter);
     }
 
     @Bean
     @Profile("redis")
-    public CacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager redisCacheManager(
+            RedisConnectionFactory connectionFactory,
+            @Value("${cache.redis.compression-threshold:1024}") int compressionThreshold) {
+        return redis(connectionFactory, compressionThreshold);
+    }
+
+    /**
+     * Caffeine в каждом экземпляре перед общим Redis ({@link TieredCacheManager}).
+     * Попадание в L1 не ходит в сеть; изменения рассылаются через Redis pub/sub
+     * в канал {@code cache.tiered.channel}, и другие экземпляры выбрасывают свои
+     * копии. Pub/sub не доставляет сообщения, пока подписчик переподключается,
+     * поэтому L1 живёт меньше L2 - {@code local-expire-after-write-ms}.
+     * <p>
+     * L1 здесь без загрузчика и фонового обновления: обновление из источника
+     * шло бы мимо L2 и рассылки, и уровни расходились бы. Истёкшая копия
+     * перечитывается из L2.
+     * <p>
+     * Кэши из {@code cache.tiered.local-only} живут только в L1: снимок всех задач
+     * версионируется счётчиком изменений своего экземпляра, и чужой снимок из L2
+     * всегда выглядел бы устаревшим.
+     */
+    @Bean
+    @Profile("tiered")
+    public TieredCacheManager tieredCacheManager(
+            RedisConnectionFactory connectionFactory,
+            MeterRegistry registry,
+            @Value("${cache.caffeine.maximum-size:500}") long maximumSize,
+            @Value("${cache.tiered.local-expire-after-write-ms:120000}") long localExpireAfterWriteMs,
+            @Value("${cache.caffeine.expiry-jitter:0.1}") double expiryJitter,
+            @Value("${cache.tiered.channel:cache-invalidation}") String channel,
+            @Value("${cache.tiered.local-only:tasks}") String[] localOnly,
+            @Value("${cache.redis.compression-threshold:1024}") int compressionThreshold) {
+        CacheManager local = caffeine(null, maximumSize, localExpireAfterWriteMs, 0, expiryJitter);
+        byte[] channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+
+        Consumer<CacheInvalidation> publisher = message -> {
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.commands().publish(channelBytes, INVALIDATION_SERIALIZER.serialize(message));
+            }
+        };
+        return new TieredCacheManager(local, redis(connectionFactory, compressionThreshold), Set.of(localOnly),
+                publisher, registry);
+    }
+
+    @Bean
+    @Profile("tiered")
+    public RedisMessageListenerContainer cacheInvalidationListener(
+            RedisConnectionFactory connectionFactory,
+            TieredCacheManager cacheManager,
+            @Value("${cache.tiered.channel:cache-invalidation}") String channel) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener((message, pattern) -> {
+            if (INVALIDATION_SERIALIZER.deserialize(message.getBody()) instanceof CacheInvalidation invalidation) {
+                cacheManager.onInvalidation(invalidation);
+            }
+        }, new ChannelTopic(channel));
+        return container;
+    }
+
+    /**
+     * Caffeine в асинхронном режиме: одновременные промахи по одному ключу ждут
+     * одну загрузку (для @Cacheable - вместе с {@code sync = true}).
+     * После {@code refresh-after-write-ms} запись обновляется в фоне через
+     * {@link CacheLoaderRegistry}, а читатели тем временем получают прежнее
+     * значение. Срок жизни - {@code expire-after-write-ms} с разбросом
+     * {@code expiry-jitter}, чтобы записи не истекали разом.
+     * Без {@code loaders} кэш не обновляет записи в фоне.
+     */
+    static CaffeineCacheManager caffeine(CacheLoaderRegistry loaders, long maximumSize,
+                                                 long expireAfterWriteMs, long refreshAfterWriteMs,
+                                                 double expiryJitter) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAsyncCacheMode(true);
+        cacheManager.setAllowNullValues(false);
+
+        for (String name : List.of("tasks", "task")) {
+            Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfter(new JitteredExpiry(Duration.ofMillis(expireAfterWriteMs), expiryJitter))
+                    // Загрузчики ждут "БД" - блокироваться лучше виртуальным потокам, а не commonPool
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .recordStats();
+            if (loaders == null) {
+                cacheManager.registerCustomCache(name, builder.buildAsync());
+            } else {
+                cacheManager.registerCustomCache(name, builder
+                        .refreshAfterWrite(Duration.ofMillis(refreshAfterWriteMs))
+                        .buildAsync(loaders.loaderFor(name)));
+            }
+        }
+        return cacheManager;
+    }
+
+    // Значения - в компактном формате TaskRedisSerializer вместо JDK-сериализации
+    private static RedisCacheManager redis(RedisConnectionFactory connectionFactory, int compressionThreshold) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))
-                .disableCachingNullValues();
+                .disableCachingNullValues()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
+                        new TaskRedisSerializer(compressionThreshold)));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager cacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(config)
                 .build();
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
     }
 }
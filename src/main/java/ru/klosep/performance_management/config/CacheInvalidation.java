@@ -0,0 +1,15 @@
+package ru.klosep.performance_management.config;
+
+import java.io.Serializable;
+
+/**
+ * Сообщение об изменении записи кэша для других экземпляров приложения.
+ * {@code key == null} - очищен весь кэш. Свои сообщения экземпляр
+ * узнаёт по {@code origin} и пропускает.
+ */
+public record CacheInvalidation(String origin, String cacheName, Object key) implements Serializable {
+
+    public boolean isClear() {
+        return key == null;
+    }
+}
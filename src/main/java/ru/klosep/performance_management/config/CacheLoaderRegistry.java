@@ -0,0 +1,40 @@
+package ru.klosep.performance_management.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Загрузчики значений по имени кэша - для фонового обновления (refreshAfterWrite).
+ * <p>
+ * Кэши создаются раньше контроллеров, которые умеют загружать их значения,
+ * поэтому загрузчик регистрирует владелец данных, а кэш обращается к нему
+ * при обновлении. Пока загрузчика нет, обновление удаляет запись - следующий
+ * запрос загрузит её как при промахе.
+ */
+@Component
+public class CacheLoaderRegistry {
+
+    private final Map<String, Function<Object, Object>> loaders = new ConcurrentHashMap<>();
+
+    public void register(String cacheName, Function<Object, Object> loader) {
+        loaders.put(cacheName, loader);
+    }
+
+    public AsyncCacheLoader<Object, Object> loaderFor(String cacheName) {
+        return (key, executor) -> load(cacheName, key, executor);
+    }
+
+    private CompletableFuture<Object> load(String cacheName, Object key, Executor executor) {
+        Function<Object, Object> loader = loaders.get(cacheName);
+        if (loader == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> loader.apply(key), executor);
+    }
+}
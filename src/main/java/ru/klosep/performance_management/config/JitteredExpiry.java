@@ -0,0 +1,48 @@
+package ru.klosep.performance_management.config;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Срок жизни записи после записи или обновления - {@code base ± jitter}.
+ * Записи, загруженные одновременно (прогрев, массовый промах), истекают
+ * вразнобой, а не все в одну секунду. Чтение срок не продлевает.
+ */
+public class JitteredExpiry implements Expiry<Object, Object> {
+
+    private final long baseNanos;
+    private final long jitterNanos;
+
+    // jitter - доля от base, например 0.1 - ±10%
+    public JitteredExpiry(Duration base, double jitter) {
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("Jitter must be in [0, 1): " + jitter);
+        }
+        this.baseNanos = base.toNanos();
+        this.jitterNanos = (long) (baseNanos * jitter);
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return next();
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return next();
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    private long next() {
+        if (jitterNanos == 0) {
+            return baseNanos;
+        }
+        return baseNanos + ThreadLocalRandom.current().nextLong(-jitterNanos, jitterNanos + 1);
+    }
+}
@@ -0,0 +1,173 @@
+package ru.klosep.performance_management.config;
+
+import java.util.Arrays;
+
+/**
+ * Сжатие в блочном формате LZ4 без внешних зависимостей.
+ * <p>
+ * Жадный поиск совпадений по хеш-таблице 4-байтовых последовательностей: один
+ * проход, без энтропийного кодирования - сжимает слабее Deflate, но в разы
+ * быстрее и распаковывается простым копированием. Этого достаточно для
+ * значений кэша, где повторяются названия и описания задач. Размер исходных
+ * данных в блок не пишется - его хранит вызывающий код.
+ */
+final class Lz4Block {
+
+    private static final int MIN_MATCH = 4;
+    // Формат требует: последние 5 байт - литералы, совпадение не начинается ближе 12 байт к концу
+    private static final int LAST_LITERALS = 5;
+    private static final int MF_LIMIT = 12;
+    private static final int MAX_OFFSET = 65_535;
+
+    private static final int HASH_BITS = 12;
+
+    private Lz4Block() {
+    }
+
+    // Худший случай для несжимаемых данных
+    static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    // Сжимает src[offset, offset + length) в dst с позиции 0; возвращает размер блока
+    static int compress(byte[] src, int offset, int length, byte[] dst) {
+        int end = offset + length;
+        int matchLimit = end - MF_LIMIT;
+        // Позиция + 1, 0 - пусто
+        int[] table = new int[1 << HASH_BITS];
+
+        int anchor = offset;
+        int position = offset;
+        int out = 0;
+
+        while (position < matchLimit) {
+            int sequence = readInt(src, position);
+            int hash = (sequence * -1640531535) >>> (32 - HASH_BITS);
+            int candidate = table[hash] - 1;
+            table[hash] = position + 1;
+
+            if (candidate < offset || position - candidate > MAX_OFFSET || readInt(src, candidate) != sequence) {
+                position++;
+                continue;
+            }
+
+            int matchLength = MIN_MATCH;
+            while (position + matchLength < end - LAST_LITERALS
+                    && src[candidate + matchLength] == src[position + matchLength]) {
+                matchLength++;
+            }
+
+            out = writeSequence(src, anchor, position - anchor, position - candidate, matchLength, dst, out);
+
+            position += matchLength;
+            anchor = position;
+        }
+
+        // Последняя последовательность - только литералы
+        return writeSequence(src, anchor, end - anchor, 0, 0, dst, out);
+    }
+
+    // Распаковывает блок в массив ровно из originalLength байт
+    static byte[] decompress(byte[] src, int offset, int length, int originalLength) {
+        byte[] dst = new byte[originalLength];
+        int end = offset + length;
+        int in = offset;
+        int out = 0;
+
+        try {
+            while (true) {
+                int token = src[in++] & 0xFF;
+
+                int literals = token >>> 4;
+                if (literals == 15) {
+                    int b;
+                    do {
+                        b = src[in++] & 0xFF;
+                        literals += b;
+                    } while (b == 255);
+                }
+                if (in + literals > end) {
+                    throw new IllegalArgumentException("Corrupted LZ4 block: literals past the end");
+                }
+                System.arraycopy(src, in, dst, out, literals);
+                in += literals;
+                out += literals;
+
+                if (in == end) {
+                    break;
+                }
+
+                int distance = (src[in] & 0xFF) | (src[in + 1] & 0xFF) << 8;
+                in += 2;
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int b;
+                    do {
+                        b = src[in++] & 0xFF;
+                        matchLength += b;
+                    } while (b == 255);
+                }
+                matchLength += MIN_MATCH;
+
+                int from = out - distance;
+                if (distance == 0 || from < 0 || out + matchLength > originalLength) {
+                    throw new IllegalArgumentException("Corrupted LZ4 block: bad match at " + out);
+                }
+                // Совпадение может перекрываться с самим собой - копируем побайтно
+                for (int i = 0; i < matchLength; i++) {
+                    dst[out++] = dst[from + i];
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Corrupted LZ4 block", e);
+        }
+
+        if (out != originalLength) {
+            throw new IllegalArgumentException("Corrupted LZ4 block: expected " + originalLength
+                    + " bytes, got " + out);
+        }
+        return dst;
+    }
+
+    static byte[] compress(byte[] src) {
+        byte[] dst = new byte[maxCompressedLength(src.length)];
+        return Arrays.copyOf(dst, compress(src, 0, src.length, dst));
+    }
+
+    // Токен, литералы и, если matchLength > 0, смещение и длина совпадения
+    private static int writeSequence(byte[] src, int from, int literals, int distance, int matchLength,
+                                     byte[] dst, int out) {
+        int matchCode = matchLength > 0 ? matchLength - MIN_MATCH : 0;
+        dst[out++] = (byte) (Math.min(literals, 15) << 4 | Math.min(matchCode, 15));
+        if (literals >= 15) {
+            out = writeExtra(literals - 15, dst, out);
+        }
+        System.arraycopy(src, from, dst, out, literals);
+        out += literals;
+
+        if (matchLength > 0) {
+            dst[out++] = (byte) distance;
+            dst[out++] = (byte) (distance >>> 8);
+            if (matchCode >= 15) {
+                out = writeExtra(matchCode - 15, dst, out);
+            }
+        }
+        return out;
+    }
+
+    private static int writeExtra(int remainder, byte[] dst, int out) {
+        while (remainder >= 255) {
+            dst[out++] = (byte) 255;
+            remainder -= 255;
+        }
+        dst[out++] = (byte) remainder;
+        return out;
+    }
+
+    private static int readInt(byte[] bytes, int position) {
+        return (bytes[position] & 0xFF)
+                | (bytes[position + 1] & 0xFF) << 8
+                | (bytes[position + 2] & 0xFF) << 16
+                | (bytes[position + 3] & 0xFF) << 24;
+    }
+}
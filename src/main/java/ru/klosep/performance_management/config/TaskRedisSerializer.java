@@ -0,0 +1,297 @@
+package ru.klosep.performance_management.config;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.http.ResponseEntity;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.store.TaskSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Компактный формат значений кэша задач в Redis.
+ * <p>
+ * Вместо JDK-сериализации с описанием классов в каждом значении - поля задачи
+ * подряд: флаги (выполнена, есть id), id как zigzag-varint, строки как
+ * varint-длина + UTF-8. Отдельно кодируются {@link Task}, список задач,
+ * {@link TaskSnapshot} (с версией) и {@code ResponseEntity<Task>} без
+ * заголовков - так кэш "task" хранит ответы {@code getTask}. Остальные
+ * значения уходят в JDK-сериализацию.
+ * <p>
+ * Значения длиннее {@code compressionThreshold} байт сжимаются {@link Lz4Block},
+ * если это даёт выигрыш. Первый байт - тип значения и флаг сжатия.
+ */
+public class TaskRedisSerializer implements RedisSerializer<Object> {
+
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+
+    private static final int TASK = 1;
+    private static final int TASK_LIST = 2;
+    private static final int SNAPSHOT = 3;
+    private static final int RESPONSE = 4;
+    private static final int JAVA = 5;
+
+    private static final int COMPRESSED = 0x80;
+
+    private static final int COMPLETED_FLAG = 1;
+    private static final int ID_FLAG = 2;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final RedisSerializer<Object> fallback = RedisSerializer.java();
+    private final int compressionThreshold;
+
+    public TaskRedisSerializer() {
+        this(DEFAULT_COMPRESSION_THRESHOLD);
+    }
+
+    public TaskRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return EMPTY;
+        }
+
+        Output out = new Output(64);
+        out.writeByte(0); // тип - после кодирования
+        int type = encode(value, out);
+
+        int payload = out.size - 1;
+        if (payload > compressionThreshold) {
+            byte[] compressed = new byte[Lz4Block.maxCompressedLength(payload)];
+            int length = Lz4Block.compress(out.bytes, 1, payload, compressed);
+            if (length + varIntLength(payload) < payload) {
+                Output packed = new Output(1 + 5 + length);
+                packed.writeByte(type | COMPRESSED);
+                packed.writeVarLong(payload);
+                packed.writeBytes(compressed, 0, length);
+                return packed.toByteArray();
+            }
+        }
+
+        out.bytes[0] = (byte) type;
+        return out.toByteArray();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        int header = bytes[0] & 0xFF;
+        int type = header & ~COMPRESSED;
+        try {
+            Input in;
+            if ((header & COMPRESSED) != 0) {
+                Input lengthIn = new Input(bytes, 1);
+                int payload = lengthIn.readVarInt();
+                byte[] raw = Lz4Block.decompress(bytes, lengthIn.position, bytes.length - lengthIn.position, payload);
+                in = new Input(raw, 0);
+            } else {
+                in = new Input(bytes, 1);
+            }
+            return decode(type, in);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new SerializationException("Cannot decode cached task value of type " + type, e);
+        }
+    }
+
+    private int encode(Object value, Output out) {
+        if (value instanceof Task task) {
+            writeTask(task, out);
+            return TASK;
+        }
+        if (value instanceof TaskSnapshot snapshot) {
+            out.writeVarLong(zigzag(snapshot.getVersion()));
+            writeTasks(snapshot, out);
+            return SNAPSHOT;
+        }
+        if (value instanceof List<?> list && list.stream().allMatch(Task.class::isInstance)) {
+            writeTasks(list, out);
+            return TASK_LIST;
+        }
+        if (value instanceof ResponseEntity<?> response && response.getHeaders().isEmpty()
+                && (response.getBody() == null || response.getBody() instanceof Task)) {
+            out.writeVarLong(response.getStatusCode().value());
+            out.writeByte(response.getBody() != null ? 1 : 0);
+            if (response.getBody() instanceof Task task) {
+                writeTask(task, out);
+            }
+            return RESPONSE;
+        }
+
+        byte[] serialized = fallback.serialize(value);
+        out.writeBytes(serialized, 0, serialized.length);
+        return JAVA;
+    }
+
+    private Object decode(int type, Input in) {
+        return switch (type) {
+            case TASK -> readTask(in);
+            case TASK_LIST -> readTasks(in);
+            case SNAPSHOT -> {
+                long version = unzigzag(in.readVarLong());
+                yield TaskSnapshot.of(readTasks(in), version);
+            }
+            case RESPONSE -> {
+                int status = in.readVarInt();
+                ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+                yield in.readByte() != 0 ? response.body(readTask(in)) : response.build();
+            }
+            case JAVA -> fallback.deserialize(Arrays.copyOfRange(in.bytes, in.position, in.bytes.length));
+            default -> throw new IllegalArgumentException("Unknown cached value type: " + type);
+        };
+    }
+
+    private static void writeTasks(List<?> tasks, Output out) {
+        out.writeVarLong(tasks.size());
+        for (Object task : tasks) {
+            writeTask((Task) task, out);
+        }
+    }
+
+    private static List<Task> readTasks(Input in) {
+        int count = in.readVarInt();
+        // Размер из данных не доверяем: ёмкость ограничена оставшимися байтами
+        List<Task> tasks = new ArrayList<>(Math.min(count, in.bytes.length - in.position));
+        for (int i = 0; i < count; i++) {
+            tasks.add(readTask(in));
+        }
+        return tasks;
+    }
+
+    private static void writeTask(Task task, Output out) {
+        int flags = (task.isCompleted() ? COMPLETED_FLAG : 0) | (task.getId() != null ? ID_FLAG : 0);
+        out.writeByte(flags);
+        if (task.getId() != null) {
+            out.writeVarLong(zigzag(task.getId()));
+        }
+        out.writeString(task.getTitle());
+        out.writeString(task.getDescription());
+    }
+
+    private static Task readTask(Input in) {
+        int flags = in.readByte();
+        Long id = (flags & ID_FLAG) != 0 ? unzigzag(in.readVarLong()) : null;
+        String title = in.readString();
+        String description = in.readString();
+        return new Task(id, title, description, (flags & COMPLETED_FLAG) != 0);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int varIntLength(long value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static final class Output {
+        byte[] bytes;
+        int size;
+
+        Output(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        // Длина + 1, 0 - null
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            writeBytes(utf8, 0, utf8.length);
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+
+    private static final class Input {
+        final byte[] bytes;
+        int position;
+
+        Input(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        int readByte() {
+            return bytes[position++] & 0xFF;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint at " + position);
+        }
+
+        int readVarInt() {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Length out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(bytes, position, length - 1, StandardCharsets.UTF_8);
+            position += length - 1;
+            return value;
+        }
+    }
+}
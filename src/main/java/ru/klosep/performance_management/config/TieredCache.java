@@ -0,0 +1,293 @@
+package ru.klosep.performance_management.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Двухуровневый кэш: локальный L1 (Caffeine) перед общим L2 (Redis).
+ * <p>
+ * Чтение идёт в L1, при промахе - в L2, и только потом к загрузчику; найденное
+ * в L2 оседает в L1. Запись и удаление меняют сначала L2, потом L1, и рассылают
+ * {@link CacheInvalidation}: другие экземпляры выбрасывают свою копию из L1 и
+ * при следующем чтении возьмут новое значение из L2. Заполнение при промахе
+ * не рассылается.
+ * <p>
+ * Ошибки L2 не ломают запрос: кэш работает как локальный, ошибка считается
+ * в метрике. Рассылка не гарантирует доставку - устаревание копии в L1
+ * ограничено её сроком жизни.
+ */
+public class TieredCache implements Cache {
+
+    private final Cache local;
+    private final Cache remote;
+    private final String origin;
+    private final Consumer<CacheInvalidation> publisher;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remoteErrors;
+    private final Counter invalidationsSent;
+    private final Counter invalidationsReceived;
+
+    public TieredCache(Cache local, Cache remote, String origin,
+                       Consumer<CacheInvalidation> publisher, MeterRegistry registry) {
+        this.local = local;
+        this.remote = remote;
+        this.origin = origin;
+        this.publisher = publisher;
+
+        this.localHits = requests(registry, "l1", "hit");
+        this.localMisses = requests(registry, "l1", "miss");
+        this.remoteHits = requests(registry, "l2", "hit");
+        this.remoteMisses = requests(registry, "l2", "miss");
+
+        this.remoteErrors = Counter.builder("cache.tier.errors")
+                .description("Failed calls to the shared cache tier")
+                .tag("cache", getName())
+                .tag("tier", "l2")
+                .register(registry);
+
+        this.invalidationsSent = invalidations(registry, "sent");
+        this.invalidationsReceived = invalidations(registry, "received");
+    }
+
+    @Override
+    public String getName() {
+        return local.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local.getNativeCache();
+    }
+
+    public Cache getLocal() { return local; }
+    public Cache getRemote() { return remote; }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper value = localGet(key);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        localMisses.increment();
+
+        value = remoteGet(key);
+        if (value != null && value.get() != null) {
+            local.put(key, value.get());
+        }
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object stored = value != null ? value.get() : null;
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    // Одновременные промахи ждут одну загрузку в L1; загрузка сначала смотрит в L2.
+    // Заполнение при промахе ничего не рассылает - копии у других экземпляров не устарели
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        boolean[] loaded = new boolean[1];
+        T value = local.get(key, () -> {
+            loaded[0] = true;
+            ValueWrapper shared = remoteGet(key);
+            if (shared != null) {
+                return (T) shared.get();
+            }
+            T fresh = valueLoader.call();
+            if (fresh != null) {
+                remotePut(key, fresh);
+            }
+            return fresh;
+        });
+        (loaded[0] ? localMisses : localHits).increment();
+        return value;
+    }
+
+    // Асинхронно отдаётся только локальная копия: промах L1 - это null, как у пустого кэша
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        CompletableFuture<?> value = local.retrieve(key);
+        (value != null ? localHits : localMisses).increment();
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return local.retrieve(key, () -> {
+            localMisses.increment();
+            ValueWrapper shared = remoteGet(key);
+            if (shared != null) {
+                return CompletableFuture.completedFuture((T) shared.get());
+            }
+            return valueLoader.get().thenApply(fresh -> {
+                if (fresh != null) {
+                    remotePut(key, fresh);
+                }
+                return fresh;
+            });
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remotePut(key, value);
+        local.put(key, value);
+        publish(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = get(key);
+        if (existing != null) {
+            return existing;
+        }
+        put(key, value);
+        return null;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remoteEvict(key);
+        local.evict(key);
+        publish(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = remoteEvict(key);
+        present |= local.evictIfPresent(key);
+        publish(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        try {
+            remote.clear();
+        } catch (RuntimeException e) {
+            remoteFailed("clear", e);
+        }
+        local.clear();
+        publish(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean present = false;
+        try {
+            present = remote.invalidate();
+        } catch (RuntimeException e) {
+            remoteFailed("invalidate", e);
+        }
+        present |= local.invalidate();
+        publish(null);
+        return present;
+    }
+
+    // Изменение пришло от другого экземпляра: L2 уже обновлён, выбрасываем копию из L1
+    void onInvalidation(CacheInvalidation message) {
+        if (origin.equals(message.origin())) {
+            return;
+        }
+        invalidationsReceived.increment();
+        if (message.isClear()) {
+            local.clear();
+        } else {
+            local.evict(message.key());
+        }
+    }
+
+    // Только то, что уже лежит в L1: lookup у CaffeineCache с загрузчиком при промахе
+    // сам вызвал бы загрузчик - мимо L2 и с походом в источник
+    private ValueWrapper localGet(Object key) {
+        if (local instanceof CaffeineCache caffeine) {
+            Object value = caffeine.getNativeCache().getIfPresent(key);
+            if (value == null) {
+                return null;
+            }
+            return new SimpleValueWrapper(value == NullValue.INSTANCE ? null : value);
+        }
+        return local.get(key);
+    }
+
+    private ValueWrapper remoteGet(Object key) {
+        try {
+            ValueWrapper value = remote.get(key);
+            (value != null ? remoteHits : remoteMisses).increment();
+            return value;
+        } catch (RuntimeException e) {
+            remoteFailed("get", e);
+            return null;
+        }
+    }
+
+    private void remotePut(Object key, Object value) {
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            remoteFailed("put", e);
+        }
+    }
+
+    private boolean remoteEvict(Object key) {
+        try {
+            return remote.evictIfPresent(key);
+        } catch (RuntimeException e) {
+            remoteFailed("evict", e);
+            return false;
+        }
+    }
+
+    private void publish(Object key) {
+        try {
+            publisher.accept(new CacheInvalidation(origin, getName(), key));
+            invalidationsSent.increment();
+        } catch (RuntimeException e) {
+            remoteFailed("publish", e);
+        }
+    }
+
+    private void remoteFailed(String operation, RuntimeException e) {
+        remoteErrors.increment();
+        System.err.println("❌ Shared cache '" + getName() + "' " + operation + " failed: " + e.getMessage());
+    }
+
+    private Counter requests(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("cache.tier.requests")
+                .description("Cache lookups per tier")
+                .tag("cache", getName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Counter invalidations(MeterRegistry registry, String direction) {
+        return Counter.builder("cache.tier.invalidations")
+                .description("Near-cache invalidation messages")
+                .tag("cache", getName())
+                .tag("direction", direction)
+                .register(registry);
+    }
+}
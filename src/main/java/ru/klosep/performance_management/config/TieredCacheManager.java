@@ -0,0 +1,86 @@
+package ru.klosep.performance_management.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * {@link CacheManager} из {@link TieredCache}: кэш с именем собирается из
+ * одноимённых кэшей локального и общего менеджеров.
+ * <p>
+ * Изменения рассылаются через {@code publisher}; сообщения других
+ * экземпляров доставляются в {@link #onInvalidation}.
+ * <p>
+ * Кэши из {@code localOnly} отдаются как есть из локального менеджера, без L2:
+ * для значений, версия которых имеет смысл только в своём экземпляре (снимок
+ * всех задач версионируется счётчиком изменений контроллера). Общий L2 с
+ * такими значениями гонял бы экземпляры по кругу: каждый считал бы чужой
+ * снимок устаревшим, пересобирал и перезаписывал его, сбрасывая копии у других.
+ */
+public class TieredCacheManager implements CacheManager {
+
+    private final CacheManager local;
+    private final CacheManager remote;
+    private final Set<String> localOnly;
+    private final Consumer<CacheInvalidation> publisher;
+    private final MeterRegistry registry;
+
+    // Отличает свои сообщения от чужих - свои приходят обратно из канала
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Map<String, TieredCache> caches = new ConcurrentHashMap<>();
+
+    public TieredCacheManager(CacheManager local, CacheManager remote,
+                              Consumer<CacheInvalidation> publisher, MeterRegistry registry) {
+        this(local, remote, Set.of(), publisher, registry);
+    }
+
+    public TieredCacheManager(CacheManager local, CacheManager remote, Set<String> localOnly,
+                              Consumer<CacheInvalidation> publisher, MeterRegistry registry) {
+        this.local = local;
+        this.remote = remote;
+        this.localOnly = localOnly;
+        this.publisher = publisher;
+        this.registry = registry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (localOnly.contains(name)) {
+            return local.getCache(name);
+        }
+        TieredCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache localCache = local.getCache(name);
+        Cache remoteCache = remote.getCache(name);
+        if (localCache == null || remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name,
+                key -> new TieredCache(localCache, remoteCache, instanceId, publisher, registry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return local.getCacheNames();
+    }
+
+    public void onInvalidation(CacheInvalidation message) {
+        // Кэш, к которому здесь ещё не обращались, пуст и на этом уровне
+        TieredCache cache = caches.get(message.cacheName());
+        if (cache != null) {
+            cache.onInvalidation(message);
+        }
+    }
+
+    public String getInstanceId() { return instanceId; }
+}
@@ -2,22 +2,54 @@ package ru.klosep.performance_management.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.klosep.performance_management.adapter.input.FileTaskAdapter;
+import ru.klosep.performance_management.model.AnalysisJob;
 import ru.klosep.performance_management.port.AnalysisResultPublisher;
 import ru.klosep.performance_management.port.TaskDataSource;
+import ru.klosep.performance_management.service.AnalysisJobService;
+import ru.klosep.performance_management.service.TaskAnalysisCache;
 import ru.klosep.performance_management.service.TaskAnalysisService;
+import ru.klosep.performance_management.service.TaskRollupService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/analysis")
 public class AnalysisController {
 
+    public enum Source { REST, FILE, POSTGRES, MONGO }
+
+    public enum Target { CONSOLE, DB }
+
     @Autowired
     @Qualifier("restTaskAdapter")
     private TaskDataSource restTaskAdapter;
 
     @Autowired
     @Qualifier("fileTaskAdapter")
-    private TaskDataSource fileTaskAdapter;
+    private FileTaskAdapter fileTaskAdapter;
+
+    @Autowired
+    @Qualifier("postgresTaskAdapter")
+    private TaskDataSource postgresTaskAdapter;
+
+    @Autowired
+    @Qualifier("mongoTaskAdapter")
+    private TaskDataSource mongoTaskAdapter;
+
+    @Autowired
+    private TaskAnalysisCache analysisCache;
+
+    @Autowired
+    private TaskRollupService rollupService;
+
+    @Autowired
+    private AnalysisJobService jobService;
 
     @Autowired
     @Qualifier("consoleResultAdapter")
@@ -29,28 +61,100 @@ public class AnalysisController {
 
     @GetMapping("/run-rest-console")
     public String analyzeFromRestToConsole() {
-        TaskAnalysisService service = new TaskAnalysisService(
-                restTaskAdapter, consolePublisher
-        );
-        service.analyzeAndPublish();
+        runShared(Source.REST, Target.CONSOLE);
         return "Analysis completed: REST → Console";
     }
 
     @GetMapping("/run-file-db")
     public String analyzeFromFileToDb() {
+        runShared(Source.FILE, Target.DB);
+        return "Analysis completed: File → Database";
+    }
+
+    // Диапазоны файла анализируются параллельно, частичные агрегаты сливаются
+    @GetMapping("/run-file-parallel-db")
+    public String analyzeFileInParallelToDb(@RequestParam(defaultValue = "0") int parallelism) {
+        List<TaskDataSource> partitions = fileTaskAdapter.partitions(parallelism);
         TaskAnalysisService service = new TaskAnalysisService(
-                fileTaskAdapter, dbPublisher
+                partitions, dbPublisher
         );
         service.analyzeAndPublish();
-        return "Analysis completed: File → Database";
+        return "Analysis completed: File (" + partitions.size() + " partitions) → Database";
     }
 
     @GetMapping("/run-rest-db")
     public String analyzeFromRestToDb() {
-        TaskAnalysisService service = new TaskAnalysisService(
-                restTaskAdapter, dbPublisher
-        );
-        service.analyzeAndPublish();
+        runShared(Source.REST, Target.DB);
         return "Analysis completed: REST → Database";
     }
-}
\ No newline at end of file
+
+    // Агрегаты считаются в PostgreSQL, в JVM приходит только сводка
+    @GetMapping("/run-postgres-console")
+    public String analyzeFromPostgresToConsole() {
+        runShared(Source.POSTGRES, Target.CONSOLE);
+        return "Analysis completed: PostgreSQL → Console";
+    }
+
+    // Агрегаты считаются aggregation pipeline в MongoDB
+    @GetMapping("/run-mongo-console")
+    public String analyzeFromMongoToConsole() {
+        runShared(Source.MONGO, Target.CONSOLE);
+        return "Analysis completed: MongoDB → Console";
+    }
+
+    // Асинхронный анализ: сразу возвращает задание, результат - через GET /jobs/{jobId}
+    // или /topic/analysis/{jobId}. Одинаковые запросы, пока расчёт идёт, получают одно задание
+    @PostMapping("/jobs")
+    public ResponseEntity<AnalysisJob> startJob(@RequestParam Source source, @RequestParam Target target) {
+        return ResponseEntity.accepted().body(submit(source, target));
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<AnalysisJob> getJob(@PathVariable String jobId) {
+        return jobService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Статистика по дням или неделям из предагрегированных роллапов (без обхода задач)
+    @GetMapping("/rollups")
+    public List<TaskRollupService.Period> getRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") TaskRollupService.Granularity granularity) {
+        return rollupService.query(from, to, granularity);
+    }
+
+    // Разовая пересборка роллапов по уже загруженным задачам (день - дата created_at)
+    @PostMapping("/rollups/backfill")
+    public String backfillRollups() {
+        return "Rollups rebuilt: " + rollupService.backfill() + " days";
+    }
+
+    private AnalysisJob submit(Source source, Target target) {
+        return jobService.submit(source + "->" + target, () -> newService(source, target));
+    }
+
+    // Синхронные эндпоинты тоже идут через задания: N одновременных вызовов - один расчёт
+    private void runShared(Source source, Target target) {
+        try {
+            submit(source, target).completion().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private TaskAnalysisService newService(Source source, Target target) {
+        AnalysisResultPublisher publisher = target == Target.DB ? dbPublisher : consolePublisher;
+        return switch (source) {
+            case REST -> new TaskAnalysisService(restTaskAdapter, publisher, analysisCache);
+            case FILE -> new TaskAnalysisService(fileTaskAdapter, publisher, analysisCache);
+            // Агрегаты считает сама БД - кешировать нечего
+            case POSTGRES -> new TaskAnalysisService(postgresTaskAdapter, publisher);
+            case MONGO -> new TaskAnalysisService(mongoTaskAdapter, publisher);
+        };
+    }
+}
@@ -7,6 +7,7 @@ import ru.klosep.performance_management.mongo.document.TaskDocument;
 import ru.klosep.performance_management.mongo.repository.TaskMongoRepository;
 import ru.klosep.performance_management.postgres.entity.TaskEntity;
 import ru.klosep.performance_management.postgres.repository.TaskJpaRepository;
+import ru.klosep.performance_management.service.TaskDedupService;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -21,6 +22,9 @@ public class DatabaseBenchmarkController {
     @Autowired
     private TaskMongoRepository mongoRepo;
 
+    @Autowired
+    private TaskDedupService dedupService;
+
     // === ВСТАВКА ОДНОЙ ЗАПИСИ ===
 
     @PostMapping("/postgres/insert-one")
@@ -218,12 +222,14 @@ public class DatabaseBenchmarkController {
     @DeleteMapping("/postgres/clear")
     public ResponseEntity<String> clearPostgres() {
         postgresRepo.deleteAll();
+        dedupService.invalidate();
         return ResponseEntity.ok("PostgreSQL cleared");
     }
 
     @DeleteMapping("/mongo/clear")
     public ResponseEntity<String> clearMongo() {
         mongoRepo.deleteAll();
+        dedupService.invalidate();
         return ResponseEntity.ok("MongoDB cleared");
     }
 }
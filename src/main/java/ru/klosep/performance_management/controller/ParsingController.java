@@ -8,9 +8,19 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.web.bind.annotation.*;
+import ru.klosep.performance_management.adapter.input.BinaryTaskAdapter;
+import ru.klosep.performance_management.model.FileFormat;
+import ru.klosep.performance_management.model.ImportMode;
 import ru.klosep.performance_management.model.ParseJob;
+import ru.klosep.performance_management.model.ParseMode;
+import ru.klosep.performance_management.model.ParseOptions;
+import ru.klosep.performance_management.model.SinkType;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.postgres.entity.IngestCheckpointEntity;
+import ru.klosep.performance_management.service.IngestCheckpointService;
 import ru.klosep.performance_management.service.TaskParsingService;
 
+import java.nio.file.Path;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.*;
@@ -31,6 +41,12 @@ public class ParsingController {
     @Autowired
     private MeterRegistry meterRegistry;
 
+    @Autowired
+    private BinaryTaskAdapter binaryTaskAdapter;
+
+    @Autowired
+    private IngestCheckpointService checkpointService;
+
     private final Counter pollingRequestsCounter;
     private final Counter wsRequestsCounter;
 
@@ -94,13 +110,23 @@ public class ParsingController {
     @PostMapping("/parse-file")
     @Timed(value = "parsing.file", description = "Time to parse file")
     public ResponseEntity<Map<String, Object>> parseFileWithMetrics(
-            @RequestParam String filename) {
+            @RequestParam String filename,
+            @RequestParam(defaultValue = "BATCH") ParseMode mode,
+            @RequestParam(required = false) Integer chunkSize,
+            @RequestParam(defaultValue = "JPA") SinkType sink,
+            @RequestParam(defaultValue = "CSV") FileFormat format,
+            @RequestParam(defaultValue = "false") boolean resume,
+            @RequestParam(defaultValue = "INSERT") ImportMode importMode) {
 
         long startTime = System.currentTimeMillis();
 
+        ParseOptions options = new ParseOptions(mode, chunkSize, sink, format);
+        options.setResume(resume);
+        options.setImportMode(importMode);
+
         // Используем сервис с метриками
         TaskParsingService.ParseResult result =
-                parsingService.parseAndSaveTasksFromFile(filename);
+                parsingService.parseAndSaveTasksFromFile(filename, options);
 
         long duration = System.currentTimeMillis() - startTime;
 
@@ -110,25 +136,60 @@ public class ParsingController {
                 .register(meterRegistry)
                 .record(duration, TimeUnit.MILLISECONDS);
 
-        return ResponseEntity.ok(Map.of(
-                "success", result.success,
-                "recordsParsed", result.recordsParsed,
-                "recordsSaved", result.recordsSaved,
-                "durationMs", duration,
-                "throughput", result.recordsSaved * 1000.0 / duration, // records/sec
-                "error", result.errorMessage != null ? result.errorMessage : ""
+        return ResponseEntity.ok(Map.ofEntries(
+                Map.entry("success", result.success),
+                Map.entry("mode", mode),
+                Map.entry("sink", sink),
+                Map.entry("format", format),
+                Map.entry("importMode", importMode),
+                Map.entry("recordsParsed", result.recordsParsed),
+                Map.entry("recordsSaved", result.recordsSaved),
+                Map.entry("resumedRows", result.resumedRows),
+                Map.entry("durationMs", duration),
+                Map.entry("throughput", result.recordsSaved * 1000.0 / duration), // records/sec
+                Map.entry("chunks", result.chunks),
+                Map.entry("error", result.errorMessage != null ? result.errorMessage : "")
         ));
     }
 
+    // Прогресс загрузки файла в приёмник: закоммиченное смещение, строки и статус
+    @GetMapping("/checkpoint")
+    public ResponseEntity<IngestCheckpointEntity> getCheckpoint(
+            @RequestParam String filename,
+            @RequestParam(defaultValue = "JPA") SinkType sink,
+            @RequestParam(defaultValue = "INSERT") ImportMode importMode) {
+        return checkpointService.find(Path.of(filename), sink, importMode)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Задача из бинарного файла по id через файл-индекс
+    @GetMapping("/binary/{id}")
+    public ResponseEntity<Task> getBinaryTask(@PathVariable long id) {
+        return binaryTaskAdapter.findById(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // НОВЫЙ: Парсинг файла с WebSocket уведомлением
     @PostMapping("/parse-file-ws")
     public ResponseEntity<ParseJob> parseFileWebSocket(
-            @RequestParam String filename) {
+            @RequestParam String filename,
+            @RequestParam(defaultValue = "BATCH") ParseMode mode,
+            @RequestParam(required = false) Integer chunkSize,
+            @RequestParam(defaultValue = "JPA") SinkType sink,
+            @RequestParam(defaultValue = "CSV") FileFormat format,
+            @RequestParam(defaultValue = "false") boolean resume,
+            @RequestParam(defaultValue = "INSERT") ImportMode importMode) {
 
         String jobId = UUID.randomUUID().toString();
         ParseJob job = new ParseJob(jobId);
         jobs.put(jobId, job);
 
+        ParseOptions options = new ParseOptions(mode, chunkSize, sink, format);
+        options.setResume(resume);
+        options.setImportMode(importMode);
+
         executor.submit(() -> {
             try {
                 job.setStatus("RUNNING");
@@ -136,7 +197,7 @@ public class ParsingController {
 
                 // Реальный парсинг
                 TaskParsingService.ParseResult result =
-                        parsingService.parseAndSaveTasksFromFile(filename);
+                        parsingService.parseAndSaveTasksFromFile(filename, options);
 
                 if (result.success) {
                     job.setStatus("COMPLETED");
@@ -166,7 +227,12 @@ public class ParsingController {
     @PostMapping("/benchmark")
     public ResponseEntity<Map<String, Object>> runBenchmark(
             @RequestParam(defaultValue = "test-data-10k.txt") String filename,
-            @RequestParam(defaultValue = "10") int iterations) {
+            @RequestParam(defaultValue = "10") int iterations,
+            @RequestParam(defaultValue = "INSERT") ImportMode importMode) {
+
+        // UPSERT: первая итерация загружает файл, остальные меряют повторный импорт
+        ParseOptions options = ParseOptions.batch();
+        options.setImportMode(importMode);
 
         long totalTime = 0;
         int totalRecords = 0;
@@ -176,7 +242,7 @@ public class ParsingController {
             long start = System.currentTimeMillis();
 
             TaskParsingService.ParseResult result =
-                    parsingService.parseAndSaveTasksFromFile(filename);
+                    parsingService.parseAndSaveTasksFromFile(filename, options);
 
             long duration = System.currentTimeMillis() - start;
             totalTime += duration;
@@ -192,6 +258,7 @@ public class ParsingController {
 
         return ResponseEntity.ok(Map.of(
                 "iterations", iterations,
+                "importMode", importMode,
                 "successCount", successCount,
                 "totalRecords", totalRecords,
                 "totalTimeMs", totalTime,
@@ -1,107 +1,306 @@
 package ru.klosep.performance_management.controller;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.*;
+import ru.klosep.performance_management.config.CacheLoaderRegistry;
 import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.model.TaskStatistics;
+import ru.klosep.performance_management.store.HeapTaskStore;
+import ru.klosep.performance_management.store.TaskSnapshot;
+import ru.klosep.performance_management.store.TaskStore;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.UnaryOperator;
 
 @RestController
 @RequestMapping("/api/tasks")
 public class TaskController {
 
-    private final ConcurrentHashMap<Long, Task> tasks = new ConcurrentHashMap<>();
+    private static final int MAX_PAGE_SIZE = 10_000;
+
+    private static final String TASKS_CACHE = "tasks";
+    private static final String ALL_TASKS_KEY = "all";
+    // Версия снимка, загруженного во время изменений: такой снимок всегда считается устаревшим
+    private static final long UNKNOWN_VERSION = -1;
+
+    // В куче или вне её - task.store.type
+    private final TaskStore tasks;
     private final AtomicLong counter = new AtomicLong(1);
 
+    // Агрегаты по всем задачам: меняются вместе с картой под writeLock,
+    // поэтому анализ читает их за O(1) вместо обхода всех задач
+    private final TaskStatistics statistics = new TaskStatistics();
+    private final StampedLock statisticsLock = new StampedLock();
+    private long modifications; // версия данных: растёт при каждом изменении, под statisticsLock
+
+    // Счётчик изменений живёт в памяти - эпоха запуска отличает версии разных запусков
+    private final String versionEpoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // Кэш "все задачи" - TaskSnapshot с версией данных; изменения патчат его, а не сбрасывают.
+    // Без CacheManager (тесты без Spring) список каждый раз загружается заново
+    @Autowired(required = false)
+    private CacheManager cacheManager;
+
+    @Autowired(required = false)
+    private CacheLoaderRegistry cacheLoaders;
+
+    // Идёт фоновая пересборка снимка всех задач
+    private final AtomicBoolean refreshingAllTasks = new AtomicBoolean();
+
     public TaskController() {
+        this(new HeapTaskStore());
+    }
+
+    @Autowired
+    public TaskController(TaskStore tasks) {
+        this.tasks = tasks;
         // Инициализация тестовых данных
         for (int i = 1; i <= 100; i++) {
             Task task = new Task((long) i, "Task " + i, "Description " + i, false);
-            tasks.put((long) i, task);
+            tasks.put(task);
+            statistics.accept(task);
             counter.set(i + 1);
         }
     }
 
-    // ГОРЯЧИЕ ДАННЫЕ: Получение всех задач
-    @Cacheable(value = "tasks", key = "'all'")
+    // Фоновое обновление кэшей (refreshAfterWrite) загружает значения теми же методами, что и промах
+    @PostConstruct
+    public void registerCacheLoaders() {
+        if (cacheLoaders != null) {
+            cacheLoaders.register(TASKS_CACHE, key -> loadAllTasks());
+            cacheLoaders.register("task", key -> loadTask((Long) key));
+        }
+    }
+
+    // ГОРЯЧИЕ ДАННЫЕ: Получение всех задач.
+    // Одновременные промахи ждут одну загрузку. Отставший от версии данных снимок
+    // отдаётся как есть и обновляется в фоне
     @GetMapping
     public ResponseEntity<List<Task>> getAllTasks() {
-        System.out.println("⚠️ CACHE MISS: Loading all tasks from storage...");
-        simulateDbDelay(200);
-        return ResponseEntity.ok(new ArrayList<>(tasks.values()));
+        Cache cache = tasksCache();
+        if (cache == null) {
+            return ResponseEntity.ok(loadAllTasks());
+        }
+
+        TaskSnapshot snapshot = cache.get(ALL_TASKS_KEY, this::loadAllTasks);
+        if (snapshot.getVersion() != dataVersion()) {
+            snapshot = refreshAllTasks(cache, snapshot);
+        }
+        return ResponseEntity.ok(snapshot);
+    }
+
+    // Постраничная выдача по возрастанию id (keyset по after).
+    // Ссылка на следующую страницу - в заголовке Link, на последней странице его нет
+    @GetMapping("/page")
+    public ResponseEntity<List<Task>> getTasksPage(@RequestParam(defaultValue = "0") long after,
+                                                   @RequestParam(defaultValue = "1000") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<Task> page = tasks.page(after, size);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == size) {
+            long last = page.get(page.size() - 1).getId();
+            response.header(HttpHeaders.LINK,
+                    "</api/tasks/page?after=" + last + "&limit=" + size + ">; rel=\"next\"");
+        }
+        return response.body(page);
     }
 
-    // ГОРЯЧИЕ ДАННЫЕ: Получение одной задачи по ID
-    @Cacheable(value = "task", key = "#id")
+    // ГОРЯЧИЕ ДАННЫЕ: Получение одной задачи по ID.
+    // sync - одновременные промахи по одному id ждут одну загрузку
+    @Cacheable(value = "task", key = "#id", sync = true)
     @GetMapping("/{id}")
     public ResponseEntity<Task> getTask(@PathVariable Long id) {
-        System.out.println("⚠️ CACHE MISS: Loading task " + id + " from storage...");
-        simulateDbDelay(100);
-        Task task = tasks.get(id);
-        if (task == null) {
-            return ResponseEntity.notFound().build();
-        }
-        return ResponseEntity.ok(task);
+        return loadTask(id);
     }
 
-    // CREATE - с инвалидацией кэша всех задач
-    @CacheEvict(value = "tasks", key = "'all'")
+    // CREATE - задача добавляется в кэшированный снимок всех задач.
+    // Для нового id мог быть закэширован 404 (sync несовместим с unless) - убираем его
+    @CacheEvict(value = "task", key = "#result.body.id")
     @PostMapping
     public ResponseEntity<Task> createTask(@RequestBody Task task) {
-        System.out.println("✅ Cache evicted: 'tasks:all'");
         simulateDbDelay(50);
         Long id = counter.getAndIncrement();
         task.setId(id);
-        tasks.put(id, task);
+
+        long version;
+        long stamp = statisticsLock.writeLock();
+        try {
+            tasks.put(task);
+            statistics.accept(task);
+            version = ++modifications;
+        } finally {
+            statisticsLock.unlockWrite(stamp);
+        }
+        patchAllTasks(version, snapshot -> snapshot.with(task, version));
         return ResponseEntity.status(HttpStatus.CREATED).body(task);
     }
 
-    // UPDATE - с инвалидацией обоих кэшей (ИСПОЛЬЗУЕМ @Caching)
-    @Caching(evict = {
-            @CacheEvict(value = "task", key = "#id"),
-            @CacheEvict(value = "tasks", key = "'all'")
-    })
+    // UPDATE - кэш задачи перезаписывается только для этого id, снимок всех задач патчится
+    @CachePut(value = "task", key = "#id", unless = "#result.body == null")
     @PutMapping("/{id}")
     public ResponseEntity<Task> updateTask(@PathVariable Long id, @RequestBody Task taskDetails) {
-        System.out.println("✅ Cache evicted: task:" + id + " and tasks:all");
         simulateDbDelay(80);
 
-        Task task = tasks.get(id);
-        if (task == null) {
-            return ResponseEntity.notFound().build();
-        }
+        // Хранилище может отдавать копии - обновлённая задача записывается заново
+        Task task = new Task(id, taskDetails.getTitle(), taskDetails.getDescription(), taskDetails.isCompleted());
 
-        task.setTitle(taskDetails.getTitle());
-        task.setDescription(taskDetails.getDescription());
-        task.setCompleted(taskDetails.isCompleted());
+        long version;
+        long stamp = statisticsLock.writeLock();
+        try {
+            Task current = tasks.get(id);
+            if (current == null) {
+                return ResponseEntity.notFound().build();
+            }
+            tasks.put(task);
+            statistics.remove(current);
+            statistics.accept(task);
+            version = ++modifications;
+        } finally {
+            statisticsLock.unlockWrite(stamp);
+        }
+        patchAllTasks(version, snapshot -> snapshot.with(task, version));
 
         return ResponseEntity.ok(task);
     }
 
-    // DELETE - с инвалидацией кэшей (ИСПОЛЬЗУЕМ @Caching)
-    @Caching(evict = {
-            @CacheEvict(value = "task", allEntries = true),
-            @CacheEvict(value = "tasks", allEntries = true)
-    })
+    // DELETE - из кэша убирается только эта задача, снимок всех задач патчится
+    @CacheEvict(value = "task", key = "#id")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteTask(@PathVariable Long id) {
-        System.out.println("✅ Cache evicted: all entries");
         simulateDbDelay(40);
 
-        Task removed = tasks.remove(id);
-        if (removed == null) {
-            return ResponseEntity.notFound().build();
+        long version;
+        long stamp = statisticsLock.writeLock();
+        try {
+            Task removed = tasks.remove(id);
+            if (removed == null) {
+                return ResponseEntity.notFound().build();
+            }
+            statistics.remove(removed);
+            version = ++modifications;
+        } finally {
+            statisticsLock.unlockWrite(stamp);
         }
+        patchAllTasks(version, snapshot -> snapshot.without(id, version));
         return ResponseEntity.noContent().build();
     }
 
+    // Агрегаты по всем задачам за O(1) - для анализа без выгрузки задач
+    // ETag - версия данных: при неизменных задачах клиент получает 304 без тела
+    @GetMapping("/statistics")
+    public ResponseEntity<TaskStatistics> getStatistics(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        TaskStatistics snapshot;
+        String etag;
+        long stamp = statisticsLock.readLock();
+        try {
+            // Версия и агрегаты читаются вместе - ETag точно соответствует телу
+            etag = etag(modifications);
+            snapshot = statistics.copy();
+        } finally {
+            statisticsLock.unlockRead(stamp);
+        }
+
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(snapshot);
+    }
+
+    // Монотонно растущая версия данных - для условных запросов и кэша анализа
+    @GetMapping("/version")
+    public ResponseEntity<Map<String, String>> getVersion(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = etag(dataVersion());
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(Map.of("version", etag));
+    }
+
+    public long dataVersion() {
+        long stamp = statisticsLock.tryOptimisticRead();
+        long version = modifications;
+        if (!statisticsLock.validate(stamp)) {
+            stamp = statisticsLock.readLock();
+            try {
+                version = modifications;
+            } finally {
+                statisticsLock.unlockRead(stamp);
+            }
+        }
+        return version;
+    }
+
+    public TaskStatistics statisticsSnapshot() {
+        long stamp = statisticsLock.tryOptimisticRead();
+        TaskStatistics snapshot = statistics.copy();
+        if (!statisticsLock.validate(stamp)) {
+            stamp = statisticsLock.readLock();
+            try {
+                snapshot = statistics.copy();
+            } finally {
+                statisticsLock.unlockRead(stamp);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Сверка агрегатов с задачами на случай расхождения (например, задачу
+     * изменили напрямую в обход контроллера). Обход идёт без блокировки;
+     * если за это время были изменения, сверка откладывается до следующего
+     * запуска, чтобы не держать блокировку на время обхода.
+     */
+    @Scheduled(fixedDelayString = "${task.statistics.reconcile-interval-ms:60000}")
+    public void reconcileStatistics() {
+        long before;
+        long stamp = statisticsLock.readLock();
+        try {
+            before = modifications;
+        } finally {
+            statisticsLock.unlockRead(stamp);
+        }
+
+        TaskStatistics actual = new TaskStatistics();
+        tasks.forEach(actual::accept);
+
+        stamp = statisticsLock.writeLock();
+        try {
+            if (modifications != before) {
+                return; // Данные менялись во время обхода
+            }
+            if (!actual.equals(statistics)) {
+                System.out.println("⚠️ Task statistics drifted, reconciled: " + statistics + " -> " + actual);
+                statistics.setTotal(actual.getTotal());
+                statistics.setCompleted(actual.getCompleted());
+                statistics.setTitleLengthSum(actual.getTitleLengthSum());
+                statistics.setTitleLengthHistogram(actual.getTitleLengthHistogram());
+                modifications++; // Данные менялись в обход контроллера - новая версия
+            }
+        } finally {
+            statisticsLock.unlockWrite(stamp);
+        }
+    }
+
     // Endpoint для тестирования производительности
     @GetMapping("/benchmark")
     public ResponseEntity<String> benchmark() {
@@ -111,6 +310,121 @@ public class TaskController {
         return ResponseEntity.ok("Response time: " + duration + " ms");
     }
 
+    private ResponseEntity<Task> loadTask(Long id) {
+        System.out.println("⚠️ CACHE MISS: Loading task " + id + " from storage...");
+        simulateDbDelay(100);
+        Task task = tasks.get(id);
+        if (task == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(task);
+    }
+
+    private TaskSnapshot loadAllTasks() {
+        System.out.println("⚠️ CACHE MISS: Loading all tasks from storage...");
+        simulateDbDelay(200);
+        long version = dataVersion();
+        List<Task> all = new ArrayList<>(tasks.size());
+        tasks.forEach(all::add);
+        // Изменения во время обхода могли попасть в снимок частично
+        return TaskSnapshot.of(all, dataVersion() == version ? version : UNKNOWN_VERSION);
+    }
+
+    // Caffeine (в профиле tiered снимок тоже только в L1): снимок пересобирается в фоне,
+    // не больше одной сборки за раз, пока отдаём прежний. Результат кладётся, только если
+    // данные не менялись. Другие кэши не умеют обновлять в фоне - загружаем заново сразу
+    private TaskSnapshot refreshAllTasks(Cache cache, TaskSnapshot stale) {
+        if (!(cache instanceof CaffeineCache)) {
+            cache.evict(ALL_TASKS_KEY);
+            return cache.get(ALL_TASKS_KEY, this::loadAllTasks);
+        }
+        if (refreshingAllTasks.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("tasks-cache-refresh").start(() -> {
+                try {
+                    TaskSnapshot fresh = loadAllTasks();
+                    long stamp = statisticsLock.readLock();
+                    try {
+                        if (fresh.getVersion() == modifications) {
+                            cache.put(ALL_TASKS_KEY, fresh);
+                        }
+                    } finally {
+                        statisticsLock.unlockRead(stamp);
+                    }
+                } finally {
+                    refreshingAllTasks.set(false);
+                }
+            });
+        }
+        return stale;
+    }
+
+    /**
+     * Применяет изменение версии {@code version} к кэшированному снимку всех задач.
+     * Вызывается после снятия writeLock: в профиле redis запись в кэш - это
+     * сетевые вызовы, и держать на их время блокировку, которую ждут все изменения
+     * и читатели версии, нельзя. Поэтому изменения доходят до кэша в любом порядке:
+     * снимок предыдущей версии патчится, более новый (соседнее изменение или
+     * фоновая пересборка успели раньше) остаётся, остальное удаляется. Идущую
+     * загрузку не ждём - её результат этого изменения может не содержать,
+     * поэтому запись удаляется.
+     */
+    private void patchAllTasks(long version, UnaryOperator<TaskSnapshot> patch) {
+        Cache cache = tasksCache();
+        if (cache == null) {
+            return;
+        }
+        // Caffeine - атомарно: конкурирующие изменения не затрут друг друга
+        if (cache instanceof CaffeineCache caffeine) {
+            caffeine.getAsyncCache().asMap().computeIfPresent(ALL_TASKS_KEY, (key, pending) -> {
+                if (!pending.isDone() || pending.isCompletedExceptionally()) {
+                    return null;
+                }
+                Object cached = pending.join();
+                TaskSnapshot next = patched(cached, version, patch);
+                return next == null ? null : next == cached ? pending : CompletableFuture.completedFuture(next);
+            });
+            return;
+        }
+
+        // Остальные (Redis) - синхронным чтением: retrieve у RedisCache отдаёт ещё не завершённый
+        // future, а без асинхронного writer'а бросает UnsupportedOperationException.
+        // Изменение уже применено - ошибка кэша не должна превращать ответ в 500
+        try {
+            Cache.ValueWrapper cached = cache.get(ALL_TASKS_KEY);
+            if (cached == null) {
+                return;
+            }
+            TaskSnapshot next = patched(cached.get(), version, patch);
+            if (next == null) {
+                cache.evict(ALL_TASKS_KEY);
+            } else if (next != cached.get()) {
+                cache.put(ALL_TASKS_KEY, next);
+            }
+        } catch (RuntimeException e) {
+            // Снимок в кэше отстал по версии - следующее чтение его перезагрузит
+            System.err.println("❌ Failed to patch cached task list: " + e.getMessage());
+        }
+    }
+
+    // Снимок после изменения version: null - снимок не годится и удаляется
+    private static TaskSnapshot patched(Object cached, long version, UnaryOperator<TaskSnapshot> patch) {
+        if (!(cached instanceof TaskSnapshot snapshot) || snapshot.getVersion() == UNKNOWN_VERSION) {
+            return null;
+        }
+        if (snapshot.getVersion() >= version) {
+            return snapshot;
+        }
+        return snapshot.getVersion() == version - 1 ? patch.apply(snapshot) : null;
+    }
+
+    private Cache tasksCache() {
+        return cacheManager != null ? cacheManager.getCache(TASKS_CACHE) : null;
+    }
+
+    private String etag(long version) {
+        return "\"" + versionEpoch + "-" + version + "\"";
+    }
+
     private void simulateDbDelay(long millis) {
         try {
             Thread.sleep(millis);
@@ -0,0 +1,50 @@
+package ru.klosep.performance_management.model;
+
+import java.util.concurrent.CompletableFuture;
+
+public class AnalysisJob {
+    private final String id;
+    private final String key; // источник -> приёмник; одинаковые запросы делят одно задание
+    private volatile String status; // RUNNING, COMPLETED, FAILED
+    private volatile TaskAnalysis result;
+    private volatile String error;
+    private final long startTime;
+    private volatile long endTime;
+
+    // Для ожидающих результат внутри приложения; в JSON не попадает
+    private final CompletableFuture<TaskAnalysis> completion = new CompletableFuture<>();
+
+    public AnalysisJob(String id, String key) {
+        this.id = id;
+        this.key = key;
+        this.status = "RUNNING";
+        this.startTime = System.currentTimeMillis();
+    }
+
+    public void complete(TaskAnalysis analysis) {
+        this.result = analysis;
+        this.status = "COMPLETED";
+        this.endTime = System.currentTimeMillis();
+        completion.complete(analysis);
+    }
+
+    public void fail(Throwable cause) {
+        this.error = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        this.status = "FAILED";
+        this.endTime = System.currentTimeMillis();
+        completion.completeExceptionally(cause);
+    }
+
+    public CompletableFuture<TaskAnalysis> completion() {
+        return completion;
+    }
+
+    // Геттеры
+    public String getId() { return id; }
+    public String getKey() { return key; }
+    public String getStatus() { return status; }
+    public TaskAnalysis getResult() { return result; }
+    public String getError() { return error; }
+    public long getStartTime() { return startTime; }
+    public long getEndTime() { return endTime; }
+}
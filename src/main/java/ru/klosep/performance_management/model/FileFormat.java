@@ -0,0 +1,7 @@
+package ru.klosep.performance_management.model;
+
+// Формат входного файла задач
+public enum FileFormat {
+    CSV,    // id,title,description,completed[,createdAt] с заголовком
+    BINARY  // формат DataGenerator.generateBinaryDataset
+}
@@ -0,0 +1,7 @@
+package ru.klosep.performance_management.model;
+
+// Что делать с записями, которые уже загружались раньше
+public enum ImportMode {
+    INSERT, // каждая запись - новая строка (исходное поведение)
+    UPSERT  // по id из файла: неизменённые пропускаются, изменённые обновляются, новые вставляются
+}
@@ -0,0 +1,9 @@
+package ru.klosep.performance_management.model;
+
+// Режим загрузки файла в TaskParsingService
+public enum ParseMode {
+    BATCH,      // весь файл в памяти, одна транзакция (исходное поведение)
+    STREAMING,  // чтение, валидация и сохранение ограниченными чанками, коммит на чанк
+    PARALLEL,   // параллельный разбор диапазонов файла, сохранение по порядку, коммит на диапазон
+    PIPELINED   // чтение, разбор и запись - одновременно работающие стадии с очередями между ними
+}
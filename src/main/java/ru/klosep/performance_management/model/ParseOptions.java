@@ -0,0 +1,51 @@
+package ru.klosep.performance_management.model;
+
+public class ParseOptions {
+    private ParseMode mode = ParseMode.BATCH;
+    private Integer chunkSize; // null - берём task.parsing.chunk-size
+    private SinkType sink = SinkType.JPA;
+    private FileFormat format = FileFormat.CSV;
+    private boolean resume; // продолжить с последнего checkpoint-а (STREAMING, PARALLEL)
+    private ImportMode importMode = ImportMode.INSERT;
+
+    public ParseOptions() {
+    }
+
+    public ParseOptions(ParseMode mode, Integer chunkSize) {
+        this.mode = mode;
+        this.chunkSize = chunkSize;
+    }
+
+    public ParseOptions(ParseMode mode, Integer chunkSize, SinkType sink) {
+        this.mode = mode;
+        this.chunkSize = chunkSize;
+        this.sink = sink;
+    }
+
+    public ParseOptions(ParseMode mode, Integer chunkSize, SinkType sink, FileFormat format) {
+        this(mode, chunkSize, sink);
+        this.format = format;
+    }
+
+    public static ParseOptions batch() {
+        return new ParseOptions(ParseMode.BATCH, null);
+    }
+
+    public static ParseOptions streaming(int chunkSize) {
+        return new ParseOptions(ParseMode.STREAMING, chunkSize);
+    }
+
+    // Геттеры и сеттеры
+    public ParseMode getMode() { return mode; }
+    public void setMode(ParseMode mode) { this.mode = mode; }
+    public Integer getChunkSize() { return chunkSize; }
+    public void setChunkSize(Integer chunkSize) { this.chunkSize = chunkSize; }
+    public SinkType getSink() { return sink; }
+    public void setSink(SinkType sink) { this.sink = sink; }
+    public FileFormat getFormat() { return format; }
+    public void setFormat(FileFormat format) { this.format = format; }
+    public boolean isResume() { return resume; }
+    public void setResume(boolean resume) { this.resume = resume; }
+    public ImportMode getImportMode() { return importMode; }
+    public void setImportMode(ImportMode importMode) { this.importMode = importMode; }
+}
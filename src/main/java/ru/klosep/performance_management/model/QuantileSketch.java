@@ -0,0 +1,202 @@
+package ru.klosep.performance_management.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Сливаемый скетч квантилей с гарантированной относительной точностью (DDSketch).
+ * <p>
+ * Положительное значение v попадает в корзину {@code ceil(log_gamma(v))},
+ * где {@code gamma = (1 + a) / (1 - a)}: любой квантиль возвращается с
+ * относительной ошибкой не больше {@code a}. Хранятся только счётчики корзин -
+ * размер зависит от диапазона значений, а не от их числа. Скетчи с одинаковой
+ * точностью сливаются точно: счётчики корзин складываются. Нули считаются
+ * отдельно, отрицательные значения не поддерживаются.
+ * Экземпляр не потокобезопасен.
+ */
+public final class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    // counts[i] - корзина с индексом offset + i
+    private long[] counts = new long[0];
+    private int offset;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be in (0, 1): " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    public void add(double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            throw new IllegalArgumentException("Negative or NaN value: " + value);
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        if (value == 0) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        ensureCapacity(index, index);
+        counts[index - offset]++;
+    }
+
+    public QuantileSketch merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy: "
+                    + relativeAccuracy + " and " + other.relativeAccuracy);
+        }
+        if (other.count == 0) {
+            return this;
+        }
+
+        if (other.counts.length > 0) {
+            ensureCapacity(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    // q из [0, 1]; для пустого скетча - NaN
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]: " + q);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = (long) Math.floor(q * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // Середина корзины (gamma^(i-1), gamma^i] в смысле относительной ошибки
+                double value = 2 * Math.exp((offset + i) * logGamma) / (1 + Math.exp(logGamma));
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() { return count; }
+    public double getRelativeAccuracy() { return relativeAccuracy; }
+
+    public double getMin() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    public double getMax() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    // Компактная форма для хранения: только занятый диапазон корзин
+    public byte[] toBytes() {
+        int first = 0;
+        int last = counts.length - 1;
+        while (first <= last && counts[first] == 0) {
+            first++;
+        }
+        while (last >= first && counts[last] == 0) {
+            last--;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + (last - first + 1) * Long.BYTES);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeDouble(relativeAccuracy);
+            out.writeLong(count);
+            out.writeLong(zeroCount);
+            out.writeDouble(min);
+            out.writeDouble(max);
+            out.writeInt(offset + first);
+            out.writeInt(Math.max(0, last - first + 1));
+            for (int i = first; i <= last; i++) {
+                out.writeLong(counts[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch format: " + version);
+            }
+            QuantileSketch sketch = new QuantileSketch(in.readDouble());
+            sketch.count = in.readLong();
+            sketch.zeroCount = in.readLong();
+            sketch.min = in.readDouble();
+            sketch.max = in.readDouble();
+            sketch.offset = in.readInt();
+            sketch.counts = new long[in.readInt()];
+            for (int i = 0; i < sketch.counts.length; i++) {
+                sketch.counts[i] = in.readLong();
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupted sketch", e);
+        }
+    }
+
+    // Расширяет массив так, чтобы в него попадали корзины [fromIndex, toIndex]
+    private void ensureCapacity(int fromIndex, int toIndex) {
+        if (counts.length == 0) {
+            offset = fromIndex;
+            counts = new long[toIndex - fromIndex + 1];
+            return;
+        }
+        int newOffset = Math.min(offset, fromIndex);
+        int newEnd = Math.max(offset + counts.length - 1, toIndex);
+        if (newOffset == offset && newEnd == offset + counts.length - 1) {
+            return;
+        }
+        long[] grown = new long[newEnd - newOffset + 1];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QuantileSketch{count=%d, buckets=%d, accuracy=%s}",
+                count, counts.length, relativeAccuracy);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.klosep.performance_management.model;
+
+// Куда TaskParsingService сохраняет загруженные задачи
+public enum SinkType {
+    JPA,    // TaskJpaRepository.saveAll - по INSERT на строку (IDENTITY отключает batching)
+    COPY,   // PostgreSQL COPY ... FROM STDIN одним потоком
+    MONGO   // MongoDB, неупорядоченные BulkOperations пачками
+}
@@ -0,0 +1,128 @@
+package ru.klosep.performance_management.model;
+
+import java.util.Arrays;
+import java.util.stream.Collector;
+
+/**
+ * Накопитель статистики по задачам за один проход.
+ * <p>
+ * Хранит только счётчики-примитивы: {@link #accept} ничего не аллоцирует,
+ * поэтому память не зависит от числа задач. Частичные накопители по разным
+ * частям данных (диапазоны файла, шарды, источники) сливаются через
+ * {@link #merge} без потери точности - все поля суммируются.
+ * {@link #remove} вычитает задачу - так агрегат поддерживается при изменениях.
+ * <p>
+ * Длина названия - в кодовых точках Unicode, как {@code char_length} в
+ * PostgreSQL и {@code $strLenCP} в MongoDB: агрегаты, посчитанные в БД, совпадают
+ * с посчитанными здесь. Задача без названия - длина 0.
+ * Экземпляр не потокобезопасен.
+ */
+public final class TaskStatistics {
+
+    // Гистограмма длин названий: корзины по 10 символов, последняя - 150 и больше
+    public static final int HISTOGRAM_BUCKET_WIDTH = 10;
+    public static final int HISTOGRAM_BUCKETS = 16;
+
+    private long total;
+    private long completed;
+    private long titleLengthSum;
+    private long[] titleLengthHistogram = new long[HISTOGRAM_BUCKETS];
+
+    public void accept(Task task) {
+        add(task, 1);
+    }
+
+    public void remove(Task task) {
+        add(task, -1);
+    }
+
+    // Строка агрегата, посчитанного на стороне БД: задачи одной корзины гистограммы
+    public void acceptBucket(int bucket, long count, long completedCount, long titleLengths) {
+        total += count;
+        completed += completedCount;
+        titleLengthSum += titleLengths;
+        titleLengthHistogram[Math.max(0, Math.min(bucket, HISTOGRAM_BUCKETS - 1))] += count;
+    }
+
+    // Добавляет к этому накопителю другой; порядок слияния не важен
+    public TaskStatistics merge(TaskStatistics other) {
+        total += other.total;
+        completed += other.completed;
+        titleLengthSum += other.titleLengthSum;
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) {
+            titleLengthHistogram[i] += other.titleLengthHistogram[i];
+        }
+        return this;
+    }
+
+    public TaskStatistics copy() {
+        return new TaskStatistics().merge(this);
+    }
+
+    // Для stream.parallel().collect(...): каждый поток копит свой накопитель
+    public static Collector<Task, TaskStatistics, TaskStatistics> collector() {
+        return Collector.of(TaskStatistics::new, TaskStatistics::accept, TaskStatistics::merge,
+                Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    // Кодовые точки, а не UTF-16: символ вне BMP (эмодзи) - один символ, а не два
+    public static int titleLength(Task task) {
+        String title = task.getTitle();
+        return title != null ? title.codePointCount(0, title.length()) : 0;
+    }
+
+    private void add(Task task, int sign) {
+        total += sign;
+        if (task.isCompleted()) {
+            completed += sign;
+        }
+        int length = titleLength(task);
+        titleLengthSum += sign * (long) length;
+        titleLengthHistogram[Math.min(length / HISTOGRAM_BUCKET_WIDTH, HISTOGRAM_BUCKETS - 1)] += sign;
+    }
+
+    // Геттеры и сеттеры (сеттеры - для десериализации)
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public long getCompleted() { return completed; }
+    public void setCompleted(long completed) { this.completed = completed; }
+    public long getTitleLengthSum() { return titleLengthSum; }
+    public void setTitleLengthSum(long titleLengthSum) { this.titleLengthSum = titleLengthSum; }
+    public long[] getTitleLengthHistogram() { return titleLengthHistogram.clone(); }
+    public void setTitleLengthHistogram(long[] histogram) {
+        this.titleLengthHistogram = Arrays.copyOf(histogram, HISTOGRAM_BUCKETS);
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public double getCompletionRate() {
+        return total == 0 ? 0.0 : (double) completed / total;
+    }
+
+    public double getAverageTitleLength() {
+        return total == 0 ? 0.0 : (double) titleLengthSum / total;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TaskStatistics other)) return false;
+        return total == other.total
+                && completed == other.completed
+                && titleLengthSum == other.titleLengthSum
+                && Arrays.equals(titleLengthHistogram, other.titleLengthHistogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(total) + Arrays.hashCode(titleLengthHistogram);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TaskStatistics{total=%d, completed=%d, titleLengthSum=%d}",
+                total, completed, titleLengthSum);
+    }
+}
@@ -22,6 +22,11 @@ public class TaskDocument {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
+    // id записи в исходном файле и хеш её содержимого (ImportMode.UPSERT)
+    @Indexed(unique = true, sparse = true)
+    private Long sourceId;
+    private Long contentHash;
+
     // Конструкторы
     public TaskDocument() {
         this.createdAt = LocalDateTime.now();
@@ -47,6 +52,10 @@ public class TaskDocument {
     public void setCompleted(Boolean completed) { this.completed = completed; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public Long getSourceId() { return sourceId; }
+    public void setSourceId(Long sourceId) { this.sourceId = sourceId; }
+    public Long getContentHash() { return contentHash; }
+    public void setContentHash(Long contentHash) { this.contentHash = contentHash; }
 
     public void updateTimestamp() {
         this.updatedAt = LocalDateTime.now();
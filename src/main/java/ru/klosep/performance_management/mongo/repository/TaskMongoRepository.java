@@ -1,5 +1,7 @@
 package ru.klosep.performance_management.mongo.repository;
 
+import org.bson.Document;
+import org.springframework.data.mongodb.repository.Aggregation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -15,6 +17,18 @@ public interface TaskMongoRepository extends MongoRepository<TaskDocument, Strin
 
     List<TaskDocument> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
 
+    // Агрегаты для анализа считаются в MongoDB - по документу на корзину гистограммы длин
+    // названий (ширина 10, последняя корзина 15, как в TaskStatistics). Длина - в кодовых точках,
+    // нет названия - длина 0, как в TaskStatistics.titleLength
+    @Aggregation(pipeline = {
+            "{ $project: { completed: 1, titleLength: { $strLenCP: { $ifNull: ['$title', ''] } } } }",
+            "{ $group: { _id: { $min: [ { $floor: { $divide: ['$titleLength', 10] } }, 15 ] }, " +
+                    "total: { $sum: 1 }, " +
+                    "completed: { $sum: { $cond: ['$completed', 1, 0] } }, " +
+                    "titleLengthSum: { $sum: '$titleLength' } } }"
+    })
+    List<Document> aggregateByTitleLength();
+
     @Query("{ 'completed': ?0, 'createdAt': { $gte: ?1 } }")
     List<TaskDocument> findCompletedTasksAfterDate(Boolean completed, LocalDateTime start);
 }
\ No newline at end of file
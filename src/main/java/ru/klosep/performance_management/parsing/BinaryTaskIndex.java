@@ -0,0 +1,202 @@
+package ru.klosep.performance_management.parsing;
+
+import ru.klosep.performance_management.model.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Файл-индекс рядом с бинарным файлом задач: id → смещение записи.
+ * <p>
+ * Внутри - хеш-таблица с открытой адресацией (линейное пробирование,
+ * заполнение не больше 50%), отображённая в память. Поиск по id - O(1)
+ * без сканирования данных и почти без аллокаций. В заголовке хранятся размер
+ * и время изменения файла данных, чтобы устаревший индекс не использовался.
+ * <p>
+ * Формат: {@code magic(4) version(4) dataSize(8) dataModified(8) capacity(8) count(8)},
+ * выравнивание до 64 байт, затем {@code capacity} слотов {@code id(8) offset(8)}.
+ * Смещение 0 - пустой слот (записи начинаются после заголовка файла данных).
+ */
+public class BinaryTaskIndex implements Closeable {
+
+    private static final int MAGIC = 0x54494458; // "TIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 16;
+    private static final long WINDOW_SIZE = 1L << 30; // кратно SLOT_SIZE
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] windows;
+    private final long mask;
+    private final long count;
+
+    private BinaryTaskIndex(FileChannel channel, FileChannel.MapMode mode, long capacity, long count)
+            throws IOException {
+        this.channel = channel;
+        this.mask = capacity - 1;
+        this.count = count;
+
+        long slotsSize = capacity * SLOT_SIZE;
+        int windowCount = (int) ((slotsSize + WINDOW_SIZE - 1) / WINDOW_SIZE);
+        this.windows = new MappedByteBuffer[windowCount];
+        for (int i = 0; i < windowCount; i++) {
+            long start = i * WINDOW_SIZE;
+            windows[i] = channel.map(mode, HEADER_SIZE + start, Math.min(WINDOW_SIZE, slotsSize - start));
+        }
+    }
+
+    public static Path defaultIndexPath(Path dataFile) {
+        return dataFile.resolveSibling(dataFile.getFileName() + ".idx");
+    }
+
+    /**
+     * Открывает индекс, если он соответствует текущему файлу данных.
+     *
+     * @return {@code null}, если индекса нет или он устарел
+     */
+    public static BinaryTaskIndex open(Path dataFile, Path indexFile) throws IOException {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+
+        FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                channel.close();
+                return null;
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            boolean valid = header.getInt(0) == MAGIC
+                    && header.getInt(4) == VERSION
+                    && header.getLong(8) == Files.size(dataFile)
+                    && header.getLong(16) == Files.getLastModifiedTime(dataFile).toMillis();
+            long capacity = header.getLong(24);
+            if (!valid || channel.size() != HEADER_SIZE + capacity * SLOT_SIZE) {
+                channel.close();
+                return null;
+            }
+            return new BinaryTaskIndex(channel, FileChannel.MapMode.READ_ONLY, capacity, header.getLong(32));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Строит индекс одним последовательным проходом по файлу данных.
+    // Заголовок пишется последним: недостроенный индекс open() не примет.
+    public static BinaryTaskIndex build(Path dataFile, Path indexFile) throws IOException {
+        long dataSize = Files.size(dataFile);
+        long dataModified = Files.getLastModifiedTime(dataFile).toMillis();
+
+        try (FileChannel data = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            long expected = Math.max(BinaryTaskReader.readCount(data), 1);
+            long capacity = Long.highestOneBit(expected * 2 - 1) << 1;
+            capacity = Math.max(capacity, 16);
+
+            try (FileChannel out = FileChannel.open(indexFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Файл растягивается до полного размера, незаписанные слоты - нули (пусто)
+                out.write(ByteBuffer.allocate(1), HEADER_SIZE + capacity * SLOT_SIZE - 1);
+
+                BinaryTaskIndex index = new BinaryTaskIndex(out, FileChannel.MapMode.READ_WRITE, capacity, 0);
+                BinaryTaskReader reader = new BinaryTaskReader(data);
+                long count = 0;
+                Task task;
+                while ((task = reader.nextTask()) != null) {
+                    if (count * 2 >= capacity) {
+                        throw new IOException("Binary task file has more records than its header declares");
+                    }
+                    if (index.put(task.getId(), reader.recordOffset())) {
+                        count++;
+                    }
+                }
+                for (MappedByteBuffer window : index.windows) {
+                    window.force();
+                }
+
+                MappedByteBuffer header = out.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(8, dataSize);
+                header.putLong(16, dataModified);
+                header.putLong(24, capacity);
+                header.putLong(32, count);
+                header.force();
+            }
+        }
+
+        BinaryTaskIndex index = open(dataFile, indexFile);
+        if (index == null) {
+            throw new IOException("Data file changed while building index: " + dataFile);
+        }
+        return index;
+    }
+
+    // Смещение записи в файле данных или -1
+    public long offsetOf(long id) {
+        long slot = mix(id) & mask;
+        while (true) {
+            long offset = readLong(slot, 8);
+            if (offset == 0) {
+                return -1;
+            }
+            if (readLong(slot, 0) == id) {
+                return offset;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // true - новый id, false - перезаписан существующий (последняя запись побеждает)
+    private boolean put(long id, long offset) {
+        long slot = mix(id) & mask;
+        while (true) {
+            long existing = readLong(slot, 8);
+            if (existing == 0) {
+                writeLong(slot, 0, id);
+                writeLong(slot, 8, offset);
+                return true;
+            }
+            if (readLong(slot, 0) == id) {
+                writeLong(slot, 8, offset);
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private long readLong(long slot, int field) {
+        long position = slot * SLOT_SIZE;
+        return windows[(int) (position / WINDOW_SIZE)].getLong((int) (position % WINDOW_SIZE) + field);
+    }
+
+    private void writeLong(long slot, int field, long value) {
+        long position = slot * SLOT_SIZE;
+        windows[(int) (position / WINDOW_SIZE)].putLong((int) (position % WINDOW_SIZE) + field, value);
+    }
+
+    // Финализатор MurmurHash3: последовательные id равномерно расходятся по таблице
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
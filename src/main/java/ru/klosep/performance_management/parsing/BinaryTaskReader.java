@@ -0,0 +1,199 @@
+package ru.klosep.performance_management.parsing;
+
+import ru.klosep.performance_management.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Чтение бинарного формата {@code DataGenerator.generateBinaryDataset}:
+ * {@code count(4)}, затем записи {@code id(8) titleLen(4) title descLen(4) desc completed(1)},
+ * big-endian, строки в UTF-8.
+ * <p>
+ * Числа читаются прямо из буфера, строки создаются только для title и description.
+ * Экземпляр не потокобезопасен; {@link #readAt} можно вызывать из разных потоков.
+ */
+public class BinaryTaskReader implements TaskRecordReader {
+
+    public static final int HEADER_SIZE = 4;
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_STRING_BYTES = 64 * 1024 * 1024;
+    private static final int PROBE_SIZE = 512;
+
+    private final FileChannel channel;
+    private final long end;
+
+    private ByteBuffer buffer;
+    private long bufferOffset; // смещение buffer[0] в файле
+    private long recordOffset;
+
+    // start - начало записи (HEADER_SIZE для чтения с начала)
+    public BinaryTaskReader(FileChannel channel, long start) throws IOException {
+        this.channel = channel;
+        this.end = channel.size();
+        this.buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        this.buffer.limit(0);
+        this.bufferOffset = start;
+    }
+
+    public BinaryTaskReader(FileChannel channel) throws IOException {
+        this(channel, HEADER_SIZE);
+    }
+
+    // Количество записей из заголовка файла
+    public static int readCount(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Binary task file is shorter than its header");
+            }
+        }
+        return header.getInt(0);
+    }
+
+    // Одна запись по известному смещению (для индекса)
+    public static Task readAt(FileChannel channel, long offset) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(PROBE_SIZE);
+        readFully(channel, probe, offset, true);
+        probe.flip();
+
+        if (probe.remaining() < 12) {
+            throw new IOException("Truncated record at offset " + offset);
+        }
+        int titleLength = checkLength(probe.getInt(8), offset);
+        int descLengthAt = 12 + titleLength;
+        if (probe.remaining() < descLengthAt + 4) {
+            return readFullRecord(channel, offset, descLengthAt + 4);
+        }
+        int descLength = checkLength(probe.getInt(descLengthAt), offset);
+        int recordSize = descLengthAt + 4 + descLength + 1;
+        if (probe.remaining() < recordSize) {
+            return readFullRecord(channel, offset, recordSize);
+        }
+        return decode(probe, offset);
+    }
+
+    @Override
+    public Task nextTask() throws IOException {
+        if (!ensure(12)) {
+            return null;
+        }
+        recordOffset = bufferOffset + buffer.position();
+
+        long id = buffer.getLong();
+        int titleLength = checkLength(buffer.getInt(), recordOffset);
+        require(titleLength + 4);
+        String title = readString(titleLength);
+
+        int descLength = checkLength(buffer.getInt(), recordOffset);
+        require(descLength + 1);
+        String description = readString(descLength);
+        boolean completed = buffer.get() != 0;
+
+        return new Task(id, title, description, completed);
+    }
+
+    @Override
+    public long position() {
+        return bufferOffset + buffer.position();
+    }
+
+    // Смещение начала последней прочитанной записи
+    public long recordOffset() {
+        return recordOffset;
+    }
+
+    private String readString(int length) {
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    private void require(int bytes) throws IOException {
+        if (!ensure(bytes)) {
+            throw new IOException("Truncated record at offset " + recordOffset);
+        }
+    }
+
+    // Гарантирует bytes непрочитанных байтов в буфере. false - конец файла ровно на границе записи
+    private boolean ensure(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+
+        long fileOffset = bufferOffset + buffer.limit();
+        bufferOffset += buffer.position();
+        if (buffer.capacity() < bytes) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(bytes, buffer.capacity() * 2));
+            grown.put(buffer);
+            buffer = grown;
+        } else {
+            buffer.compact();
+        }
+
+        while (buffer.position() < bytes && fileOffset < end) {
+            int read = channel.read(buffer, fileOffset);
+            if (read < 0) {
+                break;
+            }
+            fileOffset += read;
+        }
+        buffer.flip();
+
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        if (buffer.remaining() == 0) {
+            return false;
+        }
+        throw new IOException("Truncated record at offset " + (bufferOffset + buffer.position()));
+    }
+
+    private static Task readFullRecord(FileChannel channel, long offset, int knownSize) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(knownSize);
+        readFully(channel, head, offset, false);
+        int descLength = checkLength(head.getInt(knownSize - 4), offset);
+
+        ByteBuffer record = ByteBuffer.allocate(knownSize + descLength + 1);
+        readFully(channel, record, offset, false);
+        record.flip();
+        return decode(record, offset);
+    }
+
+    private static Task decode(ByteBuffer record, long offset) throws IOException {
+        long id = record.getLong();
+        int titleLength = checkLength(record.getInt(), offset);
+        String title = new String(record.array(), record.position(), titleLength, StandardCharsets.UTF_8);
+        record.position(record.position() + titleLength);
+        int descLength = checkLength(record.getInt(), offset);
+        String description = new String(record.array(), record.position(), descLength, StandardCharsets.UTF_8);
+        record.position(record.position() + descLength);
+        return new Task(id, title, description, record.get() != 0);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer target, long offset,
+                                  boolean allowShort) throws IOException {
+        long position = offset;
+        while (target.hasRemaining()) {
+            int read = channel.read(target, position);
+            if (read < 0) {
+                if (allowShort) {
+                    return;
+                }
+                throw new IOException("Truncated record at offset " + offset);
+            }
+            position += read;
+        }
+    }
+
+    private static int checkLength(int length, long offset) throws IOException {
+        if (length < 0 || length > MAX_STRING_BYTES) {
+            throw new IOException("Corrupt string length " + length + " in record at offset " + offset);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,421 @@
+package ru.klosep.performance_management.parsing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ru.klosep.performance_management.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Конвейер загрузки CSV: чтение → разбор и валидация → запись в БД.
+ * <p>
+ * Стадии работают одновременно на виртуальных потоках и связаны очередями
+ * ограниченного размера, поэтому диск и БД загружены параллельно: пока
+ * writer сохраняет чанк, следующие блоки уже читаются и разбираются.
+ * Заполненная очередь останавливает предыдущую стадию (backpressure).
+ * <ul>
+ *     <li>reader (1 поток) - читает блоки байтов и режет их по концу
+ *     последней целой записи с учётом кавычек;</li>
+ *     <li>parse ({@code parseThreads}) - {@link CsvTaskTokenizer} по блоку
+ *     на месте и валидация;</li>
+ *     <li>write ({@code writerThreads}) - сохранение. При одном writer-е
+ *     чанки пишутся строго в порядке файла.</li>
+ * </ul>
+ * Порядок обеспечивает очередь результатов: reader кладёт туда future блока
+ * в момент чтения, writer забирает их по очереди и ждёт завершения разбора.
+ * При ошибке в любой стадии остальные останавливаются без прерывания потоков.
+ */
+public class CsvIngestPipeline {
+
+    private static final long POLL_MS = 100;
+    private static final CompletableFuture<ParsedChunk> END_OF_CHUNKS = new CompletableFuture<>();
+
+    private final int parseThreads;
+    private final int writerThreads;
+    private final int queueCapacity;
+    private final int blockSize;
+    private final Metrics metrics;
+
+    public CsvIngestPipeline(int parseThreads, int writerThreads, int queueCapacity, int blockSize,
+                             Metrics metrics) {
+        this.parseThreads = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        this.writerThreads = Math.max(1, writerThreads);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.blockSize = Math.max(1024, blockSize);
+        this.metrics = metrics;
+    }
+
+    public boolean isOrdered() {
+        return writerThreads == 1;
+    }
+
+    /**
+     * Загружает файл, начиная с границы записи {@code startOffset} (0 - после заголовка).
+     *
+     * @param validator фильтр задач, выполняется в стадии разбора
+     * @param writer    сохранение чанка; вызывается из потоков стадии записи
+     */
+    public void run(Path file, long startOffset, UnaryOperator<List<Task>> validator,
+                    ChunkWriter writer) throws Exception {
+        BlockingQueue<RawBlock> rawQueue = new ArrayBlockingQueue<>(queueCapacity + parseThreads);
+        BlockingQueue<CompletableFuture<ParsedChunk>> parsedQueue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            long dataStart = startOffset > 0 ? startOffset : headerEnd(channel);
+
+            executor.submit(() -> stage(failure, () ->
+                    read(channel, dataStart, rawQueue, parsedQueue, failure)));
+            for (int i = 0; i < parseThreads; i++) {
+                executor.submit(() -> stage(failure, () -> parse(rawQueue, validator, failure)));
+            }
+            for (int i = 0; i < writerThreads; i++) {
+                executor.submit(() -> stage(failure, () -> write(parsedQueue, writer, failure)));
+            }
+        } finally {
+            // После ошибки в очередях могут остаться блоки - не оставляем их в gauge
+            metrics.rawDepth.addAndGet(-rawQueue.size());
+            metrics.parsedDepth.addAndGet(-parsedQueue.size());
+        }
+
+        Throwable error = failure.get();
+        if (error instanceof Exception e) {
+            throw e;
+        }
+        if (error != null) {
+            throw new IllegalStateException(error);
+        }
+    }
+
+    // Стадия 1: блоки байтов, обрезанные по границе записи
+    private void read(FileChannel channel, long dataStart,
+                      BlockingQueue<RawBlock> rawQueue,
+                      BlockingQueue<CompletableFuture<ParsedChunk>> parsedQueue,
+                      AtomicReference<Throwable> failure) throws Exception {
+        long size = channel.size();
+        long position = dataStart;
+        byte[] carry = new byte[0];
+        int sequence = 0;
+        boolean eof = position >= size;
+
+        while (failure.get() == null) {
+            long busyStart = System.nanoTime();
+            byte[] block = Arrays.copyOf(carry, carry.length + blockSize);
+            int length = carry.length;
+            while (length < block.length && !eof) {
+                int read = channel.read(ByteBuffer.wrap(block, length, block.length - length), position);
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+                length += read;
+                position += read;
+                eof = position >= size;
+            }
+            if (length == 0) {
+                break;
+            }
+
+            int cut = eof ? length : lastRecordEnd(block, length);
+            if (cut == 0) {
+                // Запись длиннее блока - дочитываем следующий блок к ней
+                carry = Arrays.copyOf(block, length);
+                continue;
+            }
+            carry = Arrays.copyOfRange(block, cut, length);
+            metrics.readBytes.increment(cut);
+            metrics.busy(Metrics.READ).record(System.nanoTime() - busyStart, TimeUnit.NANOSECONDS);
+
+            CompletableFuture<ParsedChunk> result = new CompletableFuture<>();
+            RawBlock raw = new RawBlock(sequence++, block, cut, position - carry.length, result);
+
+            // Сначала в очередь результатов - так writer видит блоки в порядке файла
+            if (!offer(parsedQueue, result, metrics.parsedDepth, Metrics.READ, failure)
+                    || !offer(rawQueue, raw, metrics.rawDepth, Metrics.READ, failure)) {
+                return;
+            }
+            if (eof) {
+                break;
+            }
+        }
+        if (failure.get() != null) {
+            return;
+        }
+
+        // Сигнал завершения каждому потоку следующих стадий
+        for (int i = 0; i < parseThreads; i++) {
+            if (!offer(rawQueue, RawBlock.END, metrics.rawDepth, Metrics.READ, failure)) {
+                return;
+            }
+        }
+        for (int i = 0; i < writerThreads; i++) {
+            if (!offer(parsedQueue, END_OF_CHUNKS, metrics.parsedDepth, Metrics.READ, failure)) {
+                return;
+            }
+        }
+    }
+
+    // Стадия 2: разбор блока на месте и валидация
+    private void parse(BlockingQueue<RawBlock> rawQueue, UnaryOperator<List<Task>> validator,
+                       AtomicReference<Throwable> failure) throws InterruptedException {
+        while (true) {
+            RawBlock raw = poll(rawQueue, metrics.rawDepth, Metrics.PARSE, failure);
+            if (raw == null || raw == RawBlock.END) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(raw.data, 0, raw.length);
+                List<Task> tasks = new ArrayList<>();
+                Task task;
+                while ((task = tokenizer.nextTask()) != null) {
+                    tasks.add(task);
+                }
+                List<Task> valid = validator.apply(tasks);
+                long parseNanos = System.nanoTime() - start;
+
+                metrics.parsedRecords.increment(tasks.size());
+                metrics.busy(Metrics.PARSE).record(parseNanos, TimeUnit.NANOSECONDS);
+                raw.result.complete(new ParsedChunk(raw.sequence, valid, tasks.size(), raw.endOffset, parseNanos));
+            } catch (Throwable e) {
+                // Ошибку увидит writer, дойдя до этого блока
+                raw.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Стадия 3: сохранение
+    private void write(BlockingQueue<CompletableFuture<ParsedChunk>> parsedQueue, ChunkWriter writer,
+                       AtomicReference<Throwable> failure) throws Exception {
+        while (true) {
+            CompletableFuture<ParsedChunk> next = poll(parsedQueue, metrics.parsedDepth, Metrics.WRITE, failure);
+            if (next == null || next == END_OF_CHUNKS) {
+                return;
+            }
+
+            ParsedChunk chunk = await(next, failure);
+            if (chunk == null) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            int saved = writer.write(chunk);
+            metrics.writtenRecords.increment(saved);
+            metrics.busy(Metrics.WRITE).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void stage(AtomicReference<Throwable> failure, StageBody body) {
+        try {
+            body.run();
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    // Ожидание результата разбора; время ожидания - простой writer-а
+    private ParsedChunk await(CompletableFuture<ParsedChunk> future,
+                              AtomicReference<Throwable> failure) throws Exception {
+        long start = System.nanoTime();
+        try {
+            while (failure.get() == null) {
+                try {
+                    return future.get(POLL_MS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException ignored) {
+                    // проверяем, не упала ли другая стадия
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Exception cause) {
+                        throw cause;
+                    }
+                    throw e;
+                }
+            }
+            return null;
+        } finally {
+            metrics.stall(Metrics.WRITE).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> boolean offer(BlockingQueue<T> queue, T item, AtomicInteger depth, String stage,
+                              AtomicReference<Throwable> failure) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            while (failure.get() == null) {
+                if (queue.offer(item, POLL_MS, TimeUnit.MILLISECONDS)) {
+                    depth.incrementAndGet();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            metrics.stall(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> T poll(BlockingQueue<T> queue, AtomicInteger depth, String stage,
+                       AtomicReference<Throwable> failure) throws InterruptedException {
+        long start = System.nanoTime();
+        try {
+            while (failure.get() == null) {
+                T item = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    depth.decrementAndGet();
+                    return item;
+                }
+            }
+            return null;
+        } finally {
+            metrics.stall(stage).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Позиция сразу за последним переводом строки вне кавычек; 0 - целой записи нет.
+    // Блок всегда начинается с начала записи, поэтому чётность кавычек считаем с нуля.
+    static int lastRecordEnd(byte[] data, int length) {
+        boolean inQuotes = false;
+        int end = 0;
+        for (int i = 0; i < length; i++) {
+            byte b = data[i];
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                end = i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static long headerEnd(FileChannel channel) throws IOException {
+        CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel);
+        return tokenizer.nextRecord() ? tokenizer.position() : channel.size();
+    }
+
+    @FunctionalInterface
+    public interface ChunkWriter {
+        // Возвращает количество сохранённых записей
+        int write(ParsedChunk chunk) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface StageBody {
+        void run() throws Exception;
+    }
+
+    private static class RawBlock {
+        static final RawBlock END = new RawBlock(-1, new byte[0], 0, -1, null);
+
+        final int sequence;
+        final byte[] data;
+        final int length;
+        final long endOffset;
+        final CompletableFuture<ParsedChunk> result;
+
+        RawBlock(int sequence, byte[] data, int length, long endOffset, CompletableFuture<ParsedChunk> result) {
+            this.sequence = sequence;
+            this.data = data;
+            this.length = length;
+            this.endOffset = endOffset;
+            this.result = result;
+        }
+    }
+
+    public static class ParsedChunk {
+        public final int sequence;
+        public final List<Task> tasks;     // прошедшие валидацию
+        public final int recordsRead;
+        public final long endOffset;       // смещение сразу за последней записью блока
+        public final long parseNanos;
+
+        public ParsedChunk(int sequence, List<Task> tasks, int recordsRead, long endOffset, long parseNanos) {
+            this.sequence = sequence;
+            this.tasks = tasks;
+            this.recordsRead = recordsRead;
+            this.endOffset = endOffset;
+            this.parseNanos = parseNanos;
+        }
+    }
+
+    /**
+     * Метрики стадий. Создаются один раз и разделяются между запусками:
+     * глубина очередей - сумма по всем идущим загрузкам.
+     */
+    public static class Metrics {
+        static final String READ = "read";
+        static final String PARSE = "parse";
+        static final String WRITE = "write";
+
+        private final MeterRegistry registry;
+        private final Counter readBytes;
+        private final Counter parsedRecords;
+        private final Counter writtenRecords;
+        private final AtomicInteger rawDepth = new AtomicInteger();
+        private final AtomicInteger parsedDepth = new AtomicInteger();
+
+        public Metrics(MeterRegistry registry) {
+            this.registry = registry;
+
+            this.readBytes = Counter.builder("task.parsing.pipeline.read.bytes")
+                    .description("Bytes handed from the reader to the parse stage")
+                    .register(registry);
+
+            this.parsedRecords = Counter.builder("task.parsing.pipeline.records")
+                    .description("Records processed by pipeline stage")
+                    .tag("stage", PARSE)
+                    .register(registry);
+
+            this.writtenRecords = Counter.builder("task.parsing.pipeline.records")
+                    .description("Records processed by pipeline stage")
+                    .tag("stage", WRITE)
+                    .register(registry);
+
+            Gauge.builder("task.parsing.pipeline.queue.depth", rawDepth, AtomicInteger::get)
+                    .description("Blocks waiting between pipeline stages")
+                    .tag("queue", "raw")
+                    .register(registry);
+
+            Gauge.builder("task.parsing.pipeline.queue.depth", parsedDepth, AtomicInteger::get)
+                    .description("Blocks waiting between pipeline stages")
+                    .tag("queue", "parsed")
+                    .register(registry);
+        }
+
+        // Время, которое стадия простаивала: ждала входа или места в очереди
+        Timer stall(String stage) {
+            return Timer.builder("task.parsing.pipeline.stall")
+                    .description("Time a pipeline stage spent blocked on its queues")
+                    .tag("stage", stage)
+                    .register(registry);
+        }
+
+        // Время полезной работы стадии
+        Timer busy(String stage) {
+            return Timer.builder("task.parsing.pipeline.busy")
+                    .description("Time a pipeline stage spent doing work")
+                    .tag("stage", stage)
+                    .register(registry);
+        }
+    }
+}
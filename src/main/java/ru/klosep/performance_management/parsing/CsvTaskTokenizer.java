@@ -0,0 +1,405 @@
+package ru.klosep.performance_management.parsing;
+
+import ru.klosep.performance_management.model.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Потоковый CSV-токенизатор по RFC 4180, работающий прямо с байтами.
+ * <p>
+ * Поля не копируются в промежуточные строки: токенизатор хранит только
+ * границы полей внутри своего буфера, а {@code long}/{@code boolean}
+ * разбираются из байтов напрямую. Строки создаются только для текстовых
+ * полей задачи. Кавычки, экранированные кавычки ({@code ""}), запятые и
+ * переводы строк внутри кавычек обрабатываются корректно.
+ * <p>
+ * Источник - {@link FileChannel} (диапазон байтов), {@link ByteBuffer}
+ * (в том числе {@link java.nio.MappedByteBuffer}) или готовый массив байтов.
+ * Экземпляр не потокобезопасен.
+ */
+public class CsvTaskTokenizer implements TaskRecordReader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FIELDS = 16;
+    private static final int NEED_MORE = -1;
+
+    private final ByteSource source;
+
+    private byte[] buffer;
+    private int pos;            // начало следующей записи в буфере
+    private int limit;          // конец прочитанных данных
+    private long bufferOffset;  // смещение buffer[0] в источнике
+    private boolean eof;
+    private boolean keepPartialTail;
+
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    private final boolean[] fieldEscaped = new boolean[MAX_FIELDS];
+    private int fieldCount;
+    private long recordOffset;
+
+    private byte[] scratch = new byte[256];
+
+    // Диапазон [start, end) файла; start должен указывать на начало записи
+    public CsvTaskTokenizer(FileChannel channel, long start, long end) {
+        this.source = new ChannelSource(channel, start, end);
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+        this.bufferOffset = start;
+    }
+
+    // Для дописываемых файлов: запись без завершающего перевода строки в конце диапазона
+    // не разбирается (её ещё пишут), position() остаётся на её начале
+    public CsvTaskTokenizer(FileChannel channel, long start, long end, boolean keepPartialTail) {
+        this(channel, start, end);
+        this.keepPartialTail = keepPartialTail;
+    }
+
+    public CsvTaskTokenizer(FileChannel channel) throws IOException {
+        this(channel, 0, channel.size());
+    }
+
+    public CsvTaskTokenizer(ByteBuffer data) {
+        ByteBuffer view = data.slice();
+        this.source = (dst, off, len) -> {
+            int n = Math.min(len, view.remaining());
+            if (n <= 0) {
+                return -1;
+            }
+            view.get(dst, off, n);
+            return n;
+        };
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    // Массив разбирается на месте, без копирования
+    public CsvTaskTokenizer(byte[] data, int offset, int length) {
+        this.source = (dst, off, len) -> -1;
+        this.buffer = data;
+        this.pos = offset;
+        this.limit = offset + length;
+        this.bufferOffset = 0;
+        this.eof = true;
+    }
+
+    /**
+     * Переходит к следующей непустой записи.
+     *
+     * @return {@code false}, если данные закончились
+     */
+    public boolean nextRecord() throws IOException {
+        while (true) {
+            if (pos >= limit && !fill()) {
+                return false;
+            }
+            if (pos >= limit) {
+                continue;
+            }
+
+            int end = scanRecord(pos);
+            if (end == NEED_MORE) {
+                if (!fill()) {
+                    return false; // незавершённая запись в конце (keepPartialTail)
+                }
+                continue;
+            }
+
+            recordOffset = bufferOffset + pos;
+            pos = end;
+
+            if (!isBlankRecord()) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Читает следующую задачу (id, title, description, completed).
+     * Записи, в которых меньше четырёх полей, пропускаются.
+     *
+     * @return задачу или {@code null}, если данные закончились
+     */
+    @Override
+    public Task nextTask() throws IOException {
+        while (nextRecord()) {
+            if (fieldCount >= 4) {
+                return new Task(
+                        parseLong(0),
+                        string(1),
+                        string(2),
+                        parseBoolean(3)
+                );
+            }
+        }
+        return null;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    // Смещение начала текущей записи в источнике
+    public long recordOffset() {
+        return recordOffset;
+    }
+
+    // Смещение сразу за текущей записью - отсюда можно продолжить чтение
+    @Override
+    public long position() {
+        return bufferOffset + pos;
+    }
+
+    public int fieldLength(int field) {
+        checkField(field);
+        return fieldEnd[field] - fieldStart[field];
+    }
+
+    public long parseLong(int field) {
+        checkField(field);
+        int p = fieldStart[field];
+        int end = fieldEnd[field];
+        if (p == end) {
+            throw new NumberFormatException("Empty numeric field " + field + " at offset " + recordOffset);
+        }
+
+        boolean negative = buffer[p] == '-';
+        if (negative || buffer[p] == '+') {
+            p++;
+        }
+        if (p == end) {
+            throw new NumberFormatException("Invalid numeric field " + field + " at offset " + recordOffset);
+        }
+
+        long result = 0;
+        for (; p < end; p++) {
+            int digit = buffer[p] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Invalid numeric field " + field + " at offset " + recordOffset);
+            }
+            // Накопление в отрицательную сторону, как в Long.parseLong
+            if (result < (Long.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("Numeric overflow in field " + field + " at offset " + recordOffset);
+            }
+            result = result * 10 - digit;
+        }
+
+        if (negative) {
+            return result;
+        }
+        if (result == Long.MIN_VALUE) {
+            throw new NumberFormatException("Numeric overflow in field " + field + " at offset " + recordOffset);
+        }
+        return -result;
+    }
+
+    // Та же семантика, что у Boolean.parseBoolean: true только для "true" без учёта регистра
+    public boolean parseBoolean(int field) {
+        checkField(field);
+        int p = fieldStart[field];
+        if (fieldEnd[field] - p != 4) {
+            return false;
+        }
+        return (buffer[p] | 0x20) == 't'
+                && (buffer[p + 1] | 0x20) == 'r'
+                && (buffer[p + 2] | 0x20) == 'u'
+                && (buffer[p + 3] | 0x20) == 'e';
+    }
+
+    public String string(int field) {
+        checkField(field);
+        int start = fieldStart[field];
+        int length = fieldEnd[field] - start;
+        if (!fieldEscaped[field]) {
+            return new String(buffer, start, length, StandardCharsets.UTF_8);
+        }
+
+        // Внутри поля есть "" - схлопываем в одну кавычку
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int n = 0;
+        for (int p = start; p < start + length; p++) {
+            byte b = buffer[p];
+            scratch[n++] = b;
+            if (b == '"') {
+                p++;
+            }
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private void checkField(int field) {
+        if (field < 0 || field >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + field + " of " + fieldCount
+                    + " at offset " + recordOffset);
+        }
+    }
+
+    private boolean isBlankRecord() {
+        return fieldCount == 1 && fieldEnd[0] == fieldStart[0];
+    }
+
+    // Возвращает позицию после записи или NEED_MORE, если запись не поместилась в буфер
+    private int scanRecord(int p) {
+        fieldCount = 0;
+        // Данных больше не будет и конец данных завершает запись
+        boolean complete = eof && !keepPartialTail;
+
+        while (true) {
+            int start;
+            int end;
+            boolean escaped = false;
+
+            if (buffer[p] == '"') {
+                start = ++p;
+                while (true) {
+                    if (p >= limit) {
+                        if (!complete) {
+                            return NEED_MORE;
+                        }
+                        end = p; // незакрытая кавычка в конце данных
+                        break;
+                    }
+                    if (buffer[p] == '"') {
+                        if (p + 1 >= limit && !complete) {
+                            return NEED_MORE;
+                        }
+                        if (p + 1 < limit && buffer[p + 1] == '"') {
+                            escaped = true;
+                            p += 2;
+                            continue;
+                        }
+                        end = p++;
+                        break;
+                    }
+                    p++;
+                }
+                // Всё, что стоит между закрывающей кавычкой и разделителем, игнорируем
+                while (p < limit && !isDelimiter(buffer[p])) {
+                    p++;
+                }
+            } else {
+                start = p;
+                while (p < limit && !isDelimiter(buffer[p])) {
+                    p++;
+                }
+                end = p;
+                while (start < end && buffer[start] == ' ') {
+                    start++;
+                }
+                while (end > start && buffer[end - 1] == ' ') {
+                    end--;
+                }
+            }
+
+            if (p >= limit && !complete) {
+                return NEED_MORE;
+            }
+
+            if (fieldCount < MAX_FIELDS) {
+                fieldStart[fieldCount] = start;
+                fieldEnd[fieldCount] = end;
+                fieldEscaped[fieldCount] = escaped;
+                fieldCount++;
+            }
+
+            if (p >= limit) {
+                return p; // последняя запись без перевода строки
+            }
+
+            byte b = buffer[p++];
+            if (b == ',') {
+                if (p >= limit) {
+                    if (!complete) {
+                        return NEED_MORE;
+                    }
+                    addEmptyField(p);
+                    return p;
+                }
+                continue;
+            }
+            if (b == '\r') {
+                if (p >= limit && !complete) {
+                    return NEED_MORE;
+                }
+                if (p < limit && buffer[p] == '\n') {
+                    p++;
+                }
+            }
+            return p;
+        }
+    }
+
+    private void addEmptyField(int at) {
+        if (fieldCount < MAX_FIELDS) {
+            fieldStart[fieldCount] = at;
+            fieldEnd[fieldCount] = at;
+            fieldEscaped[fieldCount] = false;
+            fieldCount++;
+        }
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '\n' || b == '\r';
+    }
+
+    // Дочитывает данные, сохраняя незавершённую запись. false - больше читать нечего.
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+
+        if (pos > 0) {
+            int remaining = limit - pos;
+            System.arraycopy(buffer, pos, buffer, 0, remaining);
+            bufferOffset += pos;
+            limit = remaining;
+            pos = 0;
+        } else if (limit == buffer.length) {
+            // Запись длиннее буфера
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        int read = source.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+        return true;
+    }
+
+    @FunctionalInterface
+    private interface ByteSource {
+        int read(byte[] dst, int offset, int length) throws IOException;
+    }
+
+    private static class ChannelSource implements ByteSource {
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        ChannelSource(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read(byte[] dst, int offset, int length) throws IOException {
+            long available = end - position;
+            if (available <= 0) {
+                return -1;
+            }
+            int n = (int) Math.min(length, available);
+            int read = channel.read(ByteBuffer.wrap(dst, offset, n), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+    }
+}
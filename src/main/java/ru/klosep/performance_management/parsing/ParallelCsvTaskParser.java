@@ -0,0 +1,244 @@
+package ru.klosep.performance_management.parsing;
+
+import ru.klosep.performance_management.model.Task;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Параллельный разбор CSV-файла по диапазонам байтов.
+ * <p>
+ * Файл режется на диапазоны, границы которых выравниваются по началу записи
+ * с учётом кавычек: перевод строки внутри кавычек границей не считается.
+ * Для этого первый проход параллельно считает в каждом диапазоне чётность
+ * кавычек и первые переводы строки для обоих возможных состояний на входе,
+ * а затем состояния последовательно сводятся от начала файла. Второй проход
+ * разбирает диапазоны {@link CsvTaskTokenizer}-ом на виртуальных потоках.
+ * <p>
+ * Результаты отдаются потребителю строго в порядке диапазонов. Одновременно
+ * в памяти находится не больше {@code maxInFlight} разобранных диапазонов.
+ */
+public class ParallelCsvTaskParser {
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    private final int parallelism;
+    private final long partitionBytes;
+    private final int maxInFlight;
+
+    public ParallelCsvTaskParser(int parallelism, long partitionBytes) {
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.partitionBytes = Math.max(partitionBytes, 1);
+        this.maxInFlight = this.parallelism * 2;
+    }
+
+    // Разбирает файл целиком и склеивает результаты в исходном порядке
+    public List<Task> parse(Path file) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        parseInOrder(file, partition -> tasks.addAll(partition.tasks));
+        return tasks;
+    }
+
+    // Разбирает файл параллельно, передавая диапазоны потребителю по порядку
+    public void parseInOrder(Path file, Consumer<Partition> consumer) throws IOException {
+        parseInOrder(file, 0, consumer);
+    }
+
+    // То же, начиная с границы записи startOffset (продолжение прерванной загрузки)
+    public void parseInOrder(Path file, long startOffset, Consumer<Partition> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            List<FileRange> ranges = split(channel, executor, startOffset);
+            Deque<Future<Partition>> inFlight = new ArrayDeque<>();
+            int next = 0;
+
+            try {
+                while (next < ranges.size() || !inFlight.isEmpty()) {
+                    while (next < ranges.size() && inFlight.size() < maxInFlight) {
+                        int index = next++;
+                        FileRange range = ranges.get(index);
+                        inFlight.add(executor.submit(() -> parseRange(channel, index, range)));
+                    }
+                    consumer.accept(await(inFlight.poll()));
+                }
+            } finally {
+                // Ошибка у потребителя - ещё не начатые диапазоны не разбираем.
+                // Без прерывания: прерванный поток закрыл бы общий FileChannel.
+                inFlight.forEach(future -> future.cancel(false));
+            }
+        }
+    }
+
+    // Диапазоны записей после заголовка, выровненные по границам записей
+    public List<FileRange> split(FileChannel channel) throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            return split(channel, executor, 0);
+        }
+    }
+
+    private List<FileRange> split(FileChannel channel, ExecutorService executor, long startOffset)
+            throws IOException {
+        long size = channel.size();
+        // Граница записи вне кавычек: сведение чётности можно начинать с неё
+        long dataStart = startOffset > 0 ? startOffset : headerEnd(channel);
+        long dataSize = size - dataStart;
+        if (dataSize <= 0) {
+            return List.of();
+        }
+
+        long wanted = Math.max(parallelism, (dataSize + partitionBytes - 1) / partitionBytes);
+        int count = (int) Math.min(Math.min(wanted, dataSize), Integer.MAX_VALUE);
+        long step = Math.max(1, dataSize / count);
+
+        // Проход 1: статистика кавычек и переводов строк по каждому куску
+        List<Future<QuoteScan>> scans = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long start = dataStart + i * step;
+            long end = i == count - 1 ? size : start + step;
+            scans.add(executor.submit(() -> scan(channel, start, end)));
+        }
+
+        // Сводим состояние "внутри кавычек" от начала файла и находим границы записей
+        List<FileRange> ranges = new ArrayList<>(count);
+        long rangeStart = dataStart;
+        boolean inQuotes = false;
+        for (int i = 0; i < count; i++) {
+            QuoteScan scan = await(scans.get(i));
+            if (i > 0) {
+                long newline = inQuotes ? scan.firstNewlineOdd : scan.firstNewlineEven;
+                if (newline >= 0 && newline + 1 > rangeStart) {
+                    ranges.add(new FileRange(rangeStart, newline + 1));
+                    rangeStart = newline + 1;
+                }
+            }
+            inQuotes ^= scan.oddQuotes;
+        }
+        if (rangeStart < size) {
+            ranges.add(new FileRange(rangeStart, size));
+        }
+        return ranges;
+    }
+
+    private long headerEnd(FileChannel channel) throws IOException {
+        CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel);
+        return tokenizer.nextRecord() ? tokenizer.position() : channel.size();
+    }
+
+    private QuoteScan scan(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        byte[] bytes = buffer.array();
+        long position = start;
+        boolean odd = false;
+        long firstEven = -1;
+        long firstOdd = -1;
+
+        while (position < end) {
+            buffer.clear();
+            buffer.limit((int) Math.min(bytes.length, end - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = bytes[i];
+                if (b == '"') {
+                    odd = !odd;
+                } else if (b == '\n') {
+                    if (!odd && firstEven < 0) {
+                        firstEven = position + i;
+                    } else if (odd && firstOdd < 0) {
+                        firstOdd = position + i;
+                    }
+                }
+            }
+            position += read;
+        }
+        return new QuoteScan(odd, firstEven, firstOdd);
+    }
+
+    private Partition parseRange(FileChannel channel, int index, FileRange range) throws IOException {
+        long start = System.nanoTime();
+        CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel, range.start, range.end);
+        List<Task> tasks = new ArrayList<>();
+        Task task;
+        while ((task = tokenizer.nextTask()) != null) {
+            tasks.add(task);
+        }
+        return new Partition(index, range, tasks, System.nanoTime() - start);
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    public static class FileRange {
+        public final long start;
+        public final long end;
+
+        public FileRange(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public long length() {
+            return end - start;
+        }
+    }
+
+    public static class Partition {
+        public final int index;
+        public final FileRange range;
+        public final List<Task> tasks;
+        public final long parseNanos;
+
+        public Partition(int index, FileRange range, List<Task> tasks, long parseNanos) {
+            this.index = index;
+            this.range = range;
+            this.tasks = tasks;
+            this.parseNanos = parseNanos;
+        }
+    }
+
+    private static class QuoteScan {
+        final boolean oddQuotes;
+        final long firstNewlineEven; // первый \n при чётном числе кавычек от начала куска
+        final long firstNewlineOdd;  // первый \n при нечётном
+
+        QuoteScan(boolean oddQuotes, long firstNewlineEven, long firstNewlineOdd) {
+            this.oddQuotes = oddQuotes;
+            this.firstNewlineEven = firstNewlineEven;
+            this.firstNewlineOdd = firstNewlineOdd;
+        }
+    }
+}
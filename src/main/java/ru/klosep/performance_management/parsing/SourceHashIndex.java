@@ -0,0 +1,127 @@
+package ru.klosep.performance_management.parsing;
+
+/**
+ * Компактная хеш-таблица id записи в файле → хеш её содержимого.
+ * <p>
+ * Ключи и значения лежат в двух массивах {@code long[]} (открытая адресация,
+ * линейное пробирование, заполнение до 75%): около 21 байта на запись против
+ * ~80 у {@code HashMap<Long, Long>}, и никаких объектов на запись для GC.
+ * Ключ 0 хранится отдельно, так как 0 в массиве ключей означает пустой слот.
+ * Экземпляр не потокобезопасен.
+ */
+public class SourceHashIndex {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public SourceHashIndex(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    // true - запись с таким id уже загружена и её содержимое не изменилось
+    public boolean matches(long key, long value) {
+        if (key == 0) {
+            return hasZeroKey && zeroValue == value;
+        }
+        int slot = slot(key);
+        while (true) {
+            long existing = keys[slot];
+            if (existing == 0) {
+                return false;
+            }
+            if (existing == key) {
+                return values[slot] == value;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public void put(long key, long value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+
+        int slot = slot(key);
+        while (true) {
+            long existing = keys[slot];
+            if (existing == 0) {
+                keys[slot] = key;
+                values[slot] = value;
+                if (++size > resizeAt) {
+                    rehash(keys.length * 2);
+                }
+                return;
+            }
+            if (existing == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Размер массивов в байтах
+    public long memoryBytes() {
+        return (long) keys.length * Long.BYTES * 2;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        size = hasZeroKey ? 1 : 0;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int slot = slot(key);
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * 0.75);
+    }
+
+    private int slot(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key & mask;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        long wanted = Math.max(MIN_CAPACITY, (long) Math.ceil(expectedSize / 0.75));
+        long capacity = Long.highestOneBit(wanted - 1) << 1;
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return (int) capacity;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.klosep.performance_management.parsing;
+
+import ru.klosep.performance_management.model.Task;
+
+// 64-битный хеш содержимого задачи (title, description, completed) для поиска изменённых записей
+public final class TaskFingerprint {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private TaskFingerprint() {
+    }
+
+    public static long hash(Task task) {
+        long h = OFFSET_BASIS;
+        h = hash(h, task.getTitle());
+        h = hash(h, task.getDescription());
+        h = (h ^ (task.isCompleted() ? 1 : 2)) * PRIME;
+        return mix(h);
+    }
+
+    // FNV-1a по символам; null и "" различаются
+    private static long hash(long h, String value) {
+        if (value == null) {
+            return (h ^ 0xFFFF) * PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * PRIME;
+        }
+        // Разделитель полей: ("ab", "c") и ("a", "bc") дают разные хеши
+        return (h ^ value.length()) * PRIME;
+    }
+
+    // Финализатор MurmurHash3 - доперемешивание младших битов FNV
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
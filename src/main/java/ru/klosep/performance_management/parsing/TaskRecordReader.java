@@ -0,0 +1,15 @@
+package ru.klosep.performance_management.parsing;
+
+import ru.klosep.performance_management.model.Task;
+
+import java.io.IOException;
+
+// Последовательное чтение задач из файла с отслеживанием смещения
+public interface TaskRecordReader {
+
+    // null - данные закончились
+    Task nextTask() throws IOException;
+
+    // Смещение сразу за последней прочитанной записью
+    long position();
+}
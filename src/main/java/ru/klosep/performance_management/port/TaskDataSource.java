@@ -1,8 +1,28 @@
 package ru.klosep.performance_management.port;
 
 import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.model.TaskStatistics;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TaskDataSource {
     List<Task> fetchTasks();
-}
\ No newline at end of file
+
+    // Потоковое чтение: задачи отдаются по мере чтения источника, без списка в памяти.
+    // Stream держит файл или соединение - закрывать через try-with-resources
+    default Stream<Task> streamTasks() {
+        return fetchTasks().stream();
+    }
+
+    // Агрегат, который источник поддерживает сам; пусто - статистику считает анализ
+    default Optional<TaskStatistics> fetchStatistics() {
+        return Optional.empty();
+    }
+
+    // Дешёвая версия данных источника: при той же версии анализ берётся из кэша.
+    // Пусто - версию источник не знает, анализ всегда пересчитывается
+    default Optional<String> dataVersion() {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,20 @@
+package ru.klosep.performance_management.port;
+
+import ru.klosep.performance_management.model.Task;
+
+import java.util.List;
+
+// Выходной порт - запись загруженных задач в хранилище
+public interface TaskSink {
+    int write(List<Task> tasks);
+
+    // Вставка или обновление по id из файла (ImportMode.UPSERT). id в пачке уникальны
+    UpsertResult upsert(List<Task> tasks);
+
+    // Новые строки - отдельно: их, в отличие от обновлённых, учитывают дневные роллапы
+    record UpsertResult(List<Task> inserted, int updated) {
+        public int saved() {
+            return inserted.size() + updated;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.klosep.performance_management.postgres.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Результат анализа (DatabaseResultAdapter). SEQUENCE с allocationSize, а не IDENTITY:
+// Hibernate выдаёт id без обращения к БД и может отправлять INSERT пачками
+@Entity
+@Table(name = "analysis_results", indexes = {
+        @Index(name = "idx_analysis_results_published_at", columnList = "publishedAt")
+})
+public class AnalysisResultEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "analysis_results_seq")
+    @SequenceGenerator(name = "analysis_results_seq", sequenceName = "analysis_results_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Integer totalTasks;
+
+    @Column(nullable = false)
+    private Integer completedTasks;
+
+    @Column(nullable = false)
+    private Double completionRate;
+
+    @Column(nullable = false)
+    private Double averageTitleLength;
+
+    // Рекомендации по одной на строку
+    @Column(columnDefinition = "TEXT")
+    private String recommendations;
+
+    // Момент публикации, а не записи: запись отложена до сброса пачки
+    @Column(nullable = false)
+    private LocalDateTime publishedAt;
+
+    // Конструкторы
+    public AnalysisResultEntity() {}
+
+    public AnalysisResultEntity(Integer totalTasks, Integer completedTasks, Double completionRate,
+                                Double averageTitleLength, String recommendations, LocalDateTime publishedAt) {
+        this.totalTasks = totalTasks;
+        this.completedTasks = completedTasks;
+        this.completionRate = completionRate;
+        this.averageTitleLength = averageTitleLength;
+        this.recommendations = recommendations;
+        this.publishedAt = publishedAt;
+    }
+
+    // Геттеры и сеттеры
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Integer getTotalTasks() { return totalTasks; }
+    public void setTotalTasks(Integer totalTasks) { this.totalTasks = totalTasks; }
+    public Integer getCompletedTasks() { return completedTasks; }
+    public void setCompletedTasks(Integer completedTasks) { this.completedTasks = completedTasks; }
+    public Double getCompletionRate() { return completionRate; }
+    public void setCompletionRate(Double completionRate) { this.completionRate = completionRate; }
+    public Double getAverageTitleLength() { return averageTitleLength; }
+    public void setAverageTitleLength(Double averageTitleLength) { this.averageTitleLength = averageTitleLength; }
+    public String getRecommendations() { return recommendations; }
+    public void setRecommendations(String recommendations) { this.recommendations = recommendations; }
+    public LocalDateTime getPublishedAt() { return publishedAt; }
+    public void setPublishedAt(LocalDateTime publishedAt) { this.publishedAt = publishedAt; }
+}
@@ -0,0 +1,125 @@
+package ru.klosep.performance_management.postgres.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// Прогресс загрузки файла: до какого байта и сколько строк уже закоммичено
+@Entity
+@Table(name = "ingest_checkpoints")
+public class IngestCheckpointEntity {
+
+    public enum Status { RUNNING, FAILED, COMPLETED, TAILING }
+
+    // Абсолютный путь к файлу, приёмник и режим импорта (IngestCheckpointService.keyOf)
+    @Id
+    @Column(length = 1024)
+    private String fileKey;
+
+    @Column(nullable = false, length = 16)
+    private String format;
+
+    // Размер и время изменения файла: по ним определяем, что файл не подменили
+    @Column(nullable = false)
+    private Long fileSize;
+
+    @Column(nullable = false)
+    private Long fileModified;
+
+    // Только для дописываемых файлов (TAILING): inode и контрольная сумма начала файла,
+    // чтобы отличить ротацию (новый файл под тем же именем) от дописывания
+    @Column(length = 255)
+    private String fileIdentity;
+
+    @Column
+    private Integer headLength;
+
+    @Column
+    private Long headChecksum;
+
+    // Смещение, с которого продолжать чтение; 0 - с начала файла
+    @Column(nullable = false)
+    private Long committedOffset = 0L;
+
+    @Column(nullable = false)
+    private Long committedRows = 0L;
+
+    @Column(nullable = false)
+    private Long savedRows = 0L;
+
+    @Column(nullable = false)
+    private Integer chunksCommitted = 0;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.RUNNING;
+
+    @Column(length = 1000)
+    private String errorMessage;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    // Две загрузки одного файла не смогут одновременно сдвигать checkpoint
+    @Version
+    private Long version;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Конструкторы
+    public IngestCheckpointEntity() {}
+
+    public IngestCheckpointEntity(String fileKey, String format, Long fileSize, Long fileModified) {
+        this.fileKey = fileKey;
+        this.format = format;
+        this.fileSize = fileSize;
+        this.fileModified = fileModified;
+    }
+
+    // Прогресс сбрасывается, например если файл изменился
+    public void reset(String format, Long fileSize, Long fileModified) {
+        this.format = format;
+        this.fileSize = fileSize;
+        this.fileModified = fileModified;
+        this.committedOffset = 0L;
+        this.committedRows = 0L;
+        this.savedRows = 0L;
+        this.chunksCommitted = 0;
+        this.status = Status.RUNNING;
+        this.errorMessage = null;
+        this.fileIdentity = null;
+        this.headLength = null;
+        this.headChecksum = null;
+    }
+
+    // Геттеры и сеттеры
+    public String getFileKey() { return fileKey; }
+    public String getFormat() { return format; }
+    public Long getFileSize() { return fileSize; }
+    public Long getFileModified() { return fileModified; }
+    public void setFileSize(Long fileSize) { this.fileSize = fileSize; }
+    public void setFileModified(Long fileModified) { this.fileModified = fileModified; }
+    public String getFileIdentity() { return fileIdentity; }
+    public void setFileIdentity(String fileIdentity) { this.fileIdentity = fileIdentity; }
+    public Integer getHeadLength() { return headLength; }
+    public void setHeadLength(Integer headLength) { this.headLength = headLength; }
+    public Long getHeadChecksum() { return headChecksum; }
+    public void setHeadChecksum(Long headChecksum) { this.headChecksum = headChecksum; }
+    public Long getCommittedOffset() { return committedOffset; }
+    public void setCommittedOffset(Long committedOffset) { this.committedOffset = committedOffset; }
+    public Long getCommittedRows() { return committedRows; }
+    public void setCommittedRows(Long committedRows) { this.committedRows = committedRows; }
+    public Long getSavedRows() { return savedRows; }
+    public void setSavedRows(Long savedRows) { this.savedRows = savedRows; }
+    public Integer getChunksCommitted() { return chunksCommitted; }
+    public void setChunksCommitted(Integer chunksCommitted) { this.chunksCommitted = chunksCommitted; }
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+    public String getErrorMessage() { return errorMessage; }
+    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public Long getVersion() { return version; }
+}
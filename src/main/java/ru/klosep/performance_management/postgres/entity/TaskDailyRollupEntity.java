@@ -0,0 +1,57 @@
+package ru.klosep.performance_management.postgres.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+// Предагрегированная статистика задач за день (по дате createdAt), обновляется при загрузке
+@Entity
+@Table(name = "task_daily_rollups")
+public class TaskDailyRollupEntity {
+
+    @Id
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private Long total = 0L;
+
+    @Column(nullable = false)
+    private Long completed = 0L;
+
+    @Column(nullable = false)
+    private Long titleLengthSum = 0L;
+
+    // QuantileSketch.toBytes() длин названий - сливается с соседними днями без сырых данных
+    @Column(nullable = false)
+    private byte[] titleLengthSketch;
+
+    @Column
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    // Конструкторы
+    public TaskDailyRollupEntity() {}
+
+    public TaskDailyRollupEntity(LocalDate day, byte[] titleLengthSketch) {
+        this.day = day;
+        this.titleLengthSketch = titleLengthSketch;
+    }
+
+    // Геттеры и сеттеры
+    public LocalDate getDay() { return day; }
+    public void setDay(LocalDate day) { this.day = day; }
+    public Long getTotal() { return total; }
+    public void setTotal(Long total) { this.total = total; }
+    public Long getCompleted() { return completed; }
+    public void setCompleted(Long completed) { this.completed = completed; }
+    public Long getTitleLengthSum() { return titleLengthSum; }
+    public void setTitleLengthSum(Long titleLengthSum) { this.titleLengthSum = titleLengthSum; }
+    public byte[] getTitleLengthSketch() { return titleLengthSketch; }
+    public void setTitleLengthSketch(byte[] titleLengthSketch) { this.titleLengthSketch = titleLengthSketch; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
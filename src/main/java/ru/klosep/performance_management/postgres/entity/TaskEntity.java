@@ -6,7 +6,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "tasks", indexes = {
         @Index(name = "idx_completed", columnList = "completed"),
-        @Index(name = "idx_created_at", columnList = "createdAt")
+        @Index(name = "idx_created_at", columnList = "createdAt"),
+        @Index(name = "idx_source_id", columnList = "sourceId", unique = true)
 })
 public class TaskEntity {
 
@@ -29,6 +30,13 @@ public class TaskEntity {
     @Column
     private LocalDateTime updatedAt;
 
+    // id записи в исходном файле и хеш её содержимого (ImportMode.UPSERT); null для INSERT
+    @Column
+    private Long sourceId;
+
+    @Column
+    private Long contentHash;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -60,4 +68,8 @@ public class TaskEntity {
     public void setCompleted(Boolean completed) { this.completed = completed; }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public Long getSourceId() { return sourceId; }
+    public void setSourceId(Long sourceId) { this.sourceId = sourceId; }
+    public Long getContentHash() { return contentHash; }
+    public void setContentHash(Long contentHash) { this.contentHash = contentHash; }
 }
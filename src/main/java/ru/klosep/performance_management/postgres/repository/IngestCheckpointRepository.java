@@ -0,0 +1,9 @@
+package ru.klosep.performance_management.postgres.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.klosep.performance_management.postgres.entity.IngestCheckpointEntity;
+
+@Repository
+public interface IngestCheckpointRepository extends JpaRepository<IngestCheckpointEntity, String> {
+}
@@ -0,0 +1,31 @@
+package ru.klosep.performance_management.postgres.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.klosep.performance_management.postgres.entity.TaskDailyRollupEntity;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TaskDailyRollupRepository extends JpaRepository<TaskDailyRollupEntity, LocalDate> {
+
+    List<TaskDailyRollupEntity> findByDayBetweenOrderByDay(LocalDate from, LocalDate to);
+
+    // Создаёт пустую строку дня, если её ещё нет: без гонки двух первых вставок
+    @Modifying
+    @Query(value = "INSERT INTO task_daily_rollups (day, total, completed, title_length_sum, " +
+            "title_length_sketch, updated_at) VALUES (:day, 0, 0, 0, :emptySketch, LOCALTIMESTAMP) " +
+            "ON CONFLICT (day) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(LocalDate day, byte[] emptySketch);
+
+    // Параллельные чанки одного дня обновляют строку по очереди
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM TaskDailyRollupEntity r WHERE r.day = :day")
+    Optional<TaskDailyRollupEntity> findForUpdate(LocalDate day);
+}
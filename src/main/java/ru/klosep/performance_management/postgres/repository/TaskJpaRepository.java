@@ -6,7 +6,9 @@ import org.springframework.stereotype.Repository;
 import ru.klosep.performance_management.postgres.entity.TaskEntity;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface TaskJpaRepository extends JpaRepository<TaskEntity, Long> {
@@ -15,6 +17,32 @@ public interface TaskJpaRepository extends JpaRepository<TaskEntity, Long> {
 
     List<TaskEntity> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
 
+    List<TaskEntity> findBySourceIdIn(Collection<Long> sourceIds);
+
+    // Только для прогрева индекса дедупликации; вызывать внутри транзакции
+    @Query("SELECT t.sourceId, t.contentHash FROM TaskEntity t WHERE t.sourceId IS NOT NULL")
+    Stream<Object[]> streamSourceHashes();
+
+    @Query("SELECT COUNT(t) FROM TaskEntity t WHERE t.sourceId IS NOT NULL")
+    long countWithSourceId();
+
+    // Агрегаты для анализа считаются в БД - по строке на корзину гистограммы длин названий
+    // (ширина 10, последняя корзина 15, как в TaskStatistics): bucket, total, completed, title_length_sum.
+    // LEAST пропускает NULL - без COALESCE задачи без названия попали бы в корзину 15, а не 0
+    @Query(value = "SELECT LEAST(COALESCE(char_length(title), 0) / 10, 15) AS bucket, " +
+            "COUNT(*) AS total, " +
+            "COUNT(*) FILTER (WHERE completed) AS completed, " +
+            "COALESCE(SUM(char_length(title)), 0) AS title_length_sum " +
+            "FROM tasks GROUP BY bucket", nativeQuery = true)
+    List<Object[]> aggregateByTitleLength();
+
+    // Для пересборки дневных роллапов: день created_at, completed и длина названия в кодовых точках.
+    // По возрастанию created_at (индекс idx_created_at) - дни идут подряд; вызывать внутри транзакции
+    @Query(value = "SELECT CAST(created_at AS date) AS day, completed, " +
+            "COALESCE(char_length(title), 0) AS title_length " +
+            "FROM tasks ORDER BY created_at", nativeQuery = true)
+    Stream<Object[]> streamRollupRows();
+
     @Query("SELECT t FROM TaskEntity t WHERE t.completed = :completed " +
             "AND t.createdAt >= :start ORDER BY t.createdAt DESC")
     List<TaskEntity> findCompletedTasksAfterDate(Boolean completed, LocalDateTime start);
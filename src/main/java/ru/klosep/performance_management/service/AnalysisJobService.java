@@ -0,0 +1,115 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import ru.klosep.performance_management.model.AnalysisJob;
+import ru.klosep.performance_management.model.TaskAnalysis;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Асинхронные задания анализа с объединением одинаковых запросов (single-flight).
+ * <p>
+ * Пока задание для ключа "источник -> приёмник" выполняется, новые запросы с
+ * тем же ключом получают это же задание, а не запускают второй расчёт: нагрузка
+ * не больше одного расчёта на пару. Расчёт идёт в виртуальном потоке, результат
+ * доступен через {@link #find} и публикуется в {@code /topic/analysis/{jobId}}.
+ * Завершённые задания хранятся {@link #RETENTION_MS} для опроса.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final long RETENTION_MS = 10 * 60 * 1000;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Map<String, AnalysisJob> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+
+    private final Counter startedCounter;
+    private final Counter coalescedCounter;
+    private final Timer jobTimer;
+
+    public AnalysisJobService(MeterRegistry registry) {
+        this.startedCounter = Counter.builder("analysis.jobs")
+                .description("Analysis job requests")
+                .tag("result", "started")
+                .register(registry);
+
+        this.coalescedCounter = Counter.builder("analysis.jobs")
+                .description("Analysis job requests")
+                .tag("result", "coalesced")
+                .register(registry);
+
+        this.jobTimer = Timer.builder("analysis.job.duration")
+                .description("Time to run one analysis job")
+                .register(registry);
+
+        Gauge.builder("analysis.jobs.in_flight", inFlight, Map::size)
+                .description("Analysis jobs currently running")
+                .register(registry);
+    }
+
+    // Уже идущее задание с тем же ключом или новое
+    public AnalysisJob submit(String key, Supplier<TaskAnalysisService> serviceFactory) {
+        AnalysisJob created = new AnalysisJob(UUID.randomUUID().toString(), key);
+        AnalysisJob running = inFlight.putIfAbsent(key, created);
+        if (running != null) {
+            coalescedCounter.increment();
+            return running;
+        }
+
+        startedCounter.increment();
+        evictExpired();
+        jobs.put(created.getId(), created);
+        executor.submit(() -> run(created, serviceFactory));
+        return created;
+    }
+
+    public Optional<AnalysisJob> find(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(AnalysisJob job, Supplier<TaskAnalysisService> serviceFactory) {
+        Timer.Sample sample = Timer.start();
+        try {
+            TaskAnalysis analysis = serviceFactory.get().analyzeAndPublish();
+            // Из in-flight убираем до завершения: пришедший после результата запрос
+            // должен запустить новый расчёт, а не получить устаревший
+            inFlight.remove(job.getKey(), job);
+            job.complete(analysis);
+        } catch (Throwable e) {
+            inFlight.remove(job.getKey(), job);
+            job.fail(e);
+            System.err.println("❌ Analysis job " + job.getKey() + " failed: " + e.getMessage());
+        } finally {
+            sample.stop(jobTimer);
+            messagingTemplate.convertAndSend("/topic/analysis/" + job.getId(), job);
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.getEndTime() > 0 && now - job.getEndTime() > RETENTION_MS);
+    }
+}
@@ -0,0 +1,194 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import ru.klosep.performance_management.model.FileFormat;
+import ru.klosep.performance_management.model.ImportMode;
+import ru.klosep.performance_management.model.SinkType;
+import ru.klosep.performance_management.postgres.entity.IngestCheckpointEntity;
+import ru.klosep.performance_management.postgres.entity.IngestCheckpointEntity.Status;
+import ru.klosep.performance_management.postgres.repository.IngestCheckpointRepository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Checkpoint-ы загрузки файлов.
+ * <p>
+ * {@link #advance} вызывается в той же транзакции, что и запись чанка в БД:
+ * смещение и строки коммитятся вместе с данными, поэтому после сбоя загрузка
+ * продолжается ровно с первого незакоммиченного чанка. Для sink=MONGO данные
+ * пишутся вне транзакции Postgres - после сбоя последний чанк может повториться.
+ * <p>
+ * Прогресс хранится отдельно для каждой пары приёмник + режим импорта: файл,
+ * загруженный в JPA, в COPY или MONGO грузится с начала, а не считается
+ * загруженным.
+ */
+@Service
+public class IngestCheckpointService {
+
+    // Сколько байт от начала файла сверяется при дописывании
+    private static final int HEAD_BYTES = 1024;
+
+    @Autowired
+    private IngestCheckpointRepository repository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    public static String keyOf(Path file, SinkType sink, ImportMode importMode) {
+        return file.toAbsolutePath().normalize() + "|" + sink + "|" + importMode;
+    }
+
+    public Optional<IngestCheckpointEntity> find(Path file, SinkType sink, ImportMode importMode) {
+        return repository.findById(keyOf(file, sink, importMode));
+    }
+
+    /**
+     * Начинает загрузку файла.
+     * При {@code resume} и неизменном файле возвращает сохранённый прогресс,
+     * иначе прогресс сбрасывается в ноль.
+     */
+    public IngestCheckpointEntity start(Path file, FileFormat format, SinkType sink, ImportMode importMode,
+                                        boolean resume) throws IOException {
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        String key = keyOf(file, sink, importMode);
+
+        IngestCheckpointEntity checkpoint = repository.findById(key).orElse(null);
+        if (checkpoint == null) {
+            return repository.save(new IngestCheckpointEntity(key, format.name(), size, modified));
+        }
+
+        boolean sameFile = checkpoint.getFileSize() == size
+                && checkpoint.getFileModified() == modified
+                && checkpoint.getFormat().equals(format.name());
+        if (resume && sameFile) {
+            if (checkpoint.getStatus() == Status.COMPLETED) {
+                return checkpoint; // Файл уже загружен полностью
+            }
+            System.out.printf("⏩ Resuming %s from offset %,d (%,d rows committed)%n",
+                    file, checkpoint.getCommittedOffset(), checkpoint.getCommittedRows());
+        } else {
+            if (resume) {
+                System.out.println("⚠️ File changed since last checkpoint, starting over: " + file);
+            }
+            checkpoint.reset(format.name(), size, modified);
+        }
+
+        checkpoint.setStatus(Status.RUNNING);
+        checkpoint.setErrorMessage(null);
+        return repository.save(checkpoint);
+    }
+
+    /**
+     * Продолжение дописываемого CSV-файла с сохранённого смещения.
+     * Смещение сбрасывается в ноль, если файл ротирован (другой inode), усечён
+     * (размер меньше смещения) или перезаписан (не совпало начало файла).
+     */
+    public IngestCheckpointEntity startTail(Path file, SinkType sink, ImportMode importMode) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        String identity = attributes.fileKey() != null ? attributes.fileKey().toString() : null;
+        String format = FileFormat.CSV.name();
+        String key = keyOf(file, sink, importMode);
+
+        IngestCheckpointEntity checkpoint = repository.findById(key).orElse(null);
+        if (checkpoint == null) {
+            checkpoint = new IngestCheckpointEntity(key, format, size, modified);
+        } else {
+            String reason = null;
+            if (!format.equals(checkpoint.getFormat())) {
+                reason = "format";
+            } else if (identity != null && checkpoint.getFileIdentity() != null
+                    && !identity.equals(checkpoint.getFileIdentity())) {
+                reason = "rotated";
+            } else if (size < checkpoint.getCommittedOffset()) {
+                reason = "truncated";
+            } else if (checkpoint.getHeadLength() != null
+                    && checksum(file, checkpoint.getHeadLength()) != checkpoint.getHeadChecksum()) {
+                reason = "replaced";
+            }
+
+            if (reason != null) {
+                System.out.printf("🔄 %s was %s, reading from the beginning%n", file, reason);
+                Counter.builder("task.parsing.tail.resets")
+                        .description("Tailed files re-read from the beginning")
+                        .tag("reason", reason)
+                        .register(meterRegistry)
+                        .increment();
+                checkpoint.reset(format, size, modified);
+            }
+        }
+
+        checkpoint.setFileIdentity(identity);
+        checkpoint.setFileSize(size);
+        checkpoint.setFileModified(modified);
+        checkpoint.setStatus(Status.TAILING);
+        checkpoint.setErrorMessage(null);
+
+        // Файл только дописывается - уже записанные байты начала не меняются
+        int head = (int) Math.min(HEAD_BYTES, size);
+        if (checkpoint.getHeadLength() == null || checkpoint.getHeadLength() < head) {
+            checkpoint.setHeadLength(head);
+            checkpoint.setHeadChecksum(checksum(file, head));
+        }
+        return repository.save(checkpoint);
+    }
+
+    // Только внутри транзакции чанка
+    public void advance(String fileKey, long offset, int rows, int saved) {
+        IngestCheckpointEntity checkpoint = repository.findById(fileKey)
+                .orElseThrow(() -> new IllegalStateException("No checkpoint for " + fileKey));
+
+        checkpoint.setCommittedOffset(offset);
+        checkpoint.setCommittedRows(checkpoint.getCommittedRows() + rows);
+        checkpoint.setSavedRows(checkpoint.getSavedRows() + saved);
+        checkpoint.setChunksCommitted(checkpoint.getChunksCommitted() + 1);
+        repository.save(checkpoint);
+    }
+
+    public void complete(String fileKey) {
+        repository.findById(fileKey).ifPresent(checkpoint -> {
+            checkpoint.setStatus(Status.COMPLETED);
+            repository.save(checkpoint);
+        });
+    }
+
+    public void fail(String fileKey, String errorMessage) {
+        try {
+            repository.findById(fileKey).ifPresent(checkpoint -> {
+                checkpoint.setStatus(Status.FAILED);
+                checkpoint.setErrorMessage(errorMessage != null && errorMessage.length() > 1000
+                        ? errorMessage.substring(0, 1000)
+                        : errorMessage);
+                repository.save(checkpoint);
+            });
+        } catch (RuntimeException e) {
+            // Не скрываем исходную ошибку; прогресс чанков уже закоммичен
+            System.err.println("❌ Failed to mark checkpoint as failed: " + e.getMessage());
+        }
+    }
+
+    private static long checksum(Path file, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, buffer.position()) > 0) {
+                // читаем до length байт
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+import ru.klosep.performance_management.model.TaskStatistics;
+import ru.klosep.performance_management.port.TaskDataSource;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Последний агрегат по каждому источнику вместе с версией его данных.
+ * <p>
+ * Пока {@link TaskDataSource#dataVersion()} возвращает ту же версию, источник
+ * не читается и агрегат не пересчитывается. Храним {@link TaskStatistics},
+ * а не готовый анализ: по агрегатам нескольких источников анализ строится
+ * слиянием за O(1). Источники - singleton-бины, ключ - сам источник.
+ */
+@Service
+public class TaskAnalysisCache {
+
+    private final Map<TaskDataSource, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public TaskAnalysisCache(MeterRegistry registry) {
+        this.hitCounter = Counter.builder("task.analysis.cache")
+                .description("Analysis lookups by data version")
+                .tag("result", "hit")
+                .register(registry);
+
+        this.missCounter = Counter.builder("task.analysis.cache")
+                .description("Analysis lookups by data version")
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    public Optional<TaskStatistics> get(TaskDataSource source, String version) {
+        Entry entry = entries.get(source);
+        if (entry != null && entry.version.equals(version)) {
+            hitCounter.increment();
+            return Optional.of(entry.statistics.copy());
+        }
+        missCounter.increment();
+        return Optional.empty();
+    }
+
+    // version - прочитанная до чтения данных: если данные успели измениться,
+    // у следующего запроса будет новая версия и запись просто не совпадёт
+    public void put(TaskDataSource source, String version, TaskStatistics statistics) {
+        entries.put(source, new Entry(version, statistics.copy()));
+    }
+
+    public void invalidate(TaskDataSource source) {
+        entries.remove(source);
+    }
+
+    private static class Entry {
+        final String version;
+        final TaskStatistics statistics;
+
+        Entry(String version, TaskStatistics statistics) {
+            this.version = version;
+            this.statistics = statistics;
+        }
+    }
+}
@@ -2,55 +2,159 @@ package ru.klosep.performance_management.service;
 
 import ru.klosep.performance_management.model.Task;
 import ru.klosep.performance_management.model.TaskAnalysis;
+import ru.klosep.performance_management.model.TaskStatistics;
 import ru.klosep.performance_management.port.TaskDataSource;
 import ru.klosep.performance_management.port.AnalysisResultPublisher;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 public class TaskAnalysisService {
 
-    private final TaskDataSource dataSource;
+    private final List<TaskDataSource> dataSources;
     private final AnalysisResultPublisher publisher;
+    private final TaskAnalysisCache cache; // null - без кэша
 
     public TaskAnalysisService(TaskDataSource dataSource,
                                AnalysisResultPublisher publisher) {
-        this.dataSource = dataSource;
+        this(List.of(dataSource), publisher, null);
+    }
+
+    public TaskAnalysisService(TaskDataSource dataSource,
+                               AnalysisResultPublisher publisher,
+                               TaskAnalysisCache cache) {
+        this(List.of(dataSource), publisher, cache);
+    }
+
+    public TaskAnalysisService(List<TaskDataSource> dataSources,
+                               AnalysisResultPublisher publisher) {
+        this(dataSources, publisher, null);
+    }
+
+    // Несколько частей одних данных (диапазоны файла, шарды, источники) -
+    // каждая считается в своём виртуальном потоке, результаты сливаются
+    public TaskAnalysisService(List<TaskDataSource> dataSources,
+                               AnalysisResultPublisher publisher,
+                               TaskAnalysisCache cache) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("At least one data source is required");
+        }
+        this.dataSources = List.copyOf(dataSources);
         this.publisher = publisher;
+        this.cache = cache;
     }
 
-    // Ядро бизнес-логики: анализ задач
-    public void analyzeAndPublish() {
-        List<Task> tasks = dataSource.fetchTasks();
-        TaskAnalysis analysis = performAnalysis(tasks);
+    // Ядро бизнес-логики: анализ задач; опубликованный результат возвращается вызывающему
+    public TaskAnalysis analyzeAndPublish() {
+        TaskAnalysis analysis = analyze(collectStatistics());
         publisher.publish(analysis);
+        return analysis;
     }
 
-    // Чистая функция расчёта
-    private TaskAnalysis performAnalysis(List<Task> tasks) {
-        if (tasks.isEmpty()) {
-            return new TaskAnalysis(0, 0, 0.0, 0.0,
-                    List.of("Нет задач для анализа"));
+    // Частичный агрегат по всем источникам - его можно слить с агрегатами других инстансов
+    public TaskStatistics collectStatistics() {
+        if (dataSources.size() == 1) {
+            return collect(dataSources.get(0));
         }
 
-        int total = tasks.size();
-        int completed = (int) tasks.stream()
-                .filter(Task::isCompleted)
-                .count();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<TaskStatistics>> partials = new ArrayList<>(dataSources.size());
+            for (TaskDataSource source : dataSources) {
+                partials.add(executor.submit(() -> collect(source)));
+            }
+
+            TaskStatistics merged = new TaskStatistics();
+            for (Future<TaskStatistics> partial : partials) {
+                merged.merge(await(partial));
+            }
+            return merged;
+        }
+    }
 
-        double completionRate = (double) completed / total;
+    public TaskAnalysis analyze(Iterable<Task> tasks) {
+        return analyze(tasks.iterator());
+    }
 
-        double avgTitleLength = tasks.stream()
-                .mapToInt(t -> t.getTitle().length())
-                .average()
-                .orElse(0.0);
+    // Один проход по задачам: источник может быть сколь угодно большим,
+    // в памяти только счётчики TaskStatistics
+    public TaskAnalysis analyze(Iterator<Task> tasks) {
+        return analyze(accumulate(tasks));
+    }
+
+    // Чистая функция расчёта; рекомендации строятся по уже слитому агрегату
+    public TaskAnalysis analyze(TaskStatistics statistics) {
+        if (statistics.isEmpty()) {
+            return new TaskAnalysis(0, 0, 0.0, 0.0,
+                    List.of("Нет задач для анализа"));
+        }
+
+        double completionRate = statistics.getCompletionRate();
+        double avgTitleLength = statistics.getAverageTitleLength();
 
         List<String> recommendations = generateRecommendations(
                 completionRate, avgTitleLength
         );
 
-        return new TaskAnalysis(total, completed, completionRate,
-                avgTitleLength, recommendations);
+        return new TaskAnalysis(Math.toIntExact(statistics.getTotal()),
+                Math.toIntExact(statistics.getCompleted()),
+                completionRate, avgTitleLength, recommendations);
+    }
+
+    // Источник с той же версией данных, что и в прошлый раз, не читается вовсе
+    private TaskStatistics collect(TaskDataSource source) {
+        Optional<String> version = cache != null ? source.dataVersion() : Optional.empty();
+        if (version.isPresent()) {
+            Optional<TaskStatistics> cached = cache.get(source, version.get());
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        TaskStatistics statistics = read(source);
+        version.ifPresent(v -> cache.put(source, v, statistics));
+        return statistics;
+    }
+
+    private static TaskStatistics read(TaskDataSource source) {
+        // Источник с готовым агрегатом отвечает за O(1), задачи не читаем
+        Optional<TaskStatistics> maintained = source.fetchStatistics();
+        if (maintained.isPresent()) {
+            return maintained.get();
+        }
+
+        // Задачи потребляются по мере чтения источника - список не строится
+        try (Stream<Task> tasks = source.streamTasks()) {
+            return accumulate(tasks.iterator());
+        }
+    }
+
+    private static TaskStatistics accumulate(Iterator<Task> tasks) {
+        TaskStatistics statistics = new TaskStatistics();
+        while (tasks.hasNext()) {
+            statistics.accept(tasks.next());
+        }
+        return statistics;
+    }
+
+    private static TaskStatistics await(Future<TaskStatistics> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Analysis interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Partition analysis failed", e.getCause());
+        }
     }
 
     private List<String> generateRecommendations(double rate, double avgLength) {
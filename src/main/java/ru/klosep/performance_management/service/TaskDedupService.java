@@ -0,0 +1,209 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.klosep.performance_management.model.SinkType;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.mongo.document.TaskDocument;
+import ru.klosep.performance_management.parsing.SourceHashIndex;
+import ru.klosep.performance_management.parsing.TaskFingerprint;
+import ru.klosep.performance_management.postgres.repository.TaskJpaRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Отсев неизменённых записей для {@code ImportMode.UPSERT}.
+ * <p>
+ * Для каждого хранилища держится {@link SourceHashIndex}: id записи в файле →
+ * хеш содержимого, с которым она сохранена. Индекс прогревается из БД при
+ * первом UPSERT и обновляется только после коммита, поэтому повторный импорт
+ * неизменённого файла не отправляет в БД ни одной строки.
+ * <p>
+ * Индекс знает только о записях, загруженных через UPSERT. Удаление строк в
+ * обход этого сервиса требует {@link #invalidate}.
+ */
+@Service
+public class TaskDedupService {
+
+    // JPA и COPY пишут в одну таблицу tasks - у них общий индекс
+    private enum Store { POSTGRES, MONGO }
+
+    @Autowired
+    private TaskJpaRepository taskRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Store, SourceHashIndex> indexes = new HashMap<>();
+
+    private final Counter unchangedCounter;
+    private final Counter changedCounter;
+
+    public TaskDedupService(MeterRegistry registry) {
+        this.unchangedCounter = Counter.builder("task.parsing.dedup.records")
+                .description("Records checked against the dedup index")
+                .tag("result", "unchanged")
+                .register(registry);
+
+        this.changedCounter = Counter.builder("task.parsing.dedup.records")
+                .description("Records checked against the dedup index")
+                .tag("result", "changed")
+                .register(registry);
+
+        for (Store store : Store.values()) {
+            String tag = store.name().toLowerCase();
+            Gauge.builder("task.parsing.dedup.index.size", this, s -> s.indexSize(store))
+                    .description("Entries in the dedup index")
+                    .tag("store", tag)
+                    .register(registry);
+            Gauge.builder("task.parsing.dedup.index.bytes", this, s -> s.indexBytes(store))
+                    .description("Memory used by the dedup index")
+                    .tag("store", tag)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Записи, которые нужно отправить в БД: новые и изменённые.
+     * Повторы одного id внутри пачки схлопываются, побеждает последний.
+     */
+    public List<Task> changed(SinkType sink, List<Task> tasks) {
+        Map<Long, Task> latest = new HashMap<>();
+        for (Task task : tasks) {
+            latest.put(task.getId(), task);
+        }
+
+        List<Task> changed = new ArrayList<>(latest.size());
+        SourceHashIndex index = index(storeOf(sink));
+        synchronized (index) {
+            for (Task task : tasks) {
+                // Берём задачу в порядке файла, один раз на id
+                if (latest.get(task.getId()) != task) {
+                    continue;
+                }
+                if (!index.matches(task.getId(), TaskFingerprint.hash(task))) {
+                    changed.add(task);
+                }
+            }
+        }
+
+        unchangedCounter.increment(tasks.size() - changed.size());
+        changedCounter.increment(changed.size());
+        return changed;
+    }
+
+    // Запоминает сохранённые записи; внутри транзакции - только после коммита
+    public void committed(SinkType sink, List<Task> tasks) {
+        Store store = storeOf(sink);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(store, tasks);
+                }
+            });
+        } else {
+            remember(store, tasks);
+        }
+    }
+
+    // Сбрасывает индексы - следующий UPSERT прогреет их из БД заново
+    public void invalidate() {
+        synchronized (indexes) {
+            indexes.clear();
+        }
+    }
+
+    private void remember(Store store, List<Task> tasks) {
+        SourceHashIndex index = index(store);
+        synchronized (index) {
+            for (Task task : tasks) {
+                index.put(task.getId(), TaskFingerprint.hash(task));
+            }
+        }
+    }
+
+    private SourceHashIndex index(Store store) {
+        synchronized (indexes) {
+            SourceHashIndex index = indexes.get(store);
+            if (index == null) {
+                index = warm(store);
+                indexes.put(store, index);
+            }
+            return index;
+        }
+    }
+
+    private SourceHashIndex warm(Store store) {
+        long start = System.currentTimeMillis();
+        SourceHashIndex index;
+
+        if (store == Store.POSTGRES) {
+            index = new SourceHashIndex((int) Math.min(taskRepository.countWithSourceId(), 1 << 29));
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = taskRepository.streamSourceHashes()) {
+                    rows.forEach(row -> index.put((Long) row[0], row[1] != null ? (Long) row[1] : 0L));
+                }
+            });
+        } else {
+            Query query = Query.query(Criteria.where("sourceId").exists(true));
+            query.fields().include("sourceId", "contentHash");
+            index = new SourceHashIndex((int) Math.min(mongoTemplate.count(query, TaskDocument.class), 1 << 29));
+            try (Stream<TaskDocument> documents = mongoTemplate.stream(query, TaskDocument.class)) {
+                documents.forEach(document -> index.put(document.getSourceId(),
+                        document.getContentHash() != null ? document.getContentHash() : 0L));
+            }
+        }
+
+        System.out.printf("🗂️ Dedup index for %s: %,d entries, %.1f MB, warmed in %,d ms%n",
+                store, index.size(), index.memoryBytes() / (1024.0 * 1024.0),
+                System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private double indexSize(Store store) {
+        SourceHashIndex index;
+        synchronized (indexes) {
+            index = indexes.get(store);
+        }
+        if (index == null) {
+            return 0;
+        }
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    private double indexBytes(Store store) {
+        SourceHashIndex index;
+        synchronized (indexes) {
+            index = indexes.get(store);
+        }
+        if (index == null) {
+            return 0;
+        }
+        synchronized (index) {
+            return index.memoryBytes();
+        }
+    }
+
+    private static Store storeOf(SinkType sink) {
+        return sink == SinkType.MONGO ? Store.MONGO : Store.POSTGRES;
+    }
+}
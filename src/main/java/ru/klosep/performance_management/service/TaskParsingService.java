@@ -3,14 +3,31 @@ package ru.klosep.performance_management.service;
 import io.micrometer.core.annotation.Timed;
 import io.micrometer.core.instrument.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.klosep.performance_management.model.FileFormat;
+import ru.klosep.performance_management.model.ImportMode;
+import ru.klosep.performance_management.model.ParseMode;
+import ru.klosep.performance_management.model.ParseOptions;
+import ru.klosep.performance_management.model.SinkType;
 import ru.klosep.performance_management.model.Task;
-import ru.klosep.performance_management.postgres.entity.TaskEntity;
-import ru.klosep.performance_management.postgres.repository.TaskJpaRepository;
+import ru.klosep.performance_management.parsing.BinaryTaskReader;
+import ru.klosep.performance_management.parsing.CsvIngestPipeline;
+import ru.klosep.performance_management.parsing.CsvTaskTokenizer;
+import ru.klosep.performance_management.parsing.ParallelCsvTaskParser;
+import ru.klosep.performance_management.parsing.TaskRecordReader;
+import ru.klosep.performance_management.port.TaskSink;
+import ru.klosep.performance_management.postgres.entity.IngestCheckpointEntity;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -21,13 +38,58 @@ public class TaskParsingService {
     private MeterRegistry meterRegistry;
 
     @Autowired
-    private TaskJpaRepository taskRepository;
+    @Qualifier("jpaTaskSink")
+    private TaskSink jpaSink;
+
+    @Autowired
+    @Qualifier("postgresCopyTaskSink")
+    private TaskSink copySink;
+
+    @Autowired
+    @Qualifier("mongoBulkTaskSink")
+    private TaskSink mongoSink;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private IngestCheckpointService checkpoints;
+
+    @Autowired
+    private TaskDedupService dedup;
+
+    @Autowired
+    private TaskRollupService rollups;
+
+    @Value("${task.parsing.chunk-size:5000}")
+    private int defaultChunkSize;
+
+    @Value("${task.parsing.parallelism:0}")
+    private int parallelism;
+
+    @Value("${task.parsing.partition-size-mb:8}")
+    private int partitionSizeMb;
+
+    @Value("${task.parsing.pipeline.parse-threads:0}")
+    private int pipelineParseThreads;
+
+    @Value("${task.parsing.pipeline.writer-threads:1}")
+    private int pipelineWriterThreads;
+
+    @Value("${task.parsing.pipeline.queue-capacity:4}")
+    private int pipelineQueueCapacity;
+
+    @Value("${task.parsing.pipeline.block-size-kb:1024}")
+    private int pipelineBlockSizeKb;
 
     // Кастомные метрики
     private final Counter successCounter;
     private final Counter errorCounter;
     private final Counter recordsCounter;
+    private final Counter chunksCounter;
+    private final Counter resumedCounter;
     private final Timer parsingTimer;
+    private final CsvIngestPipeline.Metrics pipelineMetrics;
     private final AtomicInteger currentlyParsing = new AtomicInteger(0);
 
     public TaskParsingService(MeterRegistry registry) {
@@ -43,6 +105,16 @@ public class TaskParsingService {
                 .description("Total records parsed")
                 .register(registry);
 
+        this.chunksCounter = Counter.builder("task.parsing.chunks")
+                .description("Chunks committed in streaming mode")
+                .register(registry);
+
+        this.resumedCounter = Counter.builder("task.parsing.resumed")
+                .description("File loads resumed from a checkpoint")
+                .register(registry);
+
+        this.pipelineMetrics = new CsvIngestPipeline.Metrics(registry);
+
         this.parsingTimer = Timer.builder("task.parsing.duration")
                 .description("Time taken to parse tasks")
                 .register(registry);
@@ -59,25 +131,36 @@ public class TaskParsingService {
 
     @Timed(value = "task.parsing.file.operation", description = "Complete file parsing operation")
     public ParseResult parseAndSaveTasksFromFile(String filename) {
+        return parseAndSaveTasksFromFile(filename, ParseOptions.batch());
+    }
+
+    @Timed(value = "task.parsing.file.operation", description = "Complete file parsing operation")
+    public ParseResult parseAndSaveTasksFromFile(String filename, ParseOptions options) {
         currentlyParsing.incrementAndGet();
 
         try {
             return parsingTimer.record(() -> {
                 try {
-                    // Этап 1: Чтение файла
-                    List<Task> tasks = readTasksFromFile(filename);
-
-                    // Этап 2: Валидация
-                    List<Task> validTasks = validateTasks(tasks);
-
-                    // Этап 3: Сохранение в БД
-                    int savedCount = saveTasksToDB(validTasks);
+                    FileFormat format = options.getFormat();
+                    boolean resume = options.isResume();
+                    ParseResult result = switch (options.getMode()) {
+                        case BATCH -> resume
+                                ? new ParseResult(false, 0, 0, "BATCH mode commits once and cannot be resumed")
+                                : parseBatch(filename, format, options);
+                        case STREAMING -> parseStreaming(filename, format, resolveChunkSize(options), options, resume);
+                        case PARALLEL -> parseParallel(filename, format, options, resume);
+                        case PIPELINED -> parsePipelined(filename, format, options, resume);
+                    };
 
                     // Обновляем метрики
-                    successCounter.increment();
-                    recordsCounter.increment(savedCount);
+                    if (result.success) {
+                        successCounter.increment();
+                    } else {
+                        errorCounter.increment();
+                    }
+                    recordsCounter.increment(result.recordsSaved);
 
-                    return new ParseResult(true, validTasks.size(), savedCount, null);
+                    return result;
 
                 } catch (Exception e) {
                     errorCounter.increment();
@@ -89,30 +172,323 @@ public class TaskParsingService {
         }
     }
 
+    /**
+     * Загружает только дописанный с прошлого вызова хвост CSV-файла.
+     * Недописанная последняя строка остаётся до следующего вызова.
+     * Используется {@code TaskDirectoryWatcher}.
+     */
+    public ParseResult ingestAppended(String filename, SinkType sink, ImportMode importMode) {
+        ParseOptions options = new ParseOptions(ParseMode.STREAMING, defaultChunkSize, sink);
+        options.setImportMode(importMode);
+
+        List<ChunkStats> chunks = new ArrayList<>();
+        IngestCheckpointEntity checkpoint;
+        try {
+            checkpoint = checkpoints.startTail(Path.of(filename), sink, importMode);
+        } catch (Exception e) {
+            return new ParseResult(false, 0, 0, e.getMessage());
+        }
+
+        String key = checkpoint.getFileKey();
+        int chunkBase = checkpoint.getChunksCommitted();
+        long start = checkpoint.getCommittedOffset();
+
+        try (FileChannel channel = openFile(filename)) {
+            if (start >= channel.size()) {
+                return new ParseResult(true, 0, 0, null, List.of(), checkpoint.getCommittedRows());
+            }
+
+            CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel, start, channel.size(), true);
+            if (start == 0 && !tokenizer.nextRecord()) {
+                // Заголовок ещё не дописан
+                return new ParseResult(true, 0, 0, null, List.of(), 0);
+            }
+
+            List<Task> chunk = new ArrayList<>(defaultChunkSize);
+            long readStart = System.nanoTime();
+
+            Task task;
+            while ((task = tokenizer.nextTask()) != null) {
+                chunk.add(task);
+
+                if (chunk.size() >= defaultChunkSize) {
+                    chunks.add(saveChunk(chunkBase + chunks.size(), chunk, System.nanoTime() - readStart,
+                            options, key, tokenizer.position()));
+                    chunk.clear();
+                    readStart = System.nanoTime();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                chunks.add(saveChunk(chunkBase + chunks.size(), chunk, System.nanoTime() - readStart,
+                        options, key, tokenizer.position()));
+            }
+
+        } catch (Exception e) {
+            checkpoints.fail(key, e.getMessage());
+            return chunkedResult(false, e.getMessage(), chunks, checkpoint.getCommittedRows());
+        }
+
+        ParseResult result = chunkedResult(true, null, chunks, checkpoint.getCommittedRows());
+        recordsCounter.increment(result.recordsSaved);
+        return result;
+    }
+
+    // Исходный режим: весь файл в памяти, одна транзакция
+    private ParseResult parseBatch(String filename, FileFormat format, ParseOptions options) throws Exception {
+        // Этап 1: Чтение файла
+        List<Task> tasks = readTasksFromFile(filename, format);
+
+        // Этап 2: Валидация
+        List<Task> validTasks = validateTasks(tasks);
+
+        // Этап 3: Сохранение в БД
+        int savedCount = saveTasks(validTasks, options);
+
+        return new ParseResult(true, validTasks.size(), savedCount, null);
+    }
+
+    // Потоковый режим: на куче не больше одного чанка, коммит на каждый чанк.
+    // При ошибке уже закоммиченные чанки остаются в БД и попадают в результат,
+    // а с resume=true следующий запуск продолжит с последнего checkpoint-а.
+    private ParseResult parseStreaming(String filename, FileFormat format, int chunkSize,
+                                       ParseOptions options, boolean resume) {
+        List<ChunkStats> chunks = new ArrayList<>();
+        IngestCheckpointEntity checkpoint;
+        try {
+            checkpoint = startCheckpoint(filename, format, options, resume);
+        } catch (Exception e) {
+            return new ParseResult(false, 0, 0, e.getMessage());
+        }
+        if (checkpoint.getStatus() == IngestCheckpointEntity.Status.COMPLETED) {
+            return alreadyCompleted(checkpoint);
+        }
+
+        String key = checkpoint.getFileKey();
+        int chunkBase = checkpoint.getChunksCommitted();
+        long resumedRows = checkpoint.getCommittedRows();
+
+        try (FileChannel channel = openFile(filename)) {
+            TaskRecordReader reader = openReader(channel, format, checkpoint.getCommittedOffset());
+
+            List<Task> chunk = new ArrayList<>(chunkSize);
+            long readStart = System.nanoTime();
+
+            Task task;
+            while ((task = reader.nextTask()) != null) {
+                chunk.add(task);
+
+                if (chunk.size() >= chunkSize) {
+                    chunks.add(saveChunk(chunkBase + chunks.size(), chunk, System.nanoTime() - readStart,
+                            options, key, reader.position()));
+                    chunk.clear();
+                    readStart = System.nanoTime();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                chunks.add(saveChunk(chunkBase + chunks.size(), chunk, System.nanoTime() - readStart,
+                        options, key, reader.position()));
+            }
+
+        } catch (Exception e) {
+            checkpoints.fail(key, e.getMessage());
+            return chunkedResult(false, e.getMessage(), chunks, resumedRows);
+        }
+
+        checkpoints.complete(key);
+        return chunkedResult(true, null, chunks, resumedRows);
+    }
+
+    // Параллельный режим: диапазоны файла разбираются на виртуальных потоках,
+    // а сохраняются в исходном порядке, по одной транзакции на диапазон
+    private ParseResult parseParallel(String filename, FileFormat format, ParseOptions options, boolean resume) {
+        if (format != FileFormat.CSV) {
+            // Границы бинарных записей нельзя найти без последовательного прохода
+            return new ParseResult(false, 0, 0, "PARALLEL mode supports only CSV files");
+        }
+
+        List<ChunkStats> chunks = new ArrayList<>();
+        IngestCheckpointEntity checkpoint;
+        try {
+            checkpoint = startCheckpoint(filename, format, options, resume);
+        } catch (Exception e) {
+            return new ParseResult(false, 0, 0, e.getMessage());
+        }
+        if (checkpoint.getStatus() == IngestCheckpointEntity.Status.COMPLETED) {
+            return alreadyCompleted(checkpoint);
+        }
+
+        String key = checkpoint.getFileKey();
+        int chunkBase = checkpoint.getChunksCommitted();
+        long resumedRows = checkpoint.getCommittedRows();
+        ParallelCsvTaskParser parser = new ParallelCsvTaskParser(
+                parallelism, partitionSizeMb * 1024L * 1024L);
+
+        try {
+            // Диапазоны сохраняются по порядку, поэтому конец диапазона - корректный checkpoint
+            parser.parseInOrder(Path.of(filename), checkpoint.getCommittedOffset(), partition ->
+                    chunks.add(saveChunk(chunkBase + partition.index, partition.tasks, partition.parseNanos,
+                            options, key, partition.range.end)));
+        } catch (Exception e) {
+            checkpoints.fail(key, e.getMessage());
+            return chunkedResult(false, e.getMessage(), chunks, resumedRows);
+        }
+
+        checkpoints.complete(key);
+        return chunkedResult(true, null, chunks, resumedRows);
+    }
+
+    // Конвейерный режим: пока writer коммитит чанк, следующие блоки читаются и разбираются
+    private ParseResult parsePipelined(String filename, FileFormat format, ParseOptions options, boolean resume) {
+        if (format != FileFormat.CSV) {
+            return new ParseResult(false, 0, 0, "PIPELINED mode supports only CSV files");
+        }
+
+        CsvIngestPipeline pipeline = new CsvIngestPipeline(pipelineParseThreads, pipelineWriterThreads,
+                pipelineQueueCapacity, pipelineBlockSizeKb * 1024, pipelineMetrics);
+        if (!pipeline.isOrdered()) {
+            // Несколько writer-ов коммитят чанки не по порядку - одного смещения для продолжения нет
+            return resume
+                    ? new ParseResult(false, 0, 0, "resume requires task.parsing.pipeline.writer-threads=1")
+                    : runPipeline(pipeline, filename, options, null, 0, 0);
+        }
+
+        IngestCheckpointEntity checkpoint;
+        try {
+            checkpoint = startCheckpoint(filename, format, options, resume);
+        } catch (Exception e) {
+            return new ParseResult(false, 0, 0, e.getMessage());
+        }
+        if (checkpoint.getStatus() == IngestCheckpointEntity.Status.COMPLETED) {
+            return alreadyCompleted(checkpoint);
+        }
+
+        ParseResult result = runPipeline(pipeline, filename, options, checkpoint.getFileKey(),
+                checkpoint.getCommittedOffset(), checkpoint.getChunksCommitted());
+        if (result.success) {
+            checkpoints.complete(checkpoint.getFileKey());
+        } else {
+            checkpoints.fail(checkpoint.getFileKey(), result.errorMessage);
+        }
+        return new ParseResult(result.success, result.recordsParsed, result.recordsSaved, result.errorMessage,
+                result.chunks, checkpoint.getCommittedRows());
+    }
+
+    private ParseResult runPipeline(CsvIngestPipeline pipeline, String filename, ParseOptions options,
+                                    String checkpointKey, long startOffset, int chunkBase) {
+        List<ChunkStats> chunks = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            pipeline.run(Path.of(filename), startOffset, this::validateTasks, chunk -> {
+                ChunkStats stats = commitChunk(chunkBase + chunk.sequence, chunk.recordsRead, chunk.tasks,
+                        chunk.parseNanos, options, checkpointKey, chunk.endOffset);
+                chunks.add(stats);
+                return stats.recordsSaved;
+            });
+        } catch (Exception e) {
+            return chunkedResult(false, e.getMessage(), sorted(chunks), 0);
+        }
+
+        return chunkedResult(true, null, sorted(chunks), 0);
+    }
+
+    private static List<ChunkStats> sorted(List<ChunkStats> chunks) {
+        synchronized (chunks) {
+            return chunks.stream().sorted(Comparator.comparingInt(c -> c.index)).toList();
+        }
+    }
+
+    private IngestCheckpointEntity startCheckpoint(String filename, FileFormat format, ParseOptions options,
+                                                   boolean resume) throws IOException {
+        IngestCheckpointEntity checkpoint = checkpoints.start(Path.of(filename), format,
+                options.getSink(), options.getImportMode(), resume);
+        if (checkpoint.getCommittedOffset() > 0
+                && checkpoint.getStatus() != IngestCheckpointEntity.Status.COMPLETED) {
+            resumedCounter.increment();
+        }
+        return checkpoint;
+    }
+
+    // Повторный запуск с resume=true для уже загруженного файла ничего не пишет
+    private ParseResult alreadyCompleted(IngestCheckpointEntity checkpoint) {
+        return new ParseResult(true, 0, 0, null, List.of(), checkpoint.getCommittedRows());
+    }
+
+    private ParseResult chunkedResult(boolean success, String errorMessage, List<ChunkStats> chunks,
+                                      long resumedRows) {
+        int parsedCount = chunks.stream().mapToInt(c -> c.recordsValid).sum();
+        int savedCount = chunks.stream().mapToInt(c -> c.recordsSaved).sum();
+        return new ParseResult(success, parsedCount, savedCount, errorMessage, chunks, resumedRows);
+    }
+
+    // endOffset - позиция сразу за последней записью чанка
+    private ChunkStats saveChunk(int index, List<Task> chunk, long readNanos, ParseOptions options,
+                                 String checkpointKey, long endOffset) {
+        return commitChunk(index, chunk.size(), validateTasks(chunk), readNanos, options, checkpointKey, endOffset);
+    }
+
+    // checkpointKey == null - без checkpoint-а (чанки коммитятся не по порядку)
+    private ChunkStats commitChunk(int index, int recordsRead, List<Task> validTasks, long readNanos,
+                                   ParseOptions options, String checkpointKey, long endOffset) {
+        long saveStart = System.nanoTime();
+        // Отдельная транзакция: persistence context очищается после каждого коммита.
+        // Checkpoint сдвигается в той же транзакции, что и запись данных.
+        Integer saved = transactionTemplate.execute(status -> {
+            int count = saveTasks(validTasks, options);
+            if (checkpointKey != null) {
+                checkpoints.advance(checkpointKey, endOffset, recordsRead, count);
+            }
+            return count;
+        });
+        long saveNanos = System.nanoTime() - saveStart;
+
+        chunksCounter.increment();
+
+        return new ChunkStats(index, recordsRead, validTasks.size(),
+                saved != null ? saved : 0,
+                readNanos / 1_000_000, saveNanos / 1_000_000);
+    }
+
+    private int resolveChunkSize(ParseOptions options) {
+        Integer chunkSize = options.getChunkSize();
+        return chunkSize != null && chunkSize > 0 ? chunkSize : defaultChunkSize;
+    }
+
     @Timed(value = "task.parsing.read", description = "Read tasks from file")
-    private List<Task> readTasksFromFile(String filename) throws Exception {
+    private List<Task> readTasksFromFile(String filename, FileFormat format) throws Exception {
         List<Task> tasks = new ArrayList<>();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line = reader.readLine(); // Пропускаем заголовок
-
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 4) {
-                    Task task = new Task(
-                            Long.parseLong(parts[0].trim()),
-                            parts[1].trim().replace("\"", ""),
-                            parts[2].trim().replace("\"", ""),
-                            Boolean.parseBoolean(parts[3].trim())
-                    );
-                    tasks.add(task);
-                }
+        try (FileChannel channel = openFile(filename)) {
+            TaskRecordReader reader = openReader(channel, format, 0);
+
+            Task task;
+            while ((task = reader.nextTask()) != null) {
+                tasks.add(task);
             }
         }
 
         return tasks;
     }
 
+    private FileChannel openFile(String filename) throws IOException {
+        return FileChannel.open(Path.of(filename), StandardOpenOption.READ);
+    }
+
+    // Читатель, стоящий на первой записи с данными или на offset (граница записи из checkpoint-а)
+    private TaskRecordReader openReader(FileChannel channel, FileFormat format, long offset) throws IOException {
+        if (format == FileFormat.BINARY) {
+            return offset > 0 ? new BinaryTaskReader(channel, offset) : new BinaryTaskReader(channel);
+        }
+        if (offset > 0) {
+            return new CsvTaskTokenizer(channel, offset, channel.size());
+        }
+
+        CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel);
+        tokenizer.nextRecord(); // Пропускаем заголовок
+        return tokenizer;
+    }
+
     @Timed(value = "task.parsing.validate", description = "Validate tasks")
     private List<Task> validateTasks(List<Task> tasks) {
         return tasks.stream()
@@ -121,22 +497,56 @@ public class TaskParsingService {
     }
 
     @Timed(value = "task.parsing.save", description = "Save tasks to database")
-    private int saveTasksToDB(List<Task> tasks) {
-        List<TaskEntity> entities = new ArrayList<>();
+    private int saveTasks(List<Task> tasks, ParseOptions options) {
+        SinkType sinkType = options.getSink();
+        TaskSink sink = switch (sinkType) {
+            case JPA -> jpaSink;
+            case COPY -> copySink;
+            case MONGO -> mongoSink;
+        };
 
-        for (Task task : tasks) {
-            TaskEntity entity = new TaskEntity(
-                    task.getTitle(),
-                    task.getDescription(),
-                    task.isCompleted()
-            );
-            entities.add(entity);
+        boolean upsert = options.getImportMode() == ImportMode.UPSERT;
+        if (upsert) {
+            // Неизменённые с прошлого импорта записи в БД не отправляем
+            tasks = dedup.changed(sinkType, tasks);
+            if (tasks.isEmpty()) {
+                return 0;
+            }
         }
 
-        // Batch insert (оптимизация!)
-        taskRepository.saveAll(entities);
+        String tag = sinkType.name().toLowerCase();
+        Timer.Sample sample = Timer.start(meterRegistry);
 
-        return entities.size();
+        // Роллап дня обновляется в транзакции чанка вместе с данными.
+        // При UPSERT учитываются только вставленные строки - обновлённые посчитаны при вставке.
+        // Роллапы описывают таблицу tasks в PostgreSQL - загрузки в Mongo в них не попадают
+        List<Task> inserted;
+        int saved;
+        if (upsert) {
+            TaskSink.UpsertResult result = sink.upsert(tasks);
+            saved = result.saved();
+            inserted = result.inserted();
+            dedup.committed(sinkType, tasks);
+        } else {
+            saved = sink.write(tasks);
+            inserted = tasks;
+        }
+        if (sinkType != SinkType.MONGO) {
+            rollups.record(inserted);
+        }
+
+        // Метрики по приёмнику - для сравнения JPA, COPY и Mongo на одних и тех же файлах
+        sample.stop(Timer.builder("task.parsing.sink.duration")
+                .description("Time spent writing a batch to the sink")
+                .tag("sink", tag)
+                .register(meterRegistry));
+        Counter.builder("task.parsing.sink.records")
+                .description("Records written to the sink")
+                .tag("sink", tag)
+                .register(meterRegistry)
+                .increment(saved);
+
+        return saved;
     }
 
     public static class ParseResult {
@@ -144,12 +554,45 @@ public class TaskParsingService {
         public final int recordsParsed;
         public final int recordsSaved;
         public final String errorMessage;
+        public final List<ChunkStats> chunks; // пусто для BATCH
+        public final long resumedRows; // строк, закоммиченных предыдущими запусками
 
         public ParseResult(boolean success, int recordsParsed, int recordsSaved, String errorMessage) {
+            this(success, recordsParsed, recordsSaved, errorMessage, List.of());
+        }
+
+        public ParseResult(boolean success, int recordsParsed, int recordsSaved, String errorMessage,
+                           List<ChunkStats> chunks) {
+            this(success, recordsParsed, recordsSaved, errorMessage, chunks, 0);
+        }
+
+        public ParseResult(boolean success, int recordsParsed, int recordsSaved, String errorMessage,
+                           List<ChunkStats> chunks, long resumedRows) {
             this.success = success;
             this.recordsParsed = recordsParsed;
             this.recordsSaved = recordsSaved;
             this.errorMessage = errorMessage;
+            this.chunks = chunks;
+            this.resumedRows = resumedRows;
+        }
+    }
+
+    public static class ChunkStats {
+        public final int index;
+        public final int recordsRead;
+        public final int recordsValid;
+        public final int recordsSaved;
+        public final long readMs;
+        public final long saveMs;
+
+        public ChunkStats(int index, int recordsRead, int recordsValid, int recordsSaved,
+                          long readMs, long saveMs) {
+            this.index = index;
+            this.recordsRead = recordsRead;
+            this.recordsValid = recordsValid;
+            this.recordsSaved = recordsSaved;
+            this.readMs = readMs;
+            this.saveMs = saveMs;
         }
     }
-}
\ No newline at end of file
+}
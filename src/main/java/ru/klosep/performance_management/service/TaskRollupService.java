@@ -0,0 +1,221 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.klosep.performance_management.model.QuantileSketch;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.model.TaskStatistics;
+import ru.klosep.performance_management.postgres.entity.TaskDailyRollupEntity;
+import ru.klosep.performance_management.postgres.repository.TaskDailyRollupRepository;
+import ru.klosep.performance_management.postgres.repository.TaskJpaRepository;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Дневные роллапы загруженных задач: количество, выполненные, сумма длин
+ * названий и {@link QuantileSketch} длин названий.
+ * <p>
+ * Роллап дня обновляется при загрузке каждого чанка ({@link #record}) в той
+ * же транзакции, что и запись задач. Запрос за год читает не больше 366
+ * строк и не трогает таблицу задач; недели собираются слиянием дней.
+ * <p>
+ * Роллапы описывают таблицу tasks в PostgreSQL; день - дата created_at.
+ * Задачи, загруженные до появления роллапов, учитывает {@link #backfill}.
+ */
+@Service
+public class TaskRollupService {
+
+    public enum Granularity { DAY, WEEK }
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    @Autowired
+    private TaskDailyRollupRepository repository;
+
+    @Autowired
+    private TaskJpaRepository taskRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Timer updateTimer;
+
+    public TaskRollupService(MeterRegistry registry) {
+        this.updateTimer = Timer.builder("task.rollup.update")
+                .description("Time to merge a chunk into its daily rollup")
+                .register(registry);
+    }
+
+    /**
+     * Добавляет вставленные задачи в роллап текущего дня: новые строки получают
+     * createdAt по часам JVM в момент записи, обновлённые сюда не передаются.
+     * Внутри транзакции чанка - в ней же, иначе в собственной транзакции.
+     */
+    public void record(List<Task> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        long completed = 0;
+        long titleLengthSum = 0;
+        QuantileSketch sketch = new QuantileSketch();
+        for (Task task : tasks) {
+            if (task.isCompleted()) {
+                completed++;
+            }
+            int length = TaskStatistics.titleLength(task);
+            titleLengthSum += length;
+            sketch.add(length);
+        }
+
+        LocalDate day = LocalDate.now();
+        long chunkCompleted = completed;
+        long chunkTitleLengthSum = titleLengthSum;
+
+        updateTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            repository.insertIfAbsent(day, new QuantileSketch().toBytes());
+            TaskDailyRollupEntity rollup = repository.findForUpdate(day)
+                    .orElseThrow(() -> new IllegalStateException("No rollup row for " + day));
+
+            rollup.setTotal(rollup.getTotal() + tasks.size());
+            rollup.setCompleted(rollup.getCompleted() + chunkCompleted);
+            rollup.setTitleLengthSum(rollup.getTitleLengthSum() + chunkTitleLengthSum);
+            rollup.setTitleLengthSketch(QuantileSketch.fromBytes(rollup.getTitleLengthSketch())
+                    .merge(sketch)
+                    .toBytes());
+        }));
+    }
+
+    /**
+     * Пересобирает все роллапы по таблице tasks, группируя по дате created_at:
+     * разовая операция для задач, загруженных до появления роллапов, и для
+     * дней, разошедшихся с таблицей (чанк, записанный на границе суток).
+     * Строки роллапов заменяются в одной транзакции; задачи читаются потоком
+     * по возрастанию created_at, в памяти - только текущий день. Загрузки на
+     * время пересборки лучше остановить. Возвращает количество дней.
+     */
+    public int backfill() {
+        Integer days = transactionTemplate.execute(status -> {
+            repository.deleteAllInBatch();
+
+            int saved = 0;
+            PeriodBuilder current = null;
+            try (Stream<Object[]> rows = taskRepository.streamRollupRows()) {
+                for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                    LocalDate day = row[0] instanceof Date date ? date.toLocalDate() : (LocalDate) row[0];
+                    if (current == null || !current.start.equals(day)) {
+                        if (current != null) {
+                            repository.save(current.toRollup());
+                            saved++;
+                        }
+                        current = new PeriodBuilder(day);
+                    }
+                    current.add((Boolean) row[1], ((Number) row[2]).intValue());
+                }
+            }
+            if (current != null) {
+                repository.save(current.toRollup());
+                saved++;
+            }
+            return saved;
+        });
+
+        System.out.println("📊 Task rollups rebuilt from the tasks table: " + days + " days");
+        return days;
+    }
+
+    // Периоды [from, to] по дням или ISO-неделям; дни без задач пропускаются
+    public List<Period> query(LocalDate from, LocalDate to, Granularity granularity) {
+        List<Period> periods = new ArrayList<>();
+        PeriodBuilder current = null;
+
+        for (TaskDailyRollupEntity rollup : repository.findByDayBetweenOrderByDay(from, to)) {
+            LocalDate start = granularity == Granularity.WEEK
+                    ? rollup.getDay().with(DayOfWeek.MONDAY)
+                    : rollup.getDay();
+            if (current == null || !current.start.equals(start)) {
+                if (current != null) {
+                    periods.add(current.build());
+                }
+                current = new PeriodBuilder(start);
+            }
+            current.add(rollup);
+        }
+        if (current != null) {
+            periods.add(current.build());
+        }
+        return periods;
+    }
+
+    private static class PeriodBuilder {
+        final LocalDate start;
+        long total;
+        long completed;
+        long titleLengthSum;
+        final QuantileSketch sketch = new QuantileSketch();
+
+        PeriodBuilder(LocalDate start) {
+            this.start = start;
+        }
+
+        void add(TaskDailyRollupEntity rollup) {
+            total += rollup.getTotal();
+            completed += rollup.getCompleted();
+            titleLengthSum += rollup.getTitleLengthSum();
+            sketch.merge(QuantileSketch.fromBytes(rollup.getTitleLengthSketch()));
+        }
+
+        void add(boolean taskCompleted, int titleLength) {
+            total++;
+            if (taskCompleted) {
+                completed++;
+            }
+            titleLengthSum += titleLength;
+            sketch.add(titleLength);
+        }
+
+        TaskDailyRollupEntity toRollup() {
+            TaskDailyRollupEntity rollup = new TaskDailyRollupEntity(start, sketch.toBytes());
+            rollup.setTotal(total);
+            rollup.setCompleted(completed);
+            rollup.setTitleLengthSum(titleLengthSum);
+            return rollup;
+        }
+
+        Period build() {
+            return new Period(start, total, completed, titleLengthSum,
+                    sketch.quantile(QUANTILES[0]), sketch.quantile(QUANTILES[1]), sketch.quantile(QUANTILES[2]));
+        }
+    }
+
+    public static class Period {
+        public final LocalDate start;
+        public final long total;
+        public final long completed;
+        public final double completionRate;
+        public final double averageTitleLength;
+        public final double titleLengthP50;
+        public final double titleLengthP90;
+        public final double titleLengthP99;
+
+        public Period(LocalDate start, long total, long completed, long titleLengthSum,
+                      double p50, double p90, double p99) {
+            this.start = start;
+            this.total = total;
+            this.completed = completed;
+            this.completionRate = total == 0 ? 0.0 : (double) completed / total;
+            this.averageTitleLength = total == 0 ? 0.0 : (double) titleLengthSum / total;
+            this.titleLengthP50 = p50;
+            this.titleLengthP90 = p90;
+            this.titleLengthP99 = p99;
+        }
+    }
+}
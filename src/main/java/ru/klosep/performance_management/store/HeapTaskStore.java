@@ -0,0 +1,62 @@
+package ru.klosep.performance_management.store;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Задачи в куче: {@link ConcurrentSkipListMap} по id.
+ * <p>
+ * {@link #get} отдаёт сам хранимый объект, а не копию. На запись - узел
+ * списка, упакованный {@code Long}, {@code Task} и его строки: при десятках
+ * миллионов задач куча и паузы GC растут - тогда {@link OffHeapTaskStore}.
+ */
+@Component
+@ConditionalOnProperty(name = "task.store.type", havingValue = "heap", matchIfMissing = true)
+public class HeapTaskStore implements TaskStore {
+
+    // Упорядочена по id - для постраничной выдачи без OFFSET
+    private final ConcurrentSkipListMap<Long, Task> tasks = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Task get(long id) {
+        return tasks.get(id);
+    }
+
+    @Override
+    public Task put(Task task) {
+        return tasks.put(task.getId(), task);
+    }
+
+    @Override
+    public Task remove(long id) {
+        return tasks.remove(id);
+    }
+
+    @Override
+    public int size() {
+        return tasks.size();
+    }
+
+    @Override
+    public List<Task> page(long after, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(limit, tasks.size()));
+        for (Task task : tasks.tailMap(after, false).values()) {
+            if (page.size() == limit) {
+                break;
+            }
+            page.add(task);
+        }
+        return page;
+    }
+
+    @Override
+    public void forEach(Consumer<Task> action) {
+        tasks.values().forEach(action);
+    }
+}
@@ -0,0 +1,567 @@
+package ru.klosep.performance_management.store;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.klosep.performance_management.model.Task;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Задачи вне кучи: примитивные ключи {@code long} и сериализованные задачи
+ * в {@link MemorySegment} (FFM API).
+ * <p>
+ * Ключи разбиты на полосы, у каждой своя таблица с открытой адресацией
+ * (линейное пробирование, удаление сдвигом без надгробий) и свой буфер
+ * записей: {@code completed}, длины и UTF-8 байты названия и описания.
+ * Слот таблицы - 16 байт: ключ и ссылка (смещение в буфере и длина записи).
+ * В куче остаются только объекты полос - GC не видит ни одной задачи.
+ * <p>
+ * Запись в полосу - под её блокировкой, чтение - без блокировок: полоса
+ * защищена счётчиком версий (seqlock), и читатель повторяет чтение, если
+ * версия изменилась. Обновление дописывает новую запись в буфер, старая
+ * становится мусором; при переполнении буфера полоса перестраивается в
+ * новые сегменты с уплотнением. Сегменты живут в {@link Arena#ofAuto()}:
+ * память старой таблицы освобождается, когда её больше не читает ни один
+ * поток. {@link #get} возвращает новую копию задачи.
+ * <p>
+ * {@link #page} идёт по отсортированному индексу ключей - битовым блокам по
+ * {@code 1 << INDEX_BLOCK_BITS} id в {@link ConcurrentSkipListMap}. Страница
+ * стоит O(limit) при любом разбросе id: пустые блоки удаляются сразу, пропусков
+ * между ними нет. Блок - 4 long в куче: для плотных id это доли байта на задачу,
+ * для совсем разреженных - около сотни байт.
+ * Ключ 0 хранится отдельно, так как 0 в таблице означает пустой слот.
+ */
+@Component
+@ConditionalOnProperty(name = "task.store.type", havingValue = "off-heap")
+public class OffHeapTaskStore implements TaskStore {
+
+    private static final int SLOT_BYTES = 16;
+    private static final int MIN_SLOTS = 16;
+    private static final long MIN_PAYLOAD_BYTES = 4096;
+
+    // Ссылка на запись: смещение в буфере (40 бит) и длина (24 бита)
+    private static final int LENGTH_BITS = 24;
+    private static final int MAX_RECORD_BYTES = (1 << LENGTH_BITS) - 1;
+    private static final long MAX_PAYLOAD_BYTES = 1L << (Long.SIZE - LENGTH_BITS);
+
+    // completed (1 байт), длины названия и описания (по 4 байта, -1 для null)
+    private static final int HEADER_BYTES = 9;
+
+    // Столько раз обход полосы пробует читать без блокировки
+    private static final int OPTIMISTIC_ATTEMPTS = 3;
+
+    // Блок индекса ключей - 256 id, 4 слова по 64 бита
+    private static final int INDEX_BLOCK_BITS = 8;
+    private static final int INDEX_BLOCK_WORDS = (1 << INDEX_BLOCK_BITS) / Long.SIZE;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    private final AtomicReference<Task> zeroTask = new AtomicReference<>();
+
+    // Номер блока (id >> INDEX_BLOCK_BITS) -> биты занятых id. Блоки неизменяемы и заменяются
+    // целиком; ключ меняется под блокировкой своей полосы, поэтому индекс не расходится с таблицей
+    private final ConcurrentSkipListMap<Long, long[]> keyIndex = new ConcurrentSkipListMap<>();
+
+    public OffHeapTaskStore(int stripes, int expectedSize) {
+        int count = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        int perStripe = Math.max(1, expectedSize / count);
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    @Autowired
+    public OffHeapTaskStore(@Value("${task.store.stripes:64}") int stripes,
+                            @Value("${task.store.expected-size:1024}") int expectedSize,
+                            MeterRegistry registry) {
+        this(stripes, expectedSize);
+
+        Gauge.builder("task.store.off_heap.bytes", this, OffHeapTaskStore::offHeapBytes)
+                .description("Native memory reserved by the off-heap task store")
+                .register(registry);
+
+        Gauge.builder("task.store.size", this, OffHeapTaskStore::size)
+                .description("Tasks in the off-heap task store")
+                .register(registry);
+    }
+
+    @Override
+    public Task get(long id) {
+        if (id == 0) {
+            return copy(zeroTask.get());
+        }
+        long hash = mix(id);
+        Stripe stripe = stripeOf(hash);
+        while (true) {
+            long version = stripe.version.get();
+            if ((version & 1) != 0) {
+                Thread.onSpinWait(); // идёт запись
+                continue;
+            }
+            byte[] record = stripe.table.read(id, hash);
+            VarHandle.acquireFence();
+            if (stripe.version.get() == version) {
+                return record != null ? decode(id, record) : null;
+            }
+        }
+    }
+
+    @Override
+    public Task put(Task task) {
+        if (task.getId() == null) {
+            throw new IllegalArgumentException("Task id is required");
+        }
+        long id = task.getId();
+        if (id == 0) {
+            synchronized (zeroTask) {
+                index(id, true);
+                return zeroTask.getAndSet(copy(task));
+            }
+        }
+
+        byte[] record = encode(task);
+        long hash = mix(id);
+        Stripe stripe = stripeOf(hash);
+        stripe.lock.lock();
+        try {
+            Task previous = stripe.put(id, hash, record);
+            index(id, true);
+            return previous;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public Task remove(long id) {
+        if (id == 0) {
+            synchronized (zeroTask) {
+                index(id, false);
+                return zeroTask.getAndSet(null);
+            }
+        }
+        long hash = mix(id);
+        Stripe stripe = stripeOf(hash);
+        stripe.lock.lock();
+        try {
+            Task removed = stripe.remove(id, hash);
+            if (removed != null) {
+                index(id, false);
+            }
+            return removed;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        int size = zeroTask.get() != null ? 1 : 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    @Override
+    public List<Task> page(long after, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(limit, size()));
+        if (limit <= 0 || after == Long.MAX_VALUE) {
+            return page;
+        }
+        long from = after + 1;
+        for (Map.Entry<Long, long[]> block : keyIndex.tailMap(from >> INDEX_BLOCK_BITS, true).entrySet()) {
+            long base = block.getKey() << INDEX_BLOCK_BITS;
+            long[] words = block.getValue();
+            for (int word = 0; word < words.length; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    long id = base + word * (long) Long.SIZE + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (id < from) {
+                        continue;
+                    }
+                    // Задачу могли удалить после чтения блока
+                    Task task = get(id);
+                    if (task != null) {
+                        page.add(task);
+                        if (page.size() == limit) {
+                            return page;
+                        }
+                    }
+                }
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void forEach(Consumer<Task> action) {
+        Task zero = zeroTask.get();
+        if (zero != null) {
+            action.accept(copy(zero));
+        }
+        // Полоса копируется целиком и отдаётся без блокировок
+        for (Stripe stripe : stripes) {
+            stripe.snapshot().forEach(action);
+        }
+    }
+
+    // Занятая нативная память: таблицы и буферы записей всех полос
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            Table table = stripe.table;
+            bytes += table.slots.byteSize() + table.payload.byteSize();
+        }
+        return bytes;
+    }
+
+    // Ставит или снимает бит id; опустевший блок удаляется
+    private void index(long id, boolean present) {
+        int bit = (int) (id & ((1 << INDEX_BLOCK_BITS) - 1));
+        keyIndex.compute(id >> INDEX_BLOCK_BITS, (block, words) -> {
+            long[] updated = words != null ? words.clone() : new long[INDEX_BLOCK_WORDS];
+            if (present) {
+                updated[bit >>> 6] |= 1L << bit;
+            } else {
+                updated[bit >>> 6] &= ~(1L << bit);
+                for (long word : updated) {
+                    if (word != 0) {
+                        return updated;
+                    }
+                }
+                return null;
+            }
+            return updated;
+        });
+    }
+
+    private Stripe stripeOf(long hash) {
+        return stripes[(int) (hash >>> 32) & stripeMask];
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        // Нечётное значение - идёт запись
+        final AtomicLong version = new AtomicLong();
+        volatile Table table;
+        volatile int size; // меняется под lock
+
+        Stripe(int expectedSize) {
+            table = new Table(slotsFor(expectedSize), MIN_PAYLOAD_BYTES);
+        }
+
+        Task put(long key, long hash, byte[] record) {
+            Table table = this.table;
+            int slot = table.find(key, hash);
+            boolean exists = table.keyAt(slot) == key;
+            if ((!exists && size + 1 > table.resizeAt)
+                    || table.payloadUsed + record.length > table.payload.byteSize()) {
+                table = rebuild(exists ? size : size + 1, record.length);
+                slot = table.find(key, hash);
+            }
+
+            Task previous = null;
+            if (exists) {
+                byte[] old = table.recordAt(slot);
+                previous = decode(key, old);
+                table.garbage += old.length;
+            }
+
+            // Новая запись пишется в свободную часть буфера - читатели её ещё не видят
+            long start = table.payloadUsed;
+            MemorySegment.copy(record, 0, table.payload, ValueLayout.JAVA_BYTE, start, record.length);
+            table.payloadUsed += record.length;
+
+            beginWrite();
+            table.setSlot(slot, key, start << LENGTH_BITS | record.length);
+            endWrite();
+
+            if (!exists) {
+                size++;
+            }
+            return previous;
+        }
+
+        Task remove(long key, long hash) {
+            Table table = this.table;
+            int slot = table.find(key, hash);
+            if (table.keyAt(slot) != key) {
+                return null;
+            }
+            byte[] old = table.recordAt(slot);
+            table.garbage += old.length;
+
+            beginWrite();
+            // Сдвигаем назад записи цепочки, которым освободившийся слот по пути
+            int hole = slot;
+            int next = (hole + 1) & table.mask;
+            long nextKey;
+            while ((nextKey = table.keyAt(next)) != 0) {
+                int ideal = (int) mix(nextKey) & table.mask;
+                if (((next - ideal) & table.mask) >= ((next - hole) & table.mask)) {
+                    table.setSlot(hole, nextKey, table.refAt(next));
+                    hole = next;
+                }
+                next = (next + 1) & table.mask;
+            }
+            table.setSlot(hole, 0, 0);
+            endWrite();
+
+            size--;
+            return decode(key, old);
+        }
+
+        // Копия всех записей полосы: без блокировки, если за время чтения не было записи
+        List<Task> snapshot() {
+            for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+                long version = this.version.get();
+                if ((version & 1) != 0) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                List<Object[]> records = table.readAll();
+                VarHandle.acquireFence();
+                if (this.version.get() == version) {
+                    return decodeAll(records);
+                }
+            }
+            lock.lock();
+            try {
+                return decodeAll(table.readAll());
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Новые сегменты под needed ключей и extraBytes новых данных; мусор не копируется.
+        // Старая таблица больше не меняется - начатые по ней чтения остаются корректными
+        private Table rebuild(int needed, int extraBytes) {
+            Table old = this.table;
+            long liveBytes = old.payloadUsed - old.garbage;
+            long payloadBytes = Math.max(MIN_PAYLOAD_BYTES, (liveBytes + extraBytes) * 2);
+            if (payloadBytes > MAX_PAYLOAD_BYTES) {
+                throw new IllegalStateException("Off-heap stripe exceeds " + MAX_PAYLOAD_BYTES + " bytes");
+            }
+
+            Table fresh = new Table(Math.max(slotsFor(needed), old.mask + 1), payloadBytes);
+            for (int slot = 0; slot <= old.mask; slot++) {
+                long key = old.keyAt(slot);
+                if (key == 0) {
+                    continue;
+                }
+                long ref = old.refAt(slot);
+                int length = (int) (ref & MAX_RECORD_BYTES);
+                long start = fresh.payloadUsed;
+                MemorySegment.copy(old.payload, ref >>> LENGTH_BITS, fresh.payload, start, length);
+                fresh.payloadUsed += length;
+                fresh.setSlot(fresh.find(key, mix(key)), key, start << LENGTH_BITS | length);
+            }
+
+            this.table = fresh;
+            return fresh;
+        }
+
+        private void beginWrite() {
+            version.incrementAndGet();
+            // Нечётная версия должна стать видна раньше изменённых слотов
+            VarHandle.releaseFence();
+        }
+
+        private void endWrite() {
+            version.incrementAndGet();
+        }
+    }
+
+    // Сегменты одной таблицы; payloadUsed и garbage меняются под lock полосы
+    private static final class Table {
+        final MemorySegment slots;
+        final MemorySegment payload;
+        final int mask;
+        final int resizeAt;
+
+        long payloadUsed;
+        long garbage;
+
+        Table(int capacity, long payloadBytes) {
+            Arena arena = Arena.ofAuto();
+            this.slots = arena.allocate((long) capacity * SLOT_BYTES, Long.BYTES);
+            this.payload = arena.allocate(payloadBytes, Long.BYTES);
+            this.mask = capacity - 1;
+            this.resizeAt = (int) (capacity * 0.75);
+        }
+
+        // Слот с этим ключом или пустой слот, где цепочка обрывается
+        int find(long key, long hash) {
+            int slot = (int) hash & mask;
+            long existing;
+            while ((existing = keyAt(slot)) != 0 && existing != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        long keyAt(int slot) {
+            return slots.get(ValueLayout.JAVA_LONG, (long) slot * SLOT_BYTES);
+        }
+
+        long refAt(int slot) {
+            return slots.get(ValueLayout.JAVA_LONG, (long) slot * SLOT_BYTES + Long.BYTES);
+        }
+
+        void setSlot(int slot, long key, long ref) {
+            slots.set(ValueLayout.JAVA_LONG, (long) slot * SLOT_BYTES, key);
+            slots.set(ValueLayout.JAVA_LONG, (long) slot * SLOT_BYTES + Long.BYTES, ref);
+        }
+
+        byte[] recordAt(int slot) {
+            byte[] record = copyRecord(refAt(slot));
+            if (record == null) {
+                throw new IllegalStateException("Corrupted off-heap record in slot " + slot);
+            }
+            return record;
+        }
+
+        // Чтение без блокировки: при гонке с записью данные могут быть рваными,
+        // но проверка границ не даёт выйти за сегмент - результат отбросит проверка версии
+        byte[] read(long key, long hash) {
+            int slot = (int) hash & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                long existing = keyAt(slot);
+                if (existing == 0) {
+                    return null;
+                }
+                if (existing == key) {
+                    return copyRecord(refAt(slot));
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        // Пары {ключ, запись}
+        List<Object[]> readAll() {
+            List<Object[]> records = new ArrayList<>();
+            for (int slot = 0; slot <= mask; slot++) {
+                long key = keyAt(slot);
+                if (key != 0) {
+                    records.add(new Object[]{key, copyRecord(refAt(slot))});
+                }
+            }
+            return records;
+        }
+
+        private byte[] copyRecord(long ref) {
+            long start = ref >>> LENGTH_BITS;
+            int length = (int) (ref & MAX_RECORD_BYTES);
+            if (length < HEADER_BYTES || start + length > payload.byteSize()) {
+                return null;
+            }
+            byte[] record = new byte[length];
+            MemorySegment.copy(payload, ValueLayout.JAVA_BYTE, start, record, 0, length);
+            return record;
+        }
+    }
+
+    private static List<Task> decodeAll(List<Object[]> records) {
+        List<Task> tasks = new ArrayList<>(records.size());
+        for (Object[] record : records) {
+            tasks.add(decode((Long) record[0], (byte[]) record[1]));
+        }
+        return tasks;
+    }
+
+    private static byte[] encode(Task task) {
+        byte[] title = task.getTitle() != null ? task.getTitle().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] description = task.getDescription() != null
+                ? task.getDescription().getBytes(StandardCharsets.UTF_8) : null;
+        int titleLength = title != null ? title.length : -1;
+        int descriptionLength = description != null ? description.length : -1;
+
+        long length = (long) HEADER_BYTES + Math.max(0, titleLength) + Math.max(0, descriptionLength);
+        if (length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Task " + task.getId() + " is too large: " + length + " bytes");
+        }
+
+        byte[] record = new byte[(int) length];
+        record[0] = (byte) (task.isCompleted() ? 1 : 0);
+        writeInt(record, 1, titleLength);
+        writeInt(record, 5, descriptionLength);
+        if (title != null) {
+            System.arraycopy(title, 0, record, HEADER_BYTES, title.length);
+        }
+        if (description != null) {
+            System.arraycopy(description, 0, record, HEADER_BYTES + Math.max(0, titleLength), description.length);
+        }
+        return record;
+    }
+
+    private static Task decode(long id, byte[] record) {
+        int titleLength = readInt(record, 1);
+        int descriptionLength = readInt(record, 5);
+        int position = HEADER_BYTES;
+
+        String title = null;
+        if (titleLength >= 0) {
+            title = new String(record, position, titleLength, StandardCharsets.UTF_8);
+            position += titleLength;
+        }
+        String description = descriptionLength >= 0
+                ? new String(record, position, descriptionLength, StandardCharsets.UTF_8) : null;
+        return new Task(id, title, description, record[0] != 0);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] << 24)
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+    }
+
+    private static Task copy(Task task) {
+        return task != null ? new Task(task.getId(), task.getTitle(), task.getDescription(), task.isCompleted()) : null;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int slotsFor(int expectedSize) {
+        long wanted = Math.max(MIN_SLOTS, (long) Math.ceil(expectedSize / 0.75));
+        long capacity = Long.highestOneBit(wanted - 1) << 1;
+        if (capacity > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries per stripe: " + expectedSize);
+        }
+        return (int) capacity;
+    }
+}
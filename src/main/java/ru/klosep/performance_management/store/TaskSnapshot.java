@@ -0,0 +1,168 @@
+package ru.klosep.performance_management.store;
+
+import ru.klosep.performance_management.model.Task;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Неизменяемый список задач по возрастанию id с версией данных - значение
+ * кэша "все задачи".
+ * <p>
+ * Задачи лежат кусками по {@link #CHUNK_SIZE}: {@link #with} и {@link #without}
+ * копируют только затронутый кусок и массив ссылок на куски, остальные куски
+ * общие со старым снимком. Изменение стоит O(n / CHUNK_SIZE + CHUNK_SIZE)
+ * вместо полной копии, а старый снимок остаётся целым для тех, кто его читает.
+ */
+public final class TaskSnapshot extends AbstractList<Task> implements RandomAccess, Serializable {
+
+    static final int CHUNK_SIZE = 512;
+
+    private static final Task[][] NO_CHUNKS = new Task[0][];
+
+    private final Task[][] chunks;
+    // starts[i] - индекс первой задачи куска i, starts[chunks.length] - размер
+    private final int[] starts;
+    private final long version;
+
+    private TaskSnapshot(Task[][] chunks, long version) {
+        this.chunks = chunks;
+        this.version = version;
+        this.starts = new int[chunks.length + 1];
+        for (int i = 0; i < chunks.length; i++) {
+            starts[i + 1] = starts[i] + chunks[i].length;
+        }
+    }
+
+    public static TaskSnapshot of(Collection<Task> tasks, long version) {
+        Task[] sorted = tasks.toArray(new Task[0]);
+        Arrays.sort(sorted, Comparator.comparing(Task::getId));
+
+        List<Task[]> chunks = new ArrayList<>(sorted.length / CHUNK_SIZE + 1);
+        for (int from = 0; from < sorted.length; from += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(sorted, from, Math.min(from + CHUNK_SIZE, sorted.length)));
+        }
+        return new TaskSnapshot(chunks.toArray(NO_CHUNKS), version);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Снимок с добавленной или заменённой задачей
+    public TaskSnapshot with(Task task, long version) {
+        long id = task.getId();
+        if (chunks.length == 0) {
+            return new TaskSnapshot(new Task[][]{{task}}, version);
+        }
+
+        int c = chunkFor(id);
+        Task[] chunk = chunks[c];
+        int position = indexOf(chunk, id);
+        Task[] patched;
+        if (position >= 0) {
+            patched = chunk.clone();
+            patched[position] = task;
+        } else {
+            int insertAt = -position - 1;
+            patched = new Task[chunk.length + 1];
+            System.arraycopy(chunk, 0, patched, 0, insertAt);
+            patched[insertAt] = task;
+            System.arraycopy(chunk, insertAt, patched, insertAt + 1, chunk.length - insertAt);
+        }
+
+        if (patched.length <= 2 * CHUNK_SIZE) {
+            Task[][] result = chunks.clone();
+            result[c] = patched;
+            return new TaskSnapshot(result, version);
+        }
+        // Кусок разросся - делим пополам
+        Task[][] result = new Task[chunks.length + 1][];
+        System.arraycopy(chunks, 0, result, 0, c);
+        result[c] = Arrays.copyOfRange(patched, 0, patched.length / 2);
+        result[c + 1] = Arrays.copyOfRange(patched, patched.length / 2, patched.length);
+        System.arraycopy(chunks, c + 1, result, c + 2, chunks.length - c - 1);
+        return new TaskSnapshot(result, version);
+    }
+
+    // Снимок без задачи; если её нет - те же куски с новой версией
+    public TaskSnapshot without(long id, long version) {
+        if (chunks.length == 0) {
+            return new TaskSnapshot(chunks, version);
+        }
+        int c = chunkFor(id);
+        Task[] chunk = chunks[c];
+        int position = indexOf(chunk, id);
+        if (position < 0) {
+            return new TaskSnapshot(chunks, version);
+        }
+
+        if (chunk.length == 1) {
+            Task[][] result = new Task[chunks.length - 1][];
+            System.arraycopy(chunks, 0, result, 0, c);
+            System.arraycopy(chunks, c + 1, result, c, chunks.length - c - 1);
+            return new TaskSnapshot(result, version);
+        }
+        Task[] patched = new Task[chunk.length - 1];
+        System.arraycopy(chunk, 0, patched, 0, position);
+        System.arraycopy(chunk, position + 1, patched, position, chunk.length - position - 1);
+        Task[][] result = chunks.clone();
+        result[c] = patched;
+        return new TaskSnapshot(result, version);
+    }
+
+    @Override
+    public Task get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        int c = Arrays.binarySearch(starts, 0, chunks.length, index);
+        if (c < 0) {
+            c = -c - 2;
+        }
+        return chunks[c][index - starts[c]];
+    }
+
+    @Override
+    public int size() {
+        return starts[chunks.length];
+    }
+
+    // Последний кусок, первый id которого не больше id, или 0
+    private int chunkFor(long id) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunks[middle][0].getId() <= id) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    private static int indexOf(Task[] chunk, long id) {
+        int low = 0;
+        int high = chunk.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = chunk[middle].getId();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.klosep.performance_management.store;
+
+import ru.klosep.performance_management.model.Task;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище задач TaskController по id.
+ * <p>
+ * Реализации потокобезопасны. Обходы ({@link #page}, {@link #forEach})
+ * слабо согласованы: изменения во время обхода могут быть видны или нет.
+ */
+public interface TaskStore {
+
+    // null, если задачи нет
+    Task get(long id);
+
+    // Предыдущая задача с тем же id или null
+    Task put(Task task);
+
+    Task remove(long id);
+
+    int size();
+
+    // До limit задач с id > after по возрастанию id
+    List<Task> page(long after, int limit);
+
+    // В любом порядке
+    void forEach(Consumer<Task> action);
+}
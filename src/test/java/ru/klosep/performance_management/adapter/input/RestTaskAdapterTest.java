@@ -0,0 +1,138 @@
+package ru.klosep.performance_management.adapter.input;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.klosep.performance_management.model.Task;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestTaskAdapterTest {
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger pageRequests = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldFollowPagesThroughLinkHeader() {
+        // 25 задач страницами по 10: after=0 -> 10 -> 20
+        server.createContext("/api/tasks/page", exchange -> {
+            pageRequests.incrementAndGet();
+            Map<String, String> query = query(exchange.getRequestURI());
+            long after = Long.parseLong(query.getOrDefault("after", "0"));
+            int limit = Integer.parseInt(query.get("limit"));
+            long last = Math.min(after + limit, 25);
+            if (last - after == limit) {
+                exchange.getResponseHeaders().add("Link",
+                        "</api/tasks/page?after=" + last + "&limit=" + limit + ">; rel=\"next\"");
+            }
+            respond(exchange, 200, tasksJson(after + 1, last));
+        });
+
+        RestTaskAdapter adapter = new RestTaskAdapter(baseUrl + "/api/tasks", 1000, 5000, 10);
+        List<Task> tasks = adapter.fetchTasks();
+
+        assertEquals(25, tasks.size());
+        assertEquals(1L, tasks.get(0).getId());
+        assertEquals(25L, tasks.get(24).getId());
+        assertEquals("Task 7", tasks.get(6).getTitle());
+        assertEquals(3, pageRequests.get());
+    }
+
+    @Test
+    void shouldStreamWholeArrayWhenServerHasNoPages() {
+        server.createContext("/api/tasks", exchange -> {
+            if (exchange.getRequestURI().getPath().endsWith("/page")) {
+                respond(exchange, 404, "");
+            } else {
+                respond(exchange, 200, tasksJson(1, 5));
+            }
+        });
+
+        RestTaskAdapter adapter = new RestTaskAdapter(baseUrl + "/api/tasks", 1000, 5000, 10);
+        try (Stream<Task> tasks = adapter.streamTasks()) {
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L), tasks.map(Task::getId).toList());
+        }
+    }
+
+    @Test
+    void shouldFailInsteadOfReturningEmptyListOnServerError() {
+        server.createContext("/api/tasks", exchange -> respond(exchange, 500, "boom"));
+
+        RestTaskAdapter adapter = new RestTaskAdapter(baseUrl + "/api/tasks", 1000, 5000, 10);
+        assertThrows(UncheckedIOException.class, adapter::fetchTasks);
+    }
+
+    // Неверный task.rest.url: URI.create бросает IllegalArgumentException - версии нет, анализ без кэша
+    @Test
+    void shouldTreatFailedVersionProbeAsUnknownVersion() {
+        RestTaskAdapter adapter = new RestTaskAdapter("http://bad host/api/tasks", 1000, 5000, 10);
+        assertEquals(Optional.empty(), adapter.dataVersion());
+        assertEquals(Optional.empty(), adapter.fetchStatistics());
+    }
+
+    @Test
+    void shouldWrapMalformedPageAndCloseResponse() {
+        server.createContext("/api/tasks/page", exchange ->
+                respond(exchange, 200, "[{\"id\":1,\"title\":\"Task 1\"},{\"id\":\"not a number\"}]"));
+
+        RestTaskAdapter adapter = new RestTaskAdapter(baseUrl + "/api/tasks", 1000, 5000, 10);
+        UncheckedIOException error = assertThrows(UncheckedIOException.class, adapter::fetchTasks);
+        assertTrue(error.getCause().getMessage().startsWith("Malformed tasks page"));
+    }
+
+    private static String tasksJson(long from, long to) {
+        StringBuilder json = new StringBuilder("[");
+        for (long id = from; id <= to; id++) {
+            if (id > from) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(id)
+                    .append(",\"title\":\"Task ").append(id)
+                    .append("\",\"description\":\"Desc\",\"completed\":").append(id % 2 == 0)
+                    .append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static Map<String, String> query(URI uri) {
+        return Stream.of(uri.getQuery().split("&"))
+                .map(pair -> pair.split("=", 2))
+                .collect(java.util.stream.Collectors.toMap(p -> p[0], p -> p[1]));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package ru.klosep.performance_management.adapter.output;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.klosep.performance_management.model.TaskAnalysis;
+import ru.klosep.performance_management.postgres.entity.AnalysisResultEntity;
+import ru.klosep.performance_management.postgres.repository.AnalysisResultRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class DatabaseResultAdapterTest {
+
+    @Test
+    void shouldWriteResultsInBatchesAndDropOldestWhenFull() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DatabaseResultAdapter adapter = new DatabaseResultAdapter(
+                5, 3, 60_000, DatabaseResultAdapter.DropPolicy.DROP_OLDEST, registry);
+
+        // Первая пачка "зависает" в БД, пока очередь переполняется
+        CountDownLatch dbReleased = new CountDownLatch(1);
+        List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+        AnalysisResultRepository repository = mock(AnalysisResultRepository.class);
+        when(repository.saveAll(any())).thenAnswer(invocation -> {
+            dbReleased.await(5, TimeUnit.SECONDS);
+            List<Integer> totals = new ArrayList<>();
+            for (AnalysisResultEntity entity : invocation.<Iterable<AnalysisResultEntity>>getArgument(0)) {
+                totals.add(entity.getTotalTasks());
+            }
+            batches.add(totals);
+            return List.of();
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        ReflectionTestUtils.setField(adapter, "resultRepository", repository);
+        ReflectionTestUtils.setField(adapter, "transactionTemplate", new TransactionTemplate(transactionManager));
+        adapter.start();
+
+        for (int total = 1; total <= 3; total++) {
+            adapter.publish(analysis(total));
+        }
+        // Пачка 1..3 набралась и ушла в запись; ждём, пока писатель её заберёт
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (adapter.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        // В очередь на 5 мест публикуется 7 результатов: два самых старых вытесняются
+        for (int total = 4; total <= 10; total++) {
+            adapter.publish(analysis(total));
+        }
+        assertEquals(5, adapter.getQueueDepth());
+
+        dbReleased.countDown();
+        adapter.stop();
+
+        assertEquals(List.of(List.of(1, 2, 3), List.of(6, 7, 8), List.of(9, 10)), batches);
+        assertEquals(8.0, registry.get("analysis.results.records").tag("result", "written").counter().count());
+        assertEquals(2.0, registry.get("analysis.results.records").tag("result", "dropped").counter().count());
+        assertEquals(3, registry.get("analysis.results.flush").timer().count());
+    }
+
+    private static TaskAnalysis analysis(int total) {
+        return new TaskAnalysis(total, 0, 0.0, 10.0, List.of("Recommendation"));
+    }
+}
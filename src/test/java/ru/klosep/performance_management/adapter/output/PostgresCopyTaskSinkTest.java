@@ -0,0 +1,64 @@
+package ru.klosep.performance_management.adapter.output;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.copy.CopyIn;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class PostgresCopyTaskSinkTest {
+
+    // Текстовый формат COPY: \ и управляющие символы экранируются, NULL - \N, текст - UTF-8
+    @Test
+    void shouldEncodeRowsInCopyTextFormat() throws Exception {
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        PostgresCopyTaskSink.RowWriter writer = new PostgresCopyTaskSink.RowWriter(copyIn(sent));
+
+        writer.number(-42);
+        writer.tab();
+        writer.text("back\\slash\ttab\nline\rreturn");
+        writer.tab();
+        writer.text(null);
+        writer.tab();
+        writer.text("Задача ü € 😀");
+        writer.tab();
+        writer.text("lone \uD800 surrogate");
+        writer.tab();
+        writer.text("");
+        writer.raw('\n');
+        writer.flush();
+
+        String expected = "-42\tback\\\\slash\\ttab\\nline\\rreturn\t\\N\tЗадача ü € 😀\tlone ? surrogate\t\n";
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), sent.toByteArray());
+    }
+
+    // Строка длиннее буфера уходит несколькими writeToCopy, многобайтные символы не разрываются
+    @Test
+    void shouldFlushLongMultiByteTextWithoutSplittingCharacters() throws Exception {
+        ByteArrayOutputStream sent = new ByteArrayOutputStream();
+        CopyIn copyIn = copyIn(sent);
+        PostgresCopyTaskSink.RowWriter writer = new PostgresCopyTaskSink.RowWriter(copyIn);
+
+        String text = "a😀é€\\".repeat(10_000);
+        writer.text(text);
+        writer.flush();
+
+        String escaped = text.replace("\\", "\\\\");
+        assertArrayEquals(escaped.getBytes(StandardCharsets.UTF_8), sent.toByteArray());
+        verify(copyIn, atLeast(2)).writeToCopy(any(byte[].class), anyInt(), anyInt());
+    }
+
+    private static CopyIn copyIn(ByteArrayOutputStream sent) throws Exception {
+        CopyIn copyIn = mock(CopyIn.class);
+        doAnswer(invocation -> {
+            sent.write(invocation.<byte[]>getArgument(0), invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+        return copyIn;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.klosep.performance_management.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.store.TaskSnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskRedisSerializerTest {
+
+    private final TaskRedisSerializer serializer = new TaskRedisSerializer();
+
+    @Test
+    void shouldRoundTripTaskValues() {
+        Task task = (Task) roundTrip(new Task(-7L, "Задача", null, true));
+        assertEquals(-7L, task.getId());
+        assertEquals("Задача", task.getTitle());
+        assertNull(task.getDescription());
+        assertTrue(task.isCompleted());
+
+        assertNull(((Task) roundTrip(new Task())).getId());
+
+        ResponseEntity<?> found = (ResponseEntity<?>) roundTrip(ResponseEntity.ok(new Task(5L, "Task 5", "d", false)));
+        assertEquals(HttpStatus.OK, found.getStatusCode());
+        assertEquals("Task 5", ((Task) found.getBody()).getTitle());
+        assertEquals(HttpStatus.NOT_FOUND, ((ResponseEntity<?>) roundTrip(ResponseEntity.notFound().build())).getStatusCode());
+
+        // Остальное - через JDK-сериализацию
+        assertEquals(List.of("a", "b"), roundTrip(List.of("a", "b")));
+        assertNull(serializer.deserialize(serializer.serialize(null)));
+    }
+
+    @Test
+    void shouldCompressLargeSnapshotsWellBelowJdkSize() {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5_000; i++) {
+            tasks.add(new Task((long) i, "Task " + i, "Description " + i, i % 3 == 0));
+        }
+        TaskSnapshot snapshot = TaskSnapshot.of(tasks, 42);
+
+        byte[] compact = serializer.serialize(snapshot);
+        byte[] jdk = RedisSerializer.java().serialize(snapshot);
+        assertTrue(compact.length * 3 < jdk.length, compact.length + " vs " + jdk.length);
+
+        TaskSnapshot decoded = (TaskSnapshot) serializer.deserialize(compact);
+        assertEquals(42, decoded.getVersion());
+        assertEquals(5_000, decoded.size());
+        assertEquals("Description 4999", decoded.get(4998).getDescription());
+        assertTrue(decoded.get(2).isCompleted());
+
+        compact[compact.length / 2] ^= 0x5A;
+        compact = Arrays.copyOf(compact, compact.length - 3);
+        byte[] corrupted = compact;
+        assertThrows(SerializationException.class, () -> serializer.deserialize(corrupted));
+    }
+
+    @Test
+    void shouldRoundTripArbitraryBytesThroughLz4Block() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            byte[] data = new byte[random.nextInt(5_000)];
+            // Смесь повторов и шума, включая длинные перекрывающиеся совпадения
+            int alphabet = 1 + random.nextInt(round % 2 == 0 ? 4 : 256);
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) random.nextInt(alphabet);
+            }
+            byte[] compressed = Lz4Block.compress(data);
+            assertArrayEquals(data, Lz4Block.decompress(compressed, 0, compressed.length, data.length));
+        }
+    }
+
+    private Object roundTrip(Object value) {
+        return serializer.deserialize(serializer.serialize(value));
+    }
+}
@@ -0,0 +1,207 @@
+package ru.klosep.performance_management.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.klosep.performance_management.controller.TaskController;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.store.HeapTaskStore;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredCacheManagerTest {
+
+    // Два экземпляра приложения: свои L1, общий L2 (вместо Redis - ConcurrentMapCache)
+    // и канал, который, как Redis pub/sub, доставляет сообщение всем подписчикам, включая автора
+    @Test
+    void shouldServeFromNearCacheAndDropCopiesChangedElsewhere() {
+        ConcurrentMapCacheManager shared = new ConcurrentMapCacheManager("task");
+        List<TieredCacheManager> channel = new CopyOnWriteArrayList<>();
+        SimpleMeterRegistry registryA = new SimpleMeterRegistry();
+        SimpleMeterRegistry registryB = new SimpleMeterRegistry();
+
+        TieredCacheManager a = instance(shared, channel, registryA);
+        TieredCacheManager b = instance(shared, channel, registryB);
+        Cache cacheA = a.getCache("task");
+        Cache cacheB = b.getCache("task");
+
+        cacheA.put(1L, new Task(1L, "Task 1", "v1", false));
+
+        // Первое чтение в B - из L2, дальше - из своего L1
+        assertEquals("v1", ((Task) cacheB.get(1L).get()).getDescription());
+        assertEquals("v1", ((Task) cacheB.get(1L).get()).getDescription());
+        assertEquals(1, count(registryB, "l2", "hit"));
+        assertEquals(1, count(registryB, "l1", "hit"));
+
+        // Изменение в A выбрасывает копию B, и B читает новое значение из L2
+        cacheA.put(1L, new Task(1L, "Task 1", "v2", true));
+        assertEquals("v2", ((Task) cacheB.get(1L).get()).getDescription());
+        assertEquals(2, count(registryB, "l2", "hit"));
+        // Обе записи A дошли до B
+        assertEquals(2, registryB.counter("cache.tier.invalidations",
+                "cache", "task", "direction", "received").count());
+        // Своё сообщение A пропустил - его L1 не сбрасывался
+        assertEquals(0, registryA.counter("cache.tier.invalidations",
+                "cache", "task", "direction", "received").count());
+        assertEquals(0, count(registryA, "l2", "hit"));
+
+        cacheA.evict(1L);
+        assertNull(cacheB.get(1L));
+        assertNull(shared.getCache("task").get(1L));
+
+        // Загрузка при промахе: один экземпляр грузит, второй находит значение в L2.
+        // Заполнение ничего не рассылает
+        double received = registryB.counter("cache.tier.invalidations",
+                "cache", "task", "direction", "received").count();
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("Task 2", cacheA.get(2L, () -> { loads.incrementAndGet(); return "Task 2"; }));
+        assertEquals("Task 2", cacheB.get(2L, () -> { loads.incrementAndGet(); return "Task 2"; }));
+        assertEquals(1, loads.get());
+        assertEquals(received, registryB.counter("cache.tier.invalidations",
+                "cache", "task", "direction", "received").count());
+    }
+
+    // L1 с загрузчиком, как его собирает CacheConfig: промах L1 идёт в L2, а не в источник
+    @Test
+    void shouldServeLocalMissFromSharedTierWithoutCallingOrigin() {
+        AtomicInteger originLoads = new AtomicInteger();
+        CacheLoaderRegistry loaders = new CacheLoaderRegistry();
+        loaders.register("task", key -> {
+            originLoads.incrementAndGet();
+            return "origin " + key;
+        });
+        ConcurrentMapCacheManager shared = new ConcurrentMapCacheManager("task");
+        shared.getCache("task").put(1L, "shared 1");
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Cache cache = new TieredCacheManager(CacheConfig.caffeine(loaders, 500, 600_000, 60_000, 0.1),
+                shared, message -> { }, registry).getCache("task");
+
+        assertEquals("shared 1", cache.get(1L).get());
+        assertEquals(1, count(registry, "l1", "miss"));
+        assertEquals(1, count(registry, "l2", "hit"));
+
+        assertEquals("shared 1", cache.get(1L, String.class));
+        assertEquals(1, count(registry, "l1", "hit"));
+
+        assertNull(cache.get(2L));
+        assertEquals(1, count(registry, "l2", "miss"));
+        assertEquals(0, originLoads.get());
+    }
+
+    // Снимок всех задач версионируется счётчиком изменений своего экземпляра. Будь он в L2,
+    // каждый экземпляр считал бы чужой снимок устаревшим, пересобирал и перезаписывал его
+    @Test
+    void shouldSettleAllTasksSnapshotAcrossInstancesWithDifferentVersions() {
+        ConcurrentMapCacheManager shared = new ConcurrentMapCacheManager("tasks", "task");
+        List<TieredCacheManager> channel = new CopyOnWriteArrayList<>();
+        AtomicInteger loadsA = new AtomicInteger();
+        AtomicInteger loadsB = new AtomicInteger();
+        TaskController a = controller(loadsA);
+        TaskController b = controller(loadsB);
+        b.createTask(new Task(null, "Only in B", "d", false));
+        assertNotEquals(a.dataVersion(), b.dataVersion());
+
+        ReflectionTestUtils.setField(a, "cacheManager", tieredInstance(shared, channel));
+        ReflectionTestUtils.setField(b, "cacheManager", tieredInstance(shared, channel));
+
+        List<Task> snapshotA = a.getAllTasks().getBody();
+        List<Task> snapshotB = b.getAllTasks().getBody();
+        for (int i = 0; i < 10; i++) {
+            assertSame(snapshotA, a.getAllTasks().getBody());
+            assertSame(snapshotB, b.getAllTasks().getBody());
+        }
+        assertEquals(100, snapshotA.size());
+        assertEquals(101, snapshotB.size());
+        assertEquals(1, loadsA.get());
+        assertEquals(1, loadsB.get());
+        assertNull(shared.getCache("tasks").get("all"));
+
+        // Изменение в A патчит только его снимок
+        a.deleteTask(1L);
+        assertEquals(99, a.getAllTasks().getBody().size());
+        assertSame(snapshotB, b.getAllTasks().getBody());
+        assertEquals(1, loadsA.get());
+        assertEquals(1, loadsB.get());
+    }
+
+    @Test
+    void shouldKeepWorkingLocallyWhenSharedTierFails() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SimpleCacheManager broken = new SimpleCacheManager();
+        broken.setCaches(List.of(new ConcurrentMapCache("task") {
+            @Override
+            public ValueWrapper get(Object key) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+
+            @Override
+            public void put(Object key, Object value) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+        }));
+        broken.afterPropertiesSet();
+
+        Cache cache = new TieredCacheManager(new CaffeineCacheManager("task"), broken, message -> {
+            throw new RedisConnectionFailureException("Redis is down");
+        }, registry).getCache("task");
+
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("Task 1", cache.get(1L, () -> { loads.incrementAndGet(); return "Task 1"; }));
+        assertEquals("Task 1", cache.get(1L, () -> { loads.incrementAndGet(); return "Task 1"; }));
+        assertEquals(1, loads.get());
+        // Чтение и запись в L2 при заполнении
+        assertEquals(2, registry.counter("cache.tier.errors", "cache", "task", "tier", "l2").count());
+
+        // Запись: L2 и рассылка падают, L1 обновлён
+        cache.put(1L, "Task 1 v2");
+        assertEquals("Task 1 v2", cache.get(1L).get());
+        assertEquals(4, registry.counter("cache.tier.errors", "cache", "task", "tier", "l2").count());
+    }
+
+    private static TieredCacheManager instance(ConcurrentMapCacheManager shared,
+                                               List<TieredCacheManager> channel,
+                                               SimpleMeterRegistry registry) {
+        TieredCacheManager manager = new TieredCacheManager(new CaffeineCacheManager("task"), shared,
+                message -> channel.forEach(subscriber -> subscriber.onInvalidation(message)), registry);
+        channel.add(manager);
+        return manager;
+    }
+
+    private static TieredCacheManager tieredInstance(ConcurrentMapCacheManager shared,
+                                                     List<TieredCacheManager> channel) {
+        TieredCacheManager manager = new TieredCacheManager(CacheConfig.caffeine(null, 500, 120_000, 0, 0.1),
+                shared, Set.of("tasks"), message -> channel.forEach(subscriber -> subscriber.onInvalidation(message)),
+                new SimpleMeterRegistry());
+        channel.add(manager);
+        return manager;
+    }
+
+    // Загрузка снимка всех задач обходит хранилище - считаем обходы
+    private static TaskController controller(AtomicInteger loads) {
+        return new TaskController(new HeapTaskStore() {
+            @Override
+            public void forEach(Consumer<Task> action) {
+                loads.incrementAndGet();
+                super.forEach(action);
+            }
+        });
+    }
+
+    private static double count(SimpleMeterRegistry registry, String tier, String result) {
+        return registry.counter("cache.tier.requests",
+                "cache", "task", "tier", tier, "result", result).count();
+    }
+}
@@ -0,0 +1,229 @@
+package ru.klosep.performance_management.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.config.CacheConfig;
+import ru.klosep.performance_management.config.CacheLoaderRegistry;
+import ru.klosep.performance_management.model.TaskStatistics;
+import ru.klosep.performance_management.store.HeapTaskStore;
+import ru.klosep.performance_management.store.TaskSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskControllerTest {
+
+    @Test
+    void shouldKeepStatisticsInSyncWithMutations() {
+        TaskController controller = new TaskController();
+
+        Task created = controller.createTask(new Task(null, "A much longer task title", "Desc", true)).getBody();
+        controller.updateTask(5L, new Task(null, "Renamed", "Desc", true));
+        controller.deleteTask(7L);
+        controller.deleteTask(created.getId() + 1000); // несуществующая
+
+        List<Task> all = new ArrayList<>(controller.getAllTasks().getBody());
+        TaskStatistics expected = all.stream().collect(TaskStatistics.collector());
+
+        TaskStatistics maintained = controller.statisticsSnapshot();
+        assertEquals(expected, maintained);
+        assertEquals(100, maintained.getTotal());
+        assertEquals(2, maintained.getCompleted());
+    }
+
+    @Test
+    void shouldReconcileDriftedStatistics() {
+        TaskController controller = new TaskController();
+        // Изменение в обход контроллера - агрегаты о нём не знают
+        controller.getTask(3L).getBody().setCompleted(true);
+        assertEquals(0, controller.statisticsSnapshot().getCompleted());
+
+        controller.reconcileStatistics();
+        assertEquals(1, controller.statisticsSnapshot().getCompleted());
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForCurrentVersion() {
+        TaskController controller = new TaskController();
+        String etag = controller.getStatistics(null).getHeaders().getETag();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, controller.getStatistics(etag).getStatusCode());
+
+        controller.deleteTask(1L);
+        ResponseEntity<TaskStatistics> changed = controller.getStatistics(etag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertEquals(99, changed.getBody().getTotal());
+    }
+
+    @Test
+    void shouldPatchCachedSnapshotInsteadOfEvictingIt() {
+        TaskController controller = new TaskController();
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("tasks", "task");
+        ReflectionTestUtils.setField(controller, "cacheManager", cacheManager);
+        Cache cache = cacheManager.getCache("tasks");
+
+        controller.getAllTasks(); // промах - снимок попадает в кэш
+        TaskSnapshot loaded = cache.get("all", TaskSnapshot.class);
+        assertNotNull(loaded);
+
+        Task created = controller.createTask(new Task(null, "New", "Desc", true)).getBody();
+        controller.updateTask(5L, new Task(null, "Renamed", "Desc", true));
+        controller.deleteTask(7L);
+
+        // Кэш не сброшен, а доведён до текущей версии
+        TaskSnapshot patched = cache.get("all", TaskSnapshot.class);
+        assertNotNull(patched);
+        assertEquals(controller.dataVersion(), patched.getVersion());
+        assertSame(patched, controller.getAllTasks().getBody());
+        assertEquals(100, patched.size());
+        assertEquals("Renamed", patched.get(4).getTitle());
+        assertEquals(8L, patched.get(6).getId());
+        assertEquals(created.getId(), patched.get(99).getId());
+
+        // Прежний снимок не изменился
+        assertEquals(100, loaded.size());
+        assertEquals("Task 5", loaded.get(4).getTitle());
+
+        // Изменение в обход контроллера устаревает снимок - он перечитывается
+        controller.getTask(3L).getBody().setCompleted(true);
+        controller.reconcileStatistics();
+        assertNotSame(patched, controller.getAllTasks().getBody());
+    }
+
+    // Запись в кэш (в профиле redis - сетевые вызовы) идёт после снятия блокировки изменений
+    @Test
+    void shouldWriteCachedSnapshotOutsideStatisticsLock() {
+        TaskController controller = new TaskController();
+        StampedLock lock = (StampedLock) ReflectionTestUtils.getField(controller, "statisticsLock");
+        List<Boolean> lockedWrites = new ArrayList<>();
+        SimpleCacheManager cacheManager = new SimpleCacheManager();
+        cacheManager.setCaches(List.of(new ConcurrentMapCache("tasks") {
+            @Override
+            public void put(Object key, Object value) {
+                lockedWrites.add(lock.isWriteLocked());
+                super.put(key, value);
+            }
+
+            @Override
+            public void evict(Object key) {
+                lockedWrites.add(lock.isWriteLocked());
+                super.evict(key);
+            }
+        }));
+        cacheManager.afterPropertiesSet();
+        ReflectionTestUtils.setField(controller, "cacheManager", cacheManager);
+
+        controller.getAllTasks(); // промах - снимок кладёт загрузчик кэша
+        controller.createTask(new Task(null, "New", "Desc", true));
+        controller.updateTask(5L, new Task(null, "Renamed", "Desc", true));
+        controller.deleteTask(7L);
+
+        assertEquals(List.of(false, false, false), lockedWrites);
+        assertEquals(controller.dataVersion(), ((TaskSnapshot) controller.getAllTasks().getBody()).getVersion());
+    }
+
+    // Как у RedisCache: retrieve с асинхронным writer'ом отдаёт ещё не завершённый future,
+    // с синхронным - бросает UnsupportedOperationException
+    @Test
+    void shouldPatchCacheWithoutSynchronousRetrieve() {
+        for (boolean asyncWriter : new boolean[]{true, false}) {
+            AtomicInteger loads = new AtomicInteger();
+            TaskController controller = new TaskController(new HeapTaskStore() {
+                @Override
+                public void forEach(Consumer<Task> action) {
+                    loads.incrementAndGet();
+                    super.forEach(action);
+                }
+            });
+            SimpleCacheManager cacheManager = new SimpleCacheManager();
+            cacheManager.setCaches(List.of(new ConcurrentMapCache("tasks") {
+                @Override
+                public CompletableFuture<?> retrieve(Object key) {
+                    if (asyncWriter) {
+                        return new CompletableFuture<>();
+                    }
+                    throw new UnsupportedOperationException("retrieve requires an asynchronous cache writer");
+                }
+            }));
+            cacheManager.afterPropertiesSet();
+            ReflectionTestUtils.setField(controller, "cacheManager", cacheManager);
+
+            controller.getAllTasks();
+            assertEquals(HttpStatus.CREATED,
+                    controller.createTask(new Task(null, "New", "Desc", true)).getStatusCode());
+            controller.deleteTask(1L);
+
+            TaskSnapshot patched = (TaskSnapshot) controller.getAllTasks().getBody();
+            assertEquals(controller.dataVersion(), patched.getVersion());
+            assertEquals(100, patched.size());
+            assertEquals(1, loads.get());
+        }
+    }
+
+    @Test
+    void shouldCollapseConcurrentMissesIntoOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        TaskController controller = new TaskController(new HeapTaskStore() {
+            @Override
+            public void forEach(Consumer<Task> action) {
+                loads.incrementAndGet();
+                super.forEach(action);
+            }
+        });
+        CacheLoaderRegistry loaders = new CacheLoaderRegistry();
+        CacheManager cacheManager = new CacheConfig().caffeineCacheManager(loaders, 500, 600_000, 60_000, 0.1);
+        ReflectionTestUtils.setField(controller, "cacheManager", cacheManager);
+        ReflectionTestUtils.setField(controller, "cacheLoaders", loaders);
+        controller.registerCacheLoaders();
+
+        // 100 одновременных промахов - одна загрузка
+        List<Future<List<Task>>> responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                responses.add(executor.submit(() -> controller.getAllTasks().getBody()));
+            }
+        }
+        List<Task> first = responses.get(0).get();
+        for (Future<List<Task>> response : responses) {
+            assertSame(first, response.get());
+        }
+        assertEquals(1, loads.get());
+
+        // Изменения патчат закэшированный снимок без новой загрузки
+        controller.createTask(new Task(null, "New", "Desc", false));
+        controller.deleteTask(1L);
+        assertEquals(100, controller.getAllTasks().getBody().size());
+        assertEquals(1, loads.get());
+
+        // Отставший снимок отдаётся сразу и обновляется в фоне одной загрузкой
+        controller.getTask(3L).getBody().setCompleted(true);
+        controller.reconcileStatistics();
+        int loadsBeforeRefresh = loads.get(); // сверка тоже обходит задачи
+        List<Task> stale = controller.getAllTasks().getBody();
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (controller.getAllTasks().getBody() == stale && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(loadsBeforeRefresh + 1, loads.get());
+        assertEquals(controller.dataVersion(),
+                cacheManager.getCache("tasks").get("all", TaskSnapshot.class).getVersion());
+    }
+}
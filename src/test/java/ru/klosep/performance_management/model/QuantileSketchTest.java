@@ -0,0 +1,48 @@
+package ru.klosep.performance_management.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    @Test
+    void shouldStayWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        QuantileSketch sketch = new QuantileSketch(0.01);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + random.nextInt(200);
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.01, 0.25, 0.5, 0.9, 0.99, 1.0}) {
+            double exact = values[(int) Math.floor(q * (values.length - 1))];
+            assertEquals(exact, sketch.quantile(q), exact * 0.01 + 1e-9, "q=" + q);
+        }
+    }
+
+    @Test
+    void shouldMergeExactlyAndSurviveSerialization() {
+        QuantileSketch days = new QuantileSketch();
+        QuantileSketch whole = new QuantileSketch();
+        for (int day = 0; day < 7; day++) {
+            QuantileSketch daily = new QuantileSketch();
+            for (int i = 0; i < 1_000; i++) {
+                double value = (day * 37 + i) % 150;
+                daily.add(value);
+                whole.add(value);
+            }
+            days.merge(QuantileSketch.fromBytes(daily.toBytes()));
+        }
+
+        assertEquals(whole.getCount(), days.getCount());
+        assertArrayEquals(whole.toBytes(), days.toBytes());
+        assertEquals(whole.quantile(0.9), days.quantile(0.9), 0.0);
+        assertEquals(0.0, days.quantile(0.0), 0.0);
+    }
+}
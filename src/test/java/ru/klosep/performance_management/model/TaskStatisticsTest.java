@@ -0,0 +1,41 @@
+package ru.klosep.performance_management.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskStatisticsTest {
+
+    // Строки, которые вернёт TaskJpaRepository.aggregateByTitleLength для тех же задач:
+    // LEAST(COALESCE(char_length(title), 0) / 10, 15), char_length - кодовые точки
+    @Test
+    void shouldMatchDatabaseBucketsForNullAndNonBmpTitles() {
+        String emoji = "😀".repeat(10); // 10 кодовых точек, 20 UTF-16 символов
+        List<Task> tasks = List.of(
+                new Task(1L, null, "no title", true),
+                new Task(2L, emoji, "non-BMP", false),
+                new Task(3L, "x".repeat(200), "long", true));
+
+        TaskStatistics inJvm = new TaskStatistics();
+        tasks.forEach(inJvm::accept);
+
+        TaskStatistics pushedDown = new TaskStatistics();
+        pushedDown.acceptBucket(0, 1, 1, 0);
+        pushedDown.acceptBucket(1, 1, 0, 10);
+        pushedDown.acceptBucket(15, 1, 1, 200);
+
+        assertEquals(pushedDown, inJvm);
+        assertEquals(0, TaskStatistics.titleLength(tasks.get(0)));
+        assertEquals(10, TaskStatistics.titleLength(tasks.get(1)));
+        assertArrayEquals(new long[]{1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1},
+                inJvm.getTitleLengthHistogram());
+        assertEquals(70.0, inJvm.getAverageTitleLength(), 1e-9);
+
+        // Удаление вычитает ту же длину, что прибавило добавление
+        inJvm.remove(tasks.get(1));
+        assertEquals(200, inJvm.getTitleLengthSum());
+        assertEquals(0, inJvm.getTitleLengthHistogram()[1]);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.klosep.performance_management.parsing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.klosep.performance_management.benchmark.DataGenerator;
+import ru.klosep.performance_management.model.Task;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryTaskIndexTest {
+
+    @Test
+    void shouldFindEveryRecordByIdThroughIndex(@TempDir Path dir) throws Exception {
+        Path data = dir.resolve("tasks.bin");
+        DataGenerator.generateBinaryDataset(2_000, data.toString());
+
+        List<Task> sequential = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+            assertEquals(2_000, BinaryTaskReader.readCount(channel));
+            BinaryTaskReader reader = new BinaryTaskReader(channel);
+            Task task;
+            while ((task = reader.nextTask()) != null) {
+                sequential.add(task);
+            }
+        }
+        assertEquals(2_000, sequential.size());
+
+        Path indexFile = BinaryTaskIndex.defaultIndexPath(data);
+        try (BinaryTaskIndex index = BinaryTaskIndex.build(data, indexFile);
+             FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+            assertEquals(2_000, index.size());
+            for (Task expected : sequential) {
+                Task actual = BinaryTaskReader.readAt(channel, index.offsetOf(expected.getId()));
+                assertEquals(expected.getId(), actual.getId());
+                assertEquals(expected.getTitle(), actual.getTitle());
+                assertEquals(expected.getDescription(), actual.getDescription());
+                assertEquals(expected.isCompleted(), actual.isCompleted());
+            }
+            assertEquals(-1, index.offsetOf(2_001));
+        }
+    }
+
+    @Test
+    void shouldRejectIndexOfModifiedDataFile(@TempDir Path dir) throws Exception {
+        Path data = dir.resolve("tasks.bin");
+        DataGenerator.generateBinaryDataset(10, data.toString());
+        Path indexFile = BinaryTaskIndex.defaultIndexPath(data);
+
+        BinaryTaskIndex.build(data, indexFile).close();
+        try (BinaryTaskIndex index = BinaryTaskIndex.open(data, indexFile)) {
+            assertNotNull(index);
+        }
+
+        Files.setLastModifiedTime(data, FileTime.fromMillis(
+                Files.getLastModifiedTime(data).toMillis() + 60_000));
+        assertNull(BinaryTaskIndex.open(data, indexFile));
+    }
+
+    @Test
+    void shouldFailOnTruncatedRecord(@TempDir Path dir) throws Exception {
+        Path data = dir.resolve("tasks.bin");
+        DataGenerator.generateBinaryDataset(3, data.toString());
+        byte[] bytes = Files.readAllBytes(data);
+        Files.write(data, Arrays.copyOf(bytes, bytes.length - 5));
+
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.READ)) {
+            BinaryTaskReader reader = new BinaryTaskReader(channel);
+            assertNotNull(reader.nextTask());
+            assertNotNull(reader.nextTask());
+            assertThrows(IOException.class, reader::nextTask);
+        }
+    }
+}
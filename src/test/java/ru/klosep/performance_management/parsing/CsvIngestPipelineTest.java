@@ -0,0 +1,97 @@
+package ru.klosep.performance_management.parsing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.klosep.performance_management.model.Task;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvIngestPipelineTest {
+
+    @Test
+    void shouldWriteAllRecordsInFileOrder(@TempDir Path dir) throws Exception {
+        Path file = writeCsv(dir, 3_000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Маленькие блоки - границы попадают внутрь кавычек
+        CsvIngestPipeline pipeline = new CsvIngestPipeline(3, 1, 2, 1024, new CsvIngestPipeline.Metrics(registry));
+
+        List<Task> written = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        pipeline.run(file, 0, UnaryOperator.identity(), chunk -> {
+            written.addAll(chunk.tasks);
+            offsets.add(chunk.endOffset);
+            return chunk.tasks.size();
+        });
+
+        assertEquals(3_000, written.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(i + 1, written.get(i).getId());
+        }
+        assertEquals("said \"hi\",\nthen left", written.get(2).getDescription());
+        assertEquals(Files.size(file), offsets.get(offsets.size() - 1));
+        assertEquals(3_000, registry.get("task.parsing.pipeline.records").tag("stage", "write")
+                .counter().count());
+        assertEquals(0, registry.get("task.parsing.pipeline.queue.depth").tag("queue", "raw")
+                .gauge().value());
+    }
+
+    @Test
+    void shouldResumeFromChunkEndOffset(@TempDir Path dir) throws Exception {
+        Path file = writeCsv(dir, 1_000);
+        CsvIngestPipeline pipeline = new CsvIngestPipeline(2, 1, 2, 1024,
+                new CsvIngestPipeline.Metrics(new SimpleMeterRegistry()));
+
+        List<CsvIngestPipeline.ParsedChunk> chunks = new ArrayList<>();
+        pipeline.run(file, 0, UnaryOperator.identity(), chunk -> {
+            chunks.add(chunk);
+            return chunk.tasks.size();
+        });
+
+        CsvIngestPipeline.ParsedChunk committed = chunks.get(1);
+        int committedRows = chunks.get(0).recordsRead + committed.recordsRead;
+
+        List<Task> rest = new ArrayList<>();
+        pipeline.run(file, committed.endOffset, UnaryOperator.identity(), chunk -> {
+            rest.addAll(chunk.tasks);
+            return chunk.tasks.size();
+        });
+
+        assertEquals(1_000 - committedRows, rest.size());
+        assertEquals(committedRows + 1, rest.get(0).getId());
+    }
+
+    @Test
+    void shouldStopAllStagesWhenWriterFails(@TempDir Path dir) throws Exception {
+        Path file = writeCsv(dir, 5_000);
+        CsvIngestPipeline pipeline = new CsvIngestPipeline(2, 1, 1, 1024,
+                new CsvIngestPipeline.Metrics(new SimpleMeterRegistry()));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () ->
+                pipeline.run(file, 0, UnaryOperator.identity(), chunk -> {
+                    if (chunk.sequence == 3) {
+                        throw new IllegalStateException("db is down");
+                    }
+                    return chunk.tasks.size();
+                }));
+        assertEquals("db is down", error.getMessage());
+    }
+
+    private static Path writeCsv(Path dir, int count) throws Exception {
+        StringBuilder csv = new StringBuilder("id,title,description,completed\n");
+        for (int i = 1; i <= count; i++) {
+            csv.append(i).append(",Task ").append(i).append(',')
+                    .append(i % 3 == 0 ? "\"said \"\"hi\"\",\nthen left\"" : "plain")
+                    .append(',').append(i % 2 == 0).append('\n');
+        }
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, csv);
+        return file;
+    }
+}
@@ -0,0 +1,134 @@
+package ru.klosep.performance_management.parsing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.klosep.performance_management.model.Task;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTaskTokenizerTest {
+
+    private static final String CSV =
+            "id,title,description,completed,createdAt\n" +
+            "1,Fix database,\"Task description for Fix database. Priority: 3, Estimated hours: 5\",true,2025-01-01T10:00:00\n" +
+            "2,\"Say \"\"hi\"\"\",\"multi\nline\",FALSE,2025-01-02T10:00:00\r\n" +
+            "\n" +
+            "3,  Spaced  ,plain,True\n" +
+            "broken\n" +
+            "4,Last,no newline,false";
+
+    @Test
+    void shouldParseQuotedAndEscapedFields() throws Exception {
+        List<Task> tasks = readAll(new CsvTaskTokenizer(ByteBuffer.wrap(CSV.getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals(4, tasks.size());
+
+        // Запятые внутри кавычек не разбивают поле
+        assertEquals("Task description for Fix database. Priority: 3, Estimated hours: 5",
+                tasks.get(0).getDescription());
+        assertTrue(tasks.get(0).isCompleted());
+
+        // "" внутри кавычек - одна кавычка, перевод строки внутри кавычек сохраняется
+        assertEquals("Say \"hi\"", tasks.get(1).getTitle());
+        assertEquals("multi\nline", tasks.get(1).getDescription());
+        assertFalse(tasks.get(1).isCompleted());
+
+        // Пробелы вокруг неэкранированных полей обрезаются, как trim() в старом коде
+        assertEquals(3L, tasks.get(2).getId());
+        assertEquals("Spaced", tasks.get(2).getTitle());
+        assertTrue(tasks.get(2).isCompleted());
+
+        assertEquals(4L, tasks.get(3).getId());
+        assertEquals("no newline", tasks.get(3).getDescription());
+    }
+
+    @Test
+    void shouldReadRecordsLongerThanBuffer(@TempDir Path dir) throws Exception {
+        String longDescription = "x".repeat(200_000);
+        Path file = dir.resolve("long.csv");
+        Files.writeString(file, "id,title,description,completed\n"
+                + "1,Long,\"" + longDescription + "\",true\n"
+                + "2,Short,d,false\n");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<Task> tasks = readAll(new CsvTaskTokenizer(channel));
+
+            assertEquals(2, tasks.size());
+            assertEquals(longDescription, tasks.get(0).getDescription());
+            assertEquals("Short", tasks.get(1).getTitle());
+        }
+    }
+
+    @Test
+    void shouldReportRecordOffsets() throws Exception {
+        byte[] data = "id,title\n10,A\n20,B\n".getBytes(StandardCharsets.UTF_8);
+        CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(data, 0, data.length);
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(9, tokenizer.position());
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(9, tokenizer.recordOffset());
+        assertEquals(10L, tokenizer.parseLong(0));
+        assertEquals(14, tokenizer.position());
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(20L, tokenizer.parseLong(0));
+        assertFalse(tokenizer.nextRecord());
+    }
+
+    @Test
+    void shouldLeavePartialLastRecordForNextTailRead(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("growing.csv");
+        Files.writeString(file, "id,title,description,completed\n1,A,a,true\n2,B,\"half\nwritten");
+
+        long resumeAt;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel, 0, channel.size(), true);
+            List<Task> tasks = readAll(tokenizer);
+
+            assertEquals(1, tasks.size());
+            resumeAt = tokenizer.position();
+            assertEquals("id,title,description,completed\n1,A,a,true\n".length(), resumeAt);
+        }
+
+        Files.writeString(file, " line\",false\n3,C,c,true\n", StandardOpenOption.APPEND);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel, resumeAt, channel.size(), true);
+            Task second = tokenizer.nextTask();
+            assertEquals("half\nwritten line", second.getDescription());
+            assertEquals(3L, tokenizer.nextTask().getId());
+            assertNull(tokenizer.nextTask());
+            assertEquals(channel.size(), tokenizer.position());
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidNumbers() throws Exception {
+        byte[] data = "12x,A\n".getBytes(StandardCharsets.UTF_8);
+        CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(data, 0, data.length);
+
+        assertTrue(tokenizer.nextRecord());
+        assertThrows(NumberFormatException.class, () -> tokenizer.parseLong(0));
+    }
+
+    private List<Task> readAll(CsvTaskTokenizer tokenizer) throws Exception {
+        tokenizer.nextRecord(); // заголовок
+        List<Task> tasks = new ArrayList<>();
+        Task task;
+        while ((task = tokenizer.nextTask()) != null) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,106 @@
+package ru.klosep.performance_management.parsing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.klosep.performance_management.model.Task;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvTaskParserTest {
+
+    @Test
+    void shouldMatchSequentialParsingWhenRangesCutThroughQuotes(@TempDir Path dir) throws Exception {
+        // Описания с запятыми, кавычками и переводами строк внутри кавычек
+        StringBuilder csv = new StringBuilder("id,title,description,completed\n");
+        for (int i = 1; i <= 500; i++) {
+            csv.append(i).append(",Task ").append(i).append(",\"Line one, ")
+                    .append(i % 3 == 0 ? "with \"\"quotes\"\"\nand line two" : "plain")
+                    .append("\",").append(i % 2 == 0).append('\n');
+        }
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, csv);
+
+        List<Task> expected = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            CsvTaskTokenizer tokenizer = new CsvTaskTokenizer(channel);
+            tokenizer.nextRecord();
+            Task task;
+            while ((task = tokenizer.nextTask()) != null) {
+                expected.add(task);
+            }
+        }
+
+        // Маленькие диапазоны - границы попадают внутрь кавычек
+        List<Task> actual = new ParallelCsvTaskParser(4, 97).parse(file);
+
+        assertEquals(500, expected.size());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+            assertEquals(expected.get(i).getDescription(), actual.get(i).getDescription());
+            assertEquals(expected.get(i).isCompleted(), actual.get(i).isCompleted());
+        }
+    }
+
+    @Test
+    void shouldSplitOnRecordBoundaries(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, "id,title,description,completed\n"
+                + "1,A,\"x\ny\",true\n"
+                + "2,B,z,false\n"
+                + "3,C,w,true\n");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<ParallelCsvTaskParser.FileRange> ranges = new ParallelCsvTaskParser(8, 1).split(channel);
+
+            assertEquals(31, ranges.get(0).start);
+            assertEquals(channel.size(), ranges.get(ranges.size() - 1).end);
+            for (int i = 1; i < ranges.size(); i++) {
+                assertEquals(ranges.get(i - 1).end, ranges.get(i).start);
+                // Граница не может оказаться внутри "x\ny"
+                assertNotEquals(31 + "1,A,\"x\n".length(), ranges.get(i).start);
+            }
+        }
+    }
+
+    @Test
+    void shouldResumeFromCommittedPartitionEnd(@TempDir Path dir) throws Exception {
+        StringBuilder csv = new StringBuilder("id,title,description,completed\n");
+        for (int i = 1; i <= 200; i++) {
+            csv.append(i).append(",Task ").append(i).append(",\"multi\nline\",true\n");
+        }
+        Path file = dir.resolve("tasks.csv");
+        Files.writeString(file, csv);
+
+        ParallelCsvTaskParser parser = new ParallelCsvTaskParser(2, 256);
+        List<ParallelCsvTaskParser.Partition> partitions = new ArrayList<>();
+        parser.parseInOrder(file, partitions::add);
+
+        // Как будто первые три диапазона закоммичены до сбоя
+        long committed = partitions.get(2).range.end;
+        int committedRows = partitions.get(0).tasks.size() + partitions.get(1).tasks.size()
+                + partitions.get(2).tasks.size();
+
+        List<Task> rest = new ArrayList<>();
+        parser.parseInOrder(file, committed, partition -> rest.addAll(partition.tasks));
+
+        assertEquals(200 - committedRows, rest.size());
+        assertEquals(committedRows + 1, rest.get(0).getId());
+        assertEquals("multi\nline", rest.get(0).getDescription());
+    }
+
+    @Test
+    void shouldReturnNothingForHeaderOnlyFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("empty.csv");
+        Files.writeString(file, "id,title,description,completed\n");
+
+        assertTrue(new ParallelCsvTaskParser(2, 1024).parse(file).isEmpty());
+    }
+}
@@ -0,0 +1,40 @@
+package ru.klosep.performance_management.parsing;
+
+import org.junit.jupiter.api.Test;
+import ru.klosep.performance_management.model.Task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SourceHashIndexTest {
+
+    @Test
+    void shouldMatchOnlyUnchangedRecordsAfterGrowing() {
+        SourceHashIndex index = new SourceHashIndex(4);
+        for (long id = 0; id < 100_000; id++) {
+            index.put(id, id * 31);
+        }
+
+        assertEquals(100_000, index.size());
+        for (long id = 0; id < 100_000; id++) {
+            assertTrue(index.matches(id, id * 31));
+            assertFalse(index.matches(id, id * 31 + 1));
+        }
+        assertFalse(index.matches(100_000, 0));
+
+        index.put(42, 7);
+        assertTrue(index.matches(42, 7));
+        assertEquals(100_000, index.size());
+    }
+
+    @Test
+    void shouldChangeFingerprintWhenAnyFieldChanges() {
+        Task task = new Task(1L, "Title", "Description", false);
+        long hash = TaskFingerprint.hash(task);
+
+        assertEquals(hash, TaskFingerprint.hash(new Task(2L, "Title", "Description", false)));
+        assertNotEquals(hash, TaskFingerprint.hash(new Task(1L, "Title", "Description", true)));
+        assertNotEquals(hash, TaskFingerprint.hash(new Task(1L, "Title ", "Description", false)));
+        assertNotEquals(hash, TaskFingerprint.hash(new Task(1L, "TitleD", "escription", false)));
+        assertNotEquals(hash, TaskFingerprint.hash(new Task(1L, "Title", null, false)));
+    }
+}
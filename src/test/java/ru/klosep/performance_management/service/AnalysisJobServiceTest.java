@@ -0,0 +1,60 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.klosep.performance_management.model.AnalysisJob;
+import ru.klosep.performance_management.model.Task;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisJobServiceTest {
+
+    @Test
+    void shouldCoalesceConcurrentIdenticalRequests() throws Exception {
+        AnalysisJobService jobService = new AnalysisJobService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jobService, "messagingTemplate",
+                new SimpMessagingTemplate((message, timeout) -> true));
+
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger fetches = new AtomicInteger();
+        TaskAnalysisService service = new TaskAnalysisService(() -> {
+            fetches.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(new Task(1L, "Task 1", "Desc 1", true));
+        }, analysis -> { });
+
+        // Пока первый расчёт идёт, одинаковые запросы получают то же задание
+        AnalysisJob first = jobService.submit("REST->DB", () -> service);
+        for (int i = 0; i < 49; i++) {
+            assertSame(first, jobService.submit("REST->DB", () -> service));
+        }
+        AnalysisJob other = jobService.submit("FILE->DB", () -> service);
+        assertNotSame(first, other);
+
+        release.countDown();
+        assertEquals(1, first.completion().get(5, TimeUnit.SECONDS).getTotalTasks());
+        other.completion().get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, fetches.get());
+        assertEquals("COMPLETED", first.getStatus());
+        assertSame(first, jobService.find(first.getId()).orElseThrow());
+
+        // После завершения тот же запрос запускает новый расчёт
+        AnalysisJob next = jobService.submit("REST->DB", () -> service);
+        assertNotSame(first, next);
+        next.completion().get(5, TimeUnit.SECONDS);
+        assertEquals(3, fetches.get());
+        jobService.shutdown();
+    }
+}
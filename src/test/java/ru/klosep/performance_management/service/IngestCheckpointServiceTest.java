@@ -0,0 +1,81 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.klosep.performance_management.model.FileFormat;
+import ru.klosep.performance_management.model.ImportMode;
+import ru.klosep.performance_management.model.SinkType;
+import ru.klosep.performance_management.postgres.entity.IngestCheckpointEntity;
+import ru.klosep.performance_management.postgres.entity.IngestCheckpointEntity.Status;
+import ru.klosep.performance_management.postgres.repository.IngestCheckpointRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class IngestCheckpointServiceTest {
+
+    @TempDir
+    Path directory;
+
+    // Прогресс загрузки в один приёмник не действует на загрузку того же файла в другой
+    @Test
+    void shouldKeepSeparateProgressPerSinkAndImportMode() throws Exception {
+        Path file = Files.writeString(directory.resolve("tasks.csv"), "id,title,description,completed\n");
+        IngestCheckpointService service = service();
+
+        IngestCheckpointEntity jpa = service.start(file, FileFormat.CSV, SinkType.JPA, ImportMode.INSERT, true);
+        service.advance(jpa.getFileKey(), 500, 10, 10);
+        service.complete(jpa.getFileKey());
+
+        // Файл уже в JPA, но в COPY ещё не загружался
+        IngestCheckpointEntity copy = service.start(file, FileFormat.CSV, SinkType.COPY, ImportMode.INSERT, true);
+        assertNotEquals(jpa.getFileKey(), copy.getFileKey());
+        assertEquals(Status.RUNNING, copy.getStatus());
+        assertEquals(0, copy.getCommittedOffset());
+
+        // Недогруженный JPA-UPSERT не сдвигает начало загрузки в MONGO
+        IngestCheckpointEntity upsert = service.start(file, FileFormat.CSV, SinkType.JPA, ImportMode.UPSERT, true);
+        assertEquals(0, upsert.getCommittedOffset());
+        service.advance(upsert.getFileKey(), 300, 6, 6);
+
+        IngestCheckpointEntity mongo = service.start(file, FileFormat.CSV, SinkType.MONGO, ImportMode.UPSERT, true);
+        assertEquals(0, mongo.getCommittedOffset());
+        assertEquals(0, mongo.getCommittedRows());
+
+        // Те же приёмник и режим продолжают свою загрузку
+        assertEquals(300, service.start(file, FileFormat.CSV, SinkType.JPA, ImportMode.UPSERT, true)
+                .getCommittedOffset());
+        assertEquals(Status.COMPLETED,
+                service.start(file, FileFormat.CSV, SinkType.JPA, ImportMode.INSERT, true).getStatus());
+        assertEquals(Status.COMPLETED,
+                service.find(file, SinkType.JPA, ImportMode.INSERT).orElseThrow().getStatus());
+    }
+
+    // Репозиторий в памяти
+    private static IngestCheckpointService service() {
+        Map<String, IngestCheckpointEntity> rows = new HashMap<>();
+        IngestCheckpointRepository repository = mock(IngestCheckpointRepository.class);
+        when(repository.findById(anyString())).thenAnswer(invocation ->
+                Optional.ofNullable(rows.get(invocation.<String>getArgument(0))));
+        when(repository.save(any())).thenAnswer(invocation -> {
+            IngestCheckpointEntity checkpoint = invocation.getArgument(0);
+            rows.put(checkpoint.getFileKey(), checkpoint);
+            return checkpoint;
+        });
+
+        IngestCheckpointService service = new IngestCheckpointService();
+        ReflectionTestUtils.setField(service, "repository", repository);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        return service;
+    }
+}
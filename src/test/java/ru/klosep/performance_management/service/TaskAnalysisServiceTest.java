@@ -1,14 +1,22 @@
 package ru.klosep.performance_management.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import ru.klosep.performance_management.model.Task;
 import ru.klosep.performance_management.model.TaskAnalysis;
+import ru.klosep.performance_management.model.TaskStatistics;
 import ru.klosep.performance_management.port.AnalysisResultPublisher;
 import ru.klosep.performance_management.port.TaskDataSource;
 import ru.klosep.performance_management.service.TaskAnalysisService;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -79,4 +87,117 @@ class TaskAnalysisServiceTest {
         assertTrue(result.getRecommendations().stream()
                 .anyMatch(r -> r.contains("Низкий процент выполнения")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldAnalyzeIteratorInSinglePass() {
+        int total = 1_000_000;
+        // Задачи создаются на лету - список не материализуется
+        Iterator<Task> tasks = new Iterator<>() {
+            private long next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < total;
+            }
+
+            @Override
+            public Task next() {
+                next++;
+                return new Task(next, next % 4 == 0 ? "Four" : "Twelve chars", null, next % 2 == 0);
+            }
+        };
+
+        TaskAnalysisService service = new TaskAnalysisService(List::of, analysis -> { });
+        TaskAnalysis result = service.analyze(tasks);
+
+        assertEquals(total, result.getTotalTasks());
+        assertEquals(total / 2, result.getCompletedTasks());
+        assertEquals(0.5, result.getCompletionRate(), 1e-9);
+        assertEquals((4 * 0.25) + (12 * 0.75), result.getAverageTitleLength(), 1e-9);
+    }
+
+    @Test
+    void shouldConsumeStreamingSourceAndCloseIt() {
+        AtomicBoolean closed = new AtomicBoolean();
+        TaskDataSource streamingSource = new TaskDataSource() {
+            @Override
+            public List<Task> fetchTasks() {
+                throw new AssertionError("List must not be materialized");
+            }
+
+            @Override
+            public Stream<Task> streamTasks() {
+                return Stream.of(
+                        new Task(1L, "Task 1", "Desc 1", true),
+                        new Task(2L, "Task 2", "Desc 2", false)
+                ).onClose(() -> closed.set(true));
+            }
+        };
+
+        List<TaskAnalysis> results = new ArrayList<>();
+        new TaskAnalysisService(streamingSource, results::add).analyzeAndPublish();
+
+        assertEquals(2, results.get(0).getTotalTasks());
+        assertEquals(1, results.get(0).getCompletedTasks());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void shouldMergePartitionsExactly() {
+        List<Task> all = new ArrayList<>();
+        for (long id = 1; id <= 10_000; id++) {
+            all.add(new Task(id, "Task " + id, "Desc", id % 3 == 0));
+        }
+
+        List<TaskDataSource> shards = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += 1_500) {
+            List<Task> shard = all.subList(from, Math.min(from + 1_500, all.size()));
+            shards.add(() -> shard);
+        }
+
+        List<TaskAnalysis> sharded = new ArrayList<>();
+        new TaskAnalysisService(shards, sharded::add).analyzeAndPublish();
+        List<TaskAnalysis> single = new ArrayList<>();
+        new TaskAnalysisService(() -> all, single::add).analyzeAndPublish();
+
+        assertEquals(single.get(0).getTotalTasks(), sharded.get(0).getTotalTasks());
+        assertEquals(single.get(0).getCompletedTasks(), sharded.get(0).getCompletedTasks());
+        assertEquals(single.get(0).getAverageTitleLength(), sharded.get(0).getAverageTitleLength(), 0.0);
+        assertEquals(single.get(0).getRecommendations(), sharded.get(0).getRecommendations());
+
+        TaskStatistics parallel = all.parallelStream().collect(TaskStatistics.collector());
+        assertEquals(10_000, parallel.getTotal());
+        assertEquals(3_333, parallel.getCompleted());
+    }
+
+    @Test
+    void shouldSkipSourceWhileDataVersionIsUnchanged() {
+        AtomicInteger reads = new AtomicInteger();
+        AtomicReference<String> version = new AtomicReference<>("v1");
+        TaskDataSource versioned = new TaskDataSource() {
+            @Override
+            public List<Task> fetchTasks() {
+                reads.incrementAndGet();
+                return List.of(new Task(1L, "Task 1", "Desc", true));
+            }
+
+            @Override
+            public Optional<String> dataVersion() {
+                return Optional.of(version.get());
+            }
+        };
+
+        TaskAnalysisCache cache = new TaskAnalysisCache(new SimpleMeterRegistry());
+        List<TaskAnalysis> results = new ArrayList<>();
+        TaskAnalysisService service = new TaskAnalysisService(versioned, results::add, cache);
+
+        service.analyzeAndPublish();
+        service.analyzeAndPublish();
+        assertEquals(1, reads.get());
+        assertEquals(results.get(0).getCompletedTasks(), results.get(1).getCompletedTasks());
+
+        version.set("v2");
+        service.analyzeAndPublish();
+        assertEquals(2, reads.get());
+    }
+}
@@ -0,0 +1,99 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.klosep.performance_management.model.FileFormat;
+import ru.klosep.performance_management.model.ImportMode;
+import ru.klosep.performance_management.model.ParseMode;
+import ru.klosep.performance_management.model.ParseOptions;
+import ru.klosep.performance_management.model.SinkType;
+import ru.klosep.performance_management.model.Task;
+import ru.klosep.performance_management.port.TaskSink;
+import ru.klosep.performance_management.postgres.entity.IngestCheckpointEntity;
+import ru.klosep.performance_management.service.TaskParsingService.ChunkStats;
+import ru.klosep.performance_management.service.TaskParsingService.ParseResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TaskParsingServiceTest {
+
+    @TempDir
+    Path directory;
+
+    // STREAMING: чанк на каждые chunkSize записей, каждый - своя транзакция со сдвигом checkpoint-а
+    @Test
+    void shouldCommitStreamingFileChunkByChunk() throws Exception {
+        StringBuilder csv = new StringBuilder("id,title,description,completed\n");
+        for (int i = 1; i <= 25; i++) {
+            // Запись 12 без названия не проходит валидацию
+            csv.append(i).append(',').append(i == 12 ? "" : "Task " + i).append(",Description,false\n");
+        }
+        Path file = Files.writeString(directory.resolve("tasks.csv"), csv);
+
+        List<List<Long>> written = new ArrayList<>();
+        TaskSink sink = new TaskSink() {
+            @Override
+            public int write(List<Task> tasks) {
+                written.add(tasks.stream().map(Task::getId).toList());
+                return tasks.size();
+            }
+
+            @Override
+            public UpsertResult upsert(List<Task> tasks) {
+                throw new AssertionError("INSERT import must not upsert");
+            }
+        };
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        IngestCheckpointService checkpoints = mock(IngestCheckpointService.class);
+        when(checkpoints.start(any(), any(), any(), any(), anyBoolean()))
+                .thenReturn(new IngestCheckpointEntity("key", FileFormat.CSV.name(), Files.size(file), 0L));
+        TaskRollupService rollups = mock(TaskRollupService.class);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TaskParsingService service = new TaskParsingService(registry);
+        ReflectionTestUtils.setField(service, "meterRegistry", registry);
+        ReflectionTestUtils.setField(service, "jpaSink", sink);
+        ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(service, "checkpoints", checkpoints);
+        ReflectionTestUtils.setField(service, "rollups", rollups);
+
+        ParseResult result = service.parseAndSaveTasksFromFile(file.toString(),
+                new ParseOptions(ParseMode.STREAMING, 10, SinkType.JPA));
+
+        assertTrue(result.success, result.errorMessage);
+        assertEquals(24, result.recordsParsed);
+        assertEquals(24, result.recordsSaved);
+
+        assertEquals(3, result.chunks.size());
+        ChunkStats second = result.chunks.get(1);
+        assertEquals(1, second.index);
+        assertEquals(10, second.recordsRead);
+        assertEquals(9, second.recordsValid);
+        assertEquals(9, second.recordsSaved);
+        assertEquals(5, result.chunks.get(2).recordsRead);
+
+        assertEquals(List.of(10, 9, 5), written.stream().map(List::size).toList());
+        assertEquals(25L, written.get(2).get(4));
+        verify(transactionManager, times(3)).commit(any());
+        verify(checkpoints, times(3)).advance(eq("key"), anyLong(), anyInt(), anyInt());
+        verify(checkpoints).advance("key", Files.size(file), 5, 5);
+        verify(checkpoints).complete("key");
+        verify(checkpoints).start(any(), eq(FileFormat.CSV), eq(SinkType.JPA), eq(ImportMode.INSERT), eq(false));
+        verify(rollups, times(3)).record(anyList());
+        assertEquals(3, registry.counter("task.parsing.chunks").count());
+    }
+}
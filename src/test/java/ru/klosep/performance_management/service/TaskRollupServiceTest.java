@@ -0,0 +1,73 @@
+package ru.klosep.performance_management.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.klosep.performance_management.model.QuantileSketch;
+import ru.klosep.performance_management.postgres.entity.TaskDailyRollupEntity;
+import ru.klosep.performance_management.postgres.repository.TaskDailyRollupRepository;
+import ru.klosep.performance_management.postgres.repository.TaskJpaRepository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class TaskRollupServiceTest {
+
+    // Строки streamRollupRows: день created_at, completed, длина названия - по возрастанию created_at
+    @Test
+    void shouldBackfillOneRollupPerCreatedAtDay() {
+        LocalDate monday = LocalDate.of(2026, 3, 2);
+        LocalDate tuesday = monday.plusDays(1);
+
+        TaskJpaRepository tasks = mock(TaskJpaRepository.class);
+        when(tasks.streamRollupRows()).thenReturn(Stream.of(
+                new Object[]{Date.valueOf(monday), true, 10},
+                new Object[]{Date.valueOf(monday), false, 0},
+                new Object[]{Date.valueOf(monday), true, 20},
+                new Object[]{tuesday, false, 7}));
+
+        List<TaskDailyRollupEntity> saved = new ArrayList<>();
+        TaskDailyRollupRepository rollups = mock(TaskDailyRollupRepository.class);
+        when(rollups.save(any())).thenAnswer(invocation -> {
+            saved.add(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        TaskRollupService service = new TaskRollupService(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "repository", rollups);
+        ReflectionTestUtils.setField(service, "taskRepository", tasks);
+        ReflectionTestUtils.setField(service, "transactionTemplate", new TransactionTemplate(transactionManager));
+
+        assertEquals(2, service.backfill());
+
+        // Прежние строки заменяются целиком
+        verify(rollups).deleteAllInBatch();
+        assertEquals(2, saved.size());
+
+        TaskDailyRollupEntity first = saved.get(0);
+        assertEquals(monday, first.getDay());
+        assertEquals(3, first.getTotal());
+        assertEquals(2, first.getCompleted());
+        assertEquals(30, first.getTitleLengthSum());
+        assertEquals(3, QuantileSketch.fromBytes(first.getTitleLengthSketch()).getCount());
+
+        TaskDailyRollupEntity second = saved.get(1);
+        assertEquals(tuesday, second.getDay());
+        assertEquals(1, second.getTotal());
+        assertEquals(0, second.getCompleted());
+        assertEquals(7, second.getTitleLengthSum());
+    }
+}
@@ -0,0 +1,143 @@
+package ru.klosep.performance_management.store;
+
+import org.junit.jupiter.api.Test;
+import ru.klosep.performance_management.model.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTaskStoreTest {
+
+    @Test
+    void shouldMatchHeapMapUnderRandomOperations() {
+        // Мало полос и маленький размер - чтобы часто срабатывали рост и уплотнение
+        OffHeapTaskStore store = new OffHeapTaskStore(4, 16);
+        Map<Long, Task> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 50_000; i++) {
+            long id = random.nextInt(2_000);
+            if (random.nextInt(4) == 0) {
+                assertTaskEquals(expected.remove(id), store.remove(id));
+            } else {
+                Task task = new Task(id, random.nextBoolean() ? "Задача " + i : null,
+                        "x".repeat(random.nextInt(300)), random.nextBoolean());
+                assertTaskEquals(expected.put(id, task), store.put(task));
+            }
+        }
+
+        assertEquals(expected.size(), store.size());
+        for (long id = 0; id < 2_000; id++) {
+            assertTaskEquals(expected.get(id), store.get(id));
+        }
+
+        List<Task> all = new ArrayList<>();
+        store.forEach(all::add);
+        assertEquals(expected.size(), all.size());
+
+        List<Task> page = store.page(100, 10);
+        assertEquals(10, page.size());
+        assertTrue(page.get(0).getId() > 100);
+        for (int i = 1; i < page.size(); i++) {
+            assertTrue(page.get(i).getId() > page.get(i - 1).getId());
+        }
+    }
+
+    @Test
+    void shouldPageSparseIdsInOrderAfterMassDeletes() {
+        OffHeapTaskStore store = new OffHeapTaskStore(4, 16);
+        TreeMap<Long, Task> expected = new TreeMap<>();
+        Random random = new Random(7);
+
+        // Разреженные id по всему диапазону long, включая отрицательные и 0
+        for (int i = 0; i < 20_000; i++) {
+            long id = i == 0 ? 0 : random.nextLong();
+            Task task = new Task(id, "Task " + i, null, false);
+            expected.put(id, task);
+            store.put(task);
+        }
+        // Удаляем почти всё - страницы не должны перебирать пустой диапазон
+        for (Long id : new ArrayList<>(expected.keySet())) {
+            if (random.nextInt(100) != 0) {
+                expected.remove(id);
+                store.remove(id);
+            }
+        }
+
+        List<Long> paged = new ArrayList<>();
+        long after = Long.MIN_VALUE;
+        List<Task> page;
+        while (!(page = store.page(after, 37)).isEmpty()) {
+            page.forEach(task -> paged.add(task.getId()));
+            after = page.get(page.size() - 1).getId();
+        }
+        // Long.MIN_VALUE как курсор означает "с начала" - такого id среди задач нет
+        assertEquals(new ArrayList<>(expected.keySet()), paged);
+
+        long middle = expected.firstKey() / 2 + expected.lastKey() / 2;
+        assertEquals(new ArrayList<>(expected.tailMap(middle, false).keySet()).subList(0, 5),
+                store.page(middle, 5).stream().map(Task::getId).toList());
+        assertTrue(store.page(expected.lastKey(), 10).isEmpty());
+    }
+
+    @Test
+    void shouldNeverReturnTornTasksToConcurrentReaders() throws Exception {
+        OffHeapTaskStore store = new OffHeapTaskStore(2, 16);
+        for (long id = 1; id <= 1_000; id++) {
+            store.put(new Task(id, "v0-" + id, "v0-" + id, false));
+        }
+
+        // Название и описание всегда меняются вместе - читатель должен видеть их согласованными
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                Random random = new Random();
+                while (running.get()) {
+                    Task task = store.get(1 + random.nextInt(1_000));
+                    if (task != null && !task.getTitle().equals(task.getDescription())) {
+                        failure.set(task.getTitle() + " / " + task.getDescription());
+                    }
+                }
+            }));
+        }
+
+        Random random = new Random(7);
+        for (int i = 1; i <= 200_000; i++) {
+            long id = 1 + random.nextInt(1_000);
+            if (i % 10 == 0) {
+                store.remove(id);
+            }
+            String version = "v" + i + "-" + id;
+            store.put(new Task(id, version, version, i % 2 == 0));
+        }
+        running.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(1_000, store.size());
+    }
+
+    private static void assertTaskEquals(Task expected, Task actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertNotNull(actual);
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getTitle(), actual.getTitle());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.isCompleted(), actual.isCompleted());
+    }
+}
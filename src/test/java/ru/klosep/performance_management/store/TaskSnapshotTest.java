@@ -0,0 +1,43 @@
+package ru.klosep.performance_management.store;
+
+import org.junit.jupiter.api.Test;
+import ru.klosep.performance_management.model.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskSnapshotTest {
+
+    @Test
+    void shouldMatchSortedMapAfterRandomPatches() {
+        TreeMap<Long, Task> expected = new TreeMap<>();
+        for (long id = 1; id <= 3_000; id += 2) {
+            expected.put(id, new Task(id, "Task " + id, null, false));
+        }
+        TaskSnapshot snapshot = TaskSnapshot.of(expected.values(), 0);
+        TaskSnapshot initial = snapshot;
+        List<Task> initialTasks = new ArrayList<>(expected.values());
+
+        // Вставки в середину делят куски, удаления подряд опустошают их
+        Random random = new Random(42);
+        for (int i = 1; i <= 20_000; i++) {
+            long id = random.nextInt(4_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(id);
+                snapshot = snapshot.without(id, i);
+            } else {
+                Task task = new Task(id, "Task " + id + " v" + i, null, true);
+                expected.put(id, task);
+                snapshot = snapshot.with(task, i);
+            }
+        }
+
+        assertEquals(20_000, snapshot.getVersion());
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(snapshot));
+        assertEquals(initialTasks, initial);
+    }
+}